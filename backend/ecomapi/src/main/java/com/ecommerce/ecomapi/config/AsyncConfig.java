@@ -0,0 +1,124 @@
+package com.ecommerce.ecomapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    // Background document rendering; when the queue is full the render is dropped and happens on first download instead
+    @Bean(name = "documentTaskExecutor")
+    public ThreadPoolTaskExecutor documentTaskExecutor(
+            @Value("${app.documents.prerender.threads:2}") int threads,
+            @Value("${app.documents.prerender.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("doc-prerender-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Bulk invoice export; sized to the cores by default, each export keeps at most two renders per thread queued
+    @Bean(name = "invoiceExportExecutor")
+    public ThreadPoolTaskExecutor invoiceExportExecutor(@Value("${app.documents.export.threads:0}") int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setThreadNamePrefix("invoice-export-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Bulkhead for on-demand document renders: its own threads and a bounded queue, rejecting work once both are full
+    @Bean(name = "documentJobExecutor")
+    public ThreadPoolTaskExecutor documentJobExecutor(
+            @Value("${app.documents.jobs.threads:2}") int threads,
+            @Value("${app.documents.jobs.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("doc-job-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Product image derivatives; when the queue is full the job is dropped and sizes are generated on first request instead
+    @Bean(name = "imageDerivativeExecutor")
+    public ThreadPoolTaskExecutor imageDerivativeExecutor(
+            @Value("${app.images.derivatives.threads:2}") int threads,
+            @Value("${app.images.derivatives.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-derivative-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // File writes for multi-image uploads; a small fixed pool so one large upload cannot flood the disk
+    @Bean(name = "imageUploadExecutor")
+    public ThreadPoolTaskExecutor imageUploadExecutor(@Value("${app.images.upload.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("image-upload-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Orphan file collection pauses between delete batches, so it runs here rather than on the shared scheduler
+    // thread; a run that fires while the previous one is still going is dropped
+    @Bean(name = "orphanFileExecutor")
+    public ThreadPoolTaskExecutor orphanFileExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("orphan-gc-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Order archival drains its backlog chunk by chunk, which can take a while on the first run; like orphan
+    // collection it gets its own thread and an overlapping run is dropped
+    @Bean(name = "orderArchiveExecutor")
+    public ThreadPoolTaskExecutor orderArchiveExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("order-archive-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Queued file deletions wait on in-flight uploads and the storage backend; they run here so the shared
+    // scheduler thread never blocks on them, and a drain that fires while the previous one is still going is dropped
+    @Bean(name = "fileDeletionExecutor")
+    public ThreadPoolTaskExecutor fileDeletionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("file-deletion-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.ecomapi.controller;
+
+import com.ecommerce.ecomapi.dto.cart.CartExpiryStats;
+import com.ecommerce.ecomapi.response.ApiResponse;
+import com.ecommerce.ecomapi.service.cart.ICartExpiryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+
+@RestController
+@RequestMapping("/api/admin/carts")
+@RequiredArgsConstructor
+public class AdminCartController {
+
+    private final ICartExpiryService cartExpiryService;
+
+    @GetMapping("/expiry-stats")
+    public ResponseEntity<ApiResponse<CartExpiryStats>> getExpiryStats() {
+        return ResponseEntity.ok(new ApiResponse<>("Cart expiry stats", cartExpiryService.getStats()));
+    }
+
+    @PostMapping("/purge-expired")
+    public ResponseEntity<ApiResponse<Integer>> purgeExpiredCarts() {
+        try {
+            int purged = cartExpiryService.purgeExpiredCarts();
+            return ResponseEntity.ok(new ApiResponse<>("Expired carts purged", purged));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+}
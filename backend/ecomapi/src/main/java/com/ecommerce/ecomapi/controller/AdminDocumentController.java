@@ -0,0 +1,21 @@
+package com.ecommerce.ecomapi.controller;
+
+import com.ecommerce.ecomapi.dto.document.DocumentJobStats;
+import com.ecommerce.ecomapi.response.ApiResponse;
+import com.ecommerce.ecomapi.service.pdf.IDocumentJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/documents")
+@RequiredArgsConstructor
+public class AdminDocumentController {
+
+    private final IDocumentJobService documentJobService;
+
+    @GetMapping("/job-stats")
+    public ResponseEntity<ApiResponse<DocumentJobStats>> getJobStats() {
+        return ResponseEntity.ok(new ApiResponse<>("Document job stats", documentJobService.getStats()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.ecomapi.controller;
+
+import com.ecommerce.ecomapi.dto.image.HotImageCacheStats;
+import com.ecommerce.ecomapi.dto.image.OrphanFileReport;
+import com.ecommerce.ecomapi.response.ApiResponse;
+import com.ecommerce.ecomapi.service.file.IOrphanFileService;
+import com.ecommerce.ecomapi.service.image.HotImageCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+
+@RestController
+@RequestMapping("/api/admin/images")
+@RequiredArgsConstructor
+public class AdminImageController {
+
+    private final HotImageCache hotImageCache;
+    private final IOrphanFileService orphanFileService;
+
+    @GetMapping("/cache-stats")
+    public ResponseEntity<ApiResponse<HotImageCacheStats>> getCacheStats() {
+        return ResponseEntity.ok(new ApiResponse<>("Hot image cache stats", hotImageCache.getStats()));
+    }
+
+    // Dry run: lists what a collection would delete
+    @GetMapping("/orphans")
+    public ResponseEntity<ApiResponse<OrphanFileReport>> scanOrphanedFiles() {
+        try {
+            return ResponseEntity.ok(new ApiResponse<>("Orphaned files found", orphanFileService.scan()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+
+    @PostMapping("/orphans/collect")
+    public ResponseEntity<ApiResponse<OrphanFileReport>> collectOrphanedFiles() {
+        try {
+            return ResponseEntity.ok(new ApiResponse<>("Orphaned files deleted", orphanFileService.collect()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+}
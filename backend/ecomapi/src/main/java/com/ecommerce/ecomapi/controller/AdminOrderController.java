@@ -0,0 +1,62 @@
+package com.ecommerce.ecomapi.controller;
+
+import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.enums.OrderStatus;
+import com.ecommerce.ecomapi.response.ApiResponse;
+import com.ecommerce.ecomapi.service.order.IOrderService;
+import com.ecommerce.ecomapi.service.pdf.IInvoiceExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+@RestController
+@RequestMapping("/api/admin/orders")
+@RequiredArgsConstructor
+public class AdminOrderController {
+
+    private final IOrderService orderService;
+    private final IInvoiceExportService invoiceExportService;
+
+    @PutMapping("/{orderId}/status")
+    public ResponseEntity<ApiResponse<Order>> updateOrderStatus(@PathVariable Long orderId, @RequestParam OrderStatus status) {
+        try {
+            Order order = orderService.updateOrderStatus(orderId, status);
+            return ResponseEntity.ok(new ApiResponse<>("Order status updated", order));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+
+    // Invoices for a date range (inclusive) and/or explicit order ids, zipped as they finish rendering
+    @GetMapping("/invoices/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<Long> ids) {
+        try {
+            List<Long> orderIds = invoiceExportService.resolveOrderIds(from, to, ids);
+            if (orderIds.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            StreamingResponseBody body = out -> invoiceExportService.exportInvoices(orderIds, out);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"invoices.zip\"")
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.ecomapi.controller;
+
+import com.ecommerce.ecomapi.dto.product.ListingConsistencyReport;
+import com.ecommerce.ecomapi.response.ApiResponse;
+import com.ecommerce.ecomapi.service.product.IProductListingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+
+@RestController
+@RequestMapping("/api/admin/products")
+@RequiredArgsConstructor
+public class AdminProductController {
+
+    private final IProductListingService productListingService;
+
+    @PostMapping("/listing/rebuild")
+    public ResponseEntity<ApiResponse<Integer>> rebuildListing() {
+        try {
+            int written = productListingService.rebuild();
+            return ResponseEntity.ok(new ApiResponse<>("Product listing rebuilt", written));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/listing/check")
+    public ResponseEntity<ApiResponse<ListingConsistencyReport>> checkListing(
+            @RequestParam(defaultValue = "false") boolean repair) {
+        try {
+            ListingConsistencyReport report = productListingService.checkConsistency(repair);
+            return ResponseEntity.ok(new ApiResponse<>("Product listing checked", report));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.ecomapi.controller;
 
+import com.ecommerce.ecomapi.dto.cart.CartUpdateRequest;
 import com.ecommerce.ecomapi.entity.Cart;
 import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
 import com.ecommerce.ecomapi.response.ApiResponse;
@@ -8,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @RestController
@@ -36,6 +38,18 @@ public class CartController {
         }
     }
 
+    @PatchMapping("/{userId}")
+    public ResponseEntity<ApiResponse<Cart>> updateCart(@PathVariable Long userId, @RequestBody CartUpdateRequest request) {
+        try {
+            Cart cart = cartService.applyOperations(userId, request.getOperations());
+            return ResponseEntity.ok(new ApiResponse<>("Cart updated", cart));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+
     @DeleteMapping("/remove-item/{itemId}")
     public ResponseEntity<ApiResponse<Void>> removeItem(@PathVariable Long itemId) {
         try {
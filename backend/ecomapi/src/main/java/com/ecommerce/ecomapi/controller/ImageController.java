@@ -1,19 +1,38 @@
 package com.ecommerce.ecomapi.controller;
 
+import com.ecommerce.ecomapi.dto.image.ChunkedUploadRequest;
+import com.ecommerce.ecomapi.dto.image.ChunkedUploadStatus;
+import com.ecommerce.ecomapi.dto.image.ImageOrderRequest;
 import com.ecommerce.ecomapi.entity.ProductImage;
+import com.ecommerce.ecomapi.exceptions.CapacityExceededException;
+import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
 import com.ecommerce.ecomapi.response.ApiResponse;
+import com.ecommerce.ecomapi.enums.ImageSize;
+import com.ecommerce.ecomapi.service.file.FileMetadata;
 import com.ecommerce.ecomapi.service.file.IFileStorageService;
+import com.ecommerce.ecomapi.service.image.HotImageCache;
+import com.ecommerce.ecomapi.service.image.IChunkedUploadService;
+import com.ecommerce.ecomapi.service.image.IImageDerivativeService;
 import com.ecommerce.ecomapi.service.image.IProductImageService;
+import com.ecommerce.ecomapi.utils.SendfileSupport;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.http.HttpStatus.*;
 
@@ -22,8 +41,17 @@ import static org.springframework.http.HttpStatus.*;
 @RequiredArgsConstructor
 public class ImageController {
     
+    // Below this size a plain copy is cheaper than setting up sendfile (Tomcat's DefaultServlet uses the same cut-off)
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+    
     private final IProductImageService productImageService;
     private final IFileStorageService fileStorageService;
+    private final IImageDerivativeService imageDerivativeService;
+    private final HotImageCache hotImageCache;
+    private final IChunkedUploadService chunkedUploadService;
+    
+    @Value("${app.images.cache-max-age-days:365}")
+    private long cacheMaxAgeDays;
     
     @PostMapping("/products/{productId}/upload")
     public ResponseEntity<ApiResponse<ProductImage>> uploadProductImage(
@@ -54,6 +82,73 @@ public class ImageController {
         }
     }
     
+    // Resumable uploads: start, send chunks (any order, in parallel, retried individually), then complete
+    @PostMapping("/uploads")
+    public ResponseEntity<ApiResponse<ChunkedUploadStatus>> startChunkedUpload(@RequestBody ChunkedUploadRequest request) {
+        try {
+            return ResponseEntity.status(CREATED)
+                    .body(new ApiResponse<>("Upload started", chunkedUploadService.start(request)));
+        } catch (CapacityExceededException e) {
+            return ResponseEntity.status(TOO_MANY_REQUESTS).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<ApiResponse<ChunkedUploadStatus>> getChunkedUpload(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(new ApiResponse<>("Upload found", chunkedUploadService.getStatus(uploadId)));
+        } catch (Exception e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
+    // The raw request body is the chunk; X-Chunk-Checksum carries its hex SHA-256
+    @PutMapping("/uploads/{uploadId}/chunks/{index}")
+    public ResponseEntity<ApiResponse<ChunkedUploadStatus>> uploadChunk(
+            @PathVariable String uploadId,
+            @PathVariable int index,
+            @RequestHeader(value = "X-Chunk-Checksum", required = false) String checksum,
+            HttpServletRequest request) {
+        try {
+            ChunkedUploadStatus status = chunkedUploadService.writeChunk(uploadId, index, checksum, request.getInputStream());
+            return ResponseEntity.ok(new ApiResponse<>("Chunk " + index + " stored", status));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<ApiResponse<ProductImage>> completeChunkedUpload(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.status(CREATED)
+                    .body(new ApiResponse<>("Image uploaded successfully", chunkedUploadService.complete(uploadId)));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<ApiResponse<Void>> abortChunkedUpload(@PathVariable String uploadId) {
+        try {
+            chunkedUploadService.abort(uploadId);
+            return ResponseEntity.ok(new ApiResponse<>("Upload aborted", null));
+        } catch (Exception e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
     @GetMapping("/products/{productId}")
     public ResponseEntity<ApiResponse<List<ProductImage>>> getProductImages(@PathVariable Long productId) {
         try {
@@ -81,27 +176,115 @@ public class ImageController {
     }
     
     @GetMapping("/products/{productId}/{fileName}")
-    public ResponseEntity<ByteArrayResource> serveProductImage(
+    public ResponseEntity<Resource> serveProductImage(
             @PathVariable Long productId,
-            @PathVariable String fileName) {
+            @PathVariable String fileName,
+            @RequestParam(required = false) String size,
+            HttpServletRequest request) {
         try {
             String directory = "products/" + productId;
-            byte[] imageBytes = fileStorageService.loadFileAsBytes(fileName, directory);
+            String servedName = fileName;
+            if (size != null) {
+                ImageSize imageSize;
+                try {
+                    imageSize = ImageSize.valueOf(size.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.badRequest().build();
+                }
+                servedName = imageDerivativeService.resolveDerivative(productId, fileName, imageSize);
+            }
+            // The original standing in for a derivative that could not be generated yet must not be cached for good
+            boolean provisional = size != null && servedName.equals(fileName);
+            FileMetadata metadata = fileStorageService.getFileMetadata(servedName, directory);
+            Path image = metadata.path();
+            long length = metadata.size();
             
-            ByteArrayResource resource = new ByteArrayResource(imageBytes);
+            // Stored images are never rewritten (new content gets a new UUID name), so caches may keep them indefinitely
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(metadata.etag());
+            headers.setLastModified(metadata.lastModified());
+            headers.setCacheControl(provisional
+                    ? CacheControl.noCache()
+                    : CacheControl.maxAge(cacheMaxAgeDays, TimeUnit.DAYS).cachePublic().immutable());
+            if (isNotModified(request, metadata)) {
+                return ResponseEntity.status(NOT_MODIFIED).headers(headers).build();
+            }
             
-            // Determine content type based on file extension
-            String contentType = getContentType(fileName);
+            headers.setContentType(MediaType.parseMediaType(getContentType(servedName)));
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + servedName + "\"");
             
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"")
-                    .body(resource);
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+            } catch (IllegalArgumentException e) {
+                return rangeNotSatisfiable(length);
+            }
+            
+            // Whole files and single ranges go out via sendfile, so the image never passes through the heap;
+            // small files, HEAD and multi-range requests stream from the file and Spring cuts out the ranges
+            if (ranges.size() <= 1 && length >= SENDFILE_MIN_BYTES
+                    && HttpMethod.GET.matches(request.getMethod()) && SendfileSupport.isSupported(request)) {
+                long start = 0;
+                long count = length;
+                if (!ranges.isEmpty()) {
+                    start = ranges.get(0).getRangeStart(length);
+                    if (start >= length) {
+                        return rangeNotSatisfiable(length);
+                    }
+                    count = ranges.get(0).getRangeEnd(length) - start + 1;
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + count - 1) + "/" + length);
+                }
+                headers.setContentLength(count);
+                SendfileSupport.sendfile(request, image, start, start + count);
+                return ResponseEntity.status(ranges.isEmpty() ? OK : PARTIAL_CONTENT).headers(headers).build();
+            }
+            
+            // Hot images that would otherwise be read from disk come from the off-heap cache instead
+            Resource cached = hotImageCache.lookup(metadata);
+            if (cached != null) {
+                return ResponseEntity.ok().headers(headers).body(cached);
+            }
+            return ResponseEntity.ok().headers(headers).body(new FileSystemResource(image));
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
     
+    // Answered from cached metadata alone; If-None-Match takes precedence over If-Modified-Since
+    private boolean isNotModified(HttpServletRequest request, FileMetadata metadata) {
+        Enumeration<String> ifNoneMatch = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch.hasMoreElements()) {
+            while (ifNoneMatch.hasMoreElements()) {
+                for (String tag : ifNoneMatch.nextElement().split(",")) {
+                    tag = tag.trim();
+                    if (tag.startsWith("W/")) {
+                        tag = tag.substring(2);
+                    }
+                    if (tag.equals("*") || tag.equals(metadata.etag())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // HTTP dates have one-second resolution
+        return ifModifiedSince != -1 && metadata.lastModified() / 1000 * 1000 <= ifModifiedSince;
+    }
+    
+    private ResponseEntity<Resource> rangeNotSatisfiable(long length) {
+        return ResponseEntity.status(REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                .build();
+    }
+    
     @DeleteMapping("/{imageId}")
     public ResponseEntity<ApiResponse<Void>> deleteProductImage(@PathVariable Long imageId) {
         try {
@@ -139,6 +322,23 @@ public class ImageController {
         }
     }
     
+    // Drag-and-drop reordering: the full ordered id list in one request, optionally with the new primary image
+    @PutMapping("/products/{productId}/order")
+    public ResponseEntity<ApiResponse<List<ProductImage>>> reorderImages(
+            @PathVariable Long productId,
+            @RequestBody ImageOrderRequest request) {
+        try {
+            List<ProductImage> images = productImageService.reorderImages(productId, request.getImageIds(), request.getPrimaryImageId());
+            return ResponseEntity.ok(new ApiResponse<>("Image order updated successfully", images));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
     private String getContentType(String fileName) {
         String extension = fileName.toLowerCase();
         if (extension.endsWith(".jpg") || extension.endsWith(".jpeg")) {
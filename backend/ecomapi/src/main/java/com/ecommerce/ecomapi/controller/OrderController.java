@@ -1,28 +1,47 @@
 package com.ecommerce.ecomapi.controller;
 
+import com.ecommerce.ecomapi.dto.document.DocumentJob;
+import com.ecommerce.ecomapi.dto.document.DocumentJobRequest;
 import com.ecommerce.ecomapi.dto.order.OrderRequest;
 import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.enums.DocumentType;
+import com.ecommerce.ecomapi.exceptions.CapacityExceededException;
 import com.ecommerce.ecomapi.response.ApiResponse;
 import com.ecommerce.ecomapi.service.order.IOrderService;
-import com.ecommerce.ecomapi.service.pdf.IPdfService;
+import com.ecommerce.ecomapi.service.pdf.IDocumentCacheService;
+import com.ecommerce.ecomapi.service.pdf.IDocumentJobService;
+import com.ecommerce.ecomapi.service.pdf.IStatementService;
+import com.ecommerce.ecomapi.utils.SendfileSupport;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.List;
 
+import static org.springframework.http.HttpStatus.ACCEPTED;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/orders")
 public class OrderController {
     private final IOrderService orderService;
-    private final IPdfService pdfService;
+    private final IDocumentCacheService documentCacheService;
+    private final IDocumentJobService documentJobService;
+    private final IStatementService statementService;
 
     @PostMapping("/place-order")
     public ResponseEntity<ApiResponse<Order>> placeOrder(@RequestBody OrderRequest orderRequest){
@@ -35,6 +54,18 @@ public class OrderController {
         }
     }
 
+    @PostMapping("/checkout/{userId}")
+    public ResponseEntity<ApiResponse<Order>> checkout(@PathVariable Long userId) {
+        try {
+            Order order = orderService.checkout(userId);
+            return ResponseEntity.ok(new ApiResponse<>("Order placed successfully", order));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+
     @GetMapping("/order/{orderId}")
     public ResponseEntity<ApiResponse<Order>> getOrderById(@PathVariable Long orderId){
         try {
@@ -56,55 +87,126 @@ public class OrderController {
     }
     
     @GetMapping("/{orderId}/download-pdf")
-    public ResponseEntity<ByteArrayResource> downloadOrderPdf(@PathVariable Long orderId) {
+    public ResponseEntity<StreamingResponseBody> downloadOrderPdf(@PathVariable Long orderId, HttpServletRequest request) {
         try {
-            Order order = orderService.getOrderById(orderId);
-            ByteArrayOutputStream pdfStream = pdfService.generateOrderPdf(order);
-            
-            ByteArrayResource resource = new ByteArrayResource(pdfStream.toByteArray());
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                            "attachment; filename=\"order-" + orderId + ".pdf\"")
-                    .body(resource);
+            return documentResponse(request, orderId, DocumentType.ORDER, "order-" + orderId + ".pdf");
+        } catch (CapacityExceededException e) {
+            return ResponseEntity.status(SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
     
     @GetMapping("/{orderId}/download-invoice")
-    public ResponseEntity<ByteArrayResource> downloadOrderInvoice(@PathVariable Long orderId) {
+    public ResponseEntity<StreamingResponseBody> downloadOrderInvoice(@PathVariable Long orderId, HttpServletRequest request) {
         try {
-            Order order = orderService.getOrderById(orderId);
-            ByteArrayOutputStream pdfStream = pdfService.generateOrderInvoice(order);
-            
-            ByteArrayResource resource = new ByteArrayResource(pdfStream.toByteArray());
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                            "attachment; filename=\"invoice-" + orderId + ".pdf\"")
-                    .body(resource);
+            return documentResponse(request, orderId, DocumentType.INVOICE, "invoice-" + orderId + ".pdf");
+        } catch (CapacityExceededException e) {
+            return ResponseEntity.status(SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
     
     @GetMapping("/{orderId}/receipt")
-    public ResponseEntity<ByteArrayResource> downloadOrderReceipt(@PathVariable Long orderId) {
+    public ResponseEntity<StreamingResponseBody> downloadOrderReceipt(@PathVariable Long orderId, HttpServletRequest request) {
         try {
-            byte[] receiptBytes = pdfService.generateOrderReceipt(orderId);
-            ByteArrayResource resource = new ByteArrayResource(receiptBytes);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                            "attachment; filename=\"receipt-" + orderId + ".pdf\"")
-                    .body(resource);
+            return documentResponse(request, orderId, DocumentType.ORDER, "receipt-" + orderId + ".pdf");
+        } catch (CapacityExceededException e) {
+            return ResponseEntity.status(SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    // Statement of every order in the period (dates inclusive), rendered while it streams
+    @GetMapping("/user/{userId}/statement")
+    public ResponseEntity<StreamingResponseBody> downloadStatement(
+            @PathVariable Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            statementService.validateStatement(userId, from, to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> statementService.writeStatement(userId, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"statement-" + userId + "-" + from + "-" + to + ".pdf\"")
+                .body(body);
+    }
+
+    // Heavy documents: submit, poll, then download once the job has completed
+    @PostMapping("/documents/jobs")
+    public ResponseEntity<ApiResponse<DocumentJob>> submitDocumentJob(@RequestBody DocumentJobRequest request) {
+        try {
+            DocumentJob job = documentJobService.submit(request.getOrderId(), request.getType());
+            return ResponseEntity.status(ACCEPTED).body(new ApiResponse<>("Document job queued", job));
+        } catch (CapacityExceededException e) {
+            return ResponseEntity.status(TOO_MANY_REQUESTS).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/documents/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<DocumentJob>> getDocumentJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(new ApiResponse<>("Document job found", documentJobService.getJob(jobId)));
+        } catch (Exception e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/documents/jobs/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> downloadDocumentJob(@PathVariable String jobId, HttpServletRequest request) {
+        try {
+            DocumentJob job = documentJobService.getJob(jobId);
+            Path pdf = documentJobService.getJobDocument(jobId);
+            String fileName = job.getType().name().toLowerCase() + "-" + job.getOrderId() + ".pdf";
+            return pdfResponse(request, pdf, fileName);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> documentResponse(HttpServletRequest request, Long orderId, DocumentType type,
+                                                                   String fileName) throws IOException {
+        if (documentCacheService.isCacheEnabled()) {
+            return pdfResponse(request, documentJobService.renderDocument(orderId, type), fileName);
+        }
+
+        // Without the cache the PDF is rendered page by page into the response, never buffered whole;
+        // look the order up first so a missing one is still a 404 rather than a broken stream
+        orderService.getOrderById(orderId);
+        StreamingResponseBody body = out -> documentCacheService.writeOrderDocument(orderId, type, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    // Cached documents go out via sendfile when the connector supports it, otherwise streamed from the file
+    private ResponseEntity<StreamingResponseBody> pdfResponse(HttpServletRequest request, Path pdf, String fileName) throws IOException {
+        long size = Files.size(pdf);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        if (SendfileSupport.isSupported(request)) {
+            SendfileSupport.sendfile(request, pdf, 0, size);
+            return response.build();
+        }
+        return response.body(out -> Files.copy(pdf, out));
+    }
+
 }
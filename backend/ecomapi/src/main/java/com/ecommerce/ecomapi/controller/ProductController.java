@@ -1,9 +1,11 @@
 package com.ecommerce.ecomapi.controller;
 
 import com.ecommerce.ecomapi.entity.Product;
+import com.ecommerce.ecomapi.entity.ProductListing;
 import com.ecommerce.ecomapi.exceptions.AlreadyExistsException;
 import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
 import com.ecommerce.ecomapi.response.ApiResponse;
+import com.ecommerce.ecomapi.service.product.IProductListingService;
 import com.ecommerce.ecomapi.service.product.IProductService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -21,10 +23,12 @@ import static org.springframework.http.HttpStatus.*;
 public class ProductController {
 
     private final IProductService productService;
+    // Listings are served from the flattened product_listing read model; single products from the entities
+    private final IProductListingService productListingService;
 
     @GetMapping("/all")
-    public ResponseEntity<ApiResponse<List<Product>>> getAllProducts(){
-        List<Product> products =productService.getAllProducts();
+    public ResponseEntity<ApiResponse<List<ProductListing>>> getAllProducts(){
+        List<ProductListing> products =productListingService.getAllListings();
         return ResponseEntity.ok(new ApiResponse<>("All products Fetched Successfully",products));
     }
 
@@ -69,26 +73,26 @@ public class ProductController {
     }
 
     @GetMapping("/page")
-    public ResponseEntity<ApiResponse<Page<Product>>> getAllProductsPage(
+    public ResponseEntity<ApiResponse<Page<ProductListing>>> getAllProductsPage(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size
     ) {
-        Page<Product> products = productService.getAllProductsPage(page, size);
+        Page<ProductListing> products = productListingService.getListingsPage(page, size);
         return ResponseEntity.ok(new ApiResponse<>("Products fetched", products));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<Product>>> searchProducts(
+    public ResponseEntity<ApiResponse<List<ProductListing>>> searchProducts(
             @RequestParam String name
     ) {
-        List<Product> result = productService.searchProductsByName(name);
+        List<ProductListing> result = productListingService.searchListingsByName(name);
         return ResponseEntity.ok(new ApiResponse<>("Search result", result));
     }
     
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<ApiResponse<List<Product>>> getProductsByCategory(@PathVariable Long categoryId) {
+    public ResponseEntity<ApiResponse<List<ProductListing>>> getProductsByCategory(@PathVariable Long categoryId) {
         try {
-            List<Product> products = productService.getProductsByCategory(categoryId);
+            List<ProductListing> products = productListingService.getListingsByCategory(categoryId);
             return ResponseEntity.ok(new ApiResponse<>("Products found", products));
         } catch (Exception e) {
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse<>(e.getMessage(), null));
@@ -96,22 +100,22 @@ public class ProductController {
     }
     
     @GetMapping("/brand/{brand}")
-    public ResponseEntity<ApiResponse<List<Product>>> getProductsByBrand(@PathVariable String brand) {
-        List<Product> products = productService.getProductsByBrand(brand);
+    public ResponseEntity<ApiResponse<List<ProductListing>>> getProductsByBrand(@PathVariable String brand) {
+        List<ProductListing> products = productListingService.getListingsByBrand(brand);
         return ResponseEntity.ok(new ApiResponse<>("Products found", products));
     }
     
     @GetMapping("/price-range")
-    public ResponseEntity<ApiResponse<List<Product>>> getProductsByPriceRange(
+    public ResponseEntity<ApiResponse<List<ProductListing>>> getProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
             @RequestParam BigDecimal maxPrice) {
-        List<Product> products = productService.getProductsByPriceRange(minPrice, maxPrice);
+        List<ProductListing> products = productListingService.getListingsByPriceRange(minPrice, maxPrice);
         return ResponseEntity.ok(new ApiResponse<>("Products found", products));
     }
     
     @GetMapping("/active")
-    public ResponseEntity<ApiResponse<List<Product>>> getActiveProducts() {
-        List<Product> products = productService.getActiveProducts();
+    public ResponseEntity<ApiResponse<List<ProductListing>>> getActiveProducts() {
+        List<ProductListing> products = productListingService.getActiveListings();
         return ResponseEntity.ok(new ApiResponse<>("Active products found", products));
     }
     
@@ -126,7 +130,7 @@ public class ProductController {
     }
     
     @GetMapping("/filter")
-    public ResponseEntity<ApiResponse<List<Product>>> filterProducts(
+    public ResponseEntity<ApiResponse<List<ProductListing>>> filterProducts(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String brand,
             @RequestParam(required = false) Long categoryId,
@@ -134,7 +138,7 @@ public class ProductController {
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) Boolean isActive) {
         
-        List<Product> products = productService.filterProducts(name, brand, categoryId, minPrice, maxPrice, isActive);
+        List<ProductListing> products = productListingService.filterListings(name, brand, categoryId, minPrice, maxPrice, isActive);
         return ResponseEntity.ok(new ApiResponse<>("Filtered products", products));
     }
 
@@ -0,0 +1,16 @@
+package com.ecommerce.ecomapi.dto.cart;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartExpiryStats {
+    private int liveCarts;
+    private long totalPurged;
+    private int lastRunPurged;
+    private LocalDateTime lastRunAt;
+    private double purgedPerHour;
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.ecomapi.dto.cart;
+
+import com.ecommerce.ecomapi.enums.CartOperationType;
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartOperationRequest {
+    private CartOperationType type;
+    private Long productId;
+    private int quantity;
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.ecomapi.dto.cart;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartUpdateRequest {
+    private List<CartOperationRequest> operations;
+}
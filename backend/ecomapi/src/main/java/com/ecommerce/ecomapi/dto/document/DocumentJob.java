@@ -0,0 +1,21 @@
+package com.ecommerce.ecomapi.dto.document;
+
+import com.ecommerce.ecomapi.enums.DocumentJobStatus;
+import com.ecommerce.ecomapi.enums.DocumentType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DocumentJob {
+    private String jobId;
+    private Long userId;
+    private Long orderId;
+    private DocumentType type;
+    private DocumentJobStatus status;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    private String error;
+}
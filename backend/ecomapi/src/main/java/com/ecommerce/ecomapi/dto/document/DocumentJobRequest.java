@@ -0,0 +1,12 @@
+package com.ecommerce.ecomapi.dto.document;
+
+import com.ecommerce.ecomapi.enums.DocumentType;
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DocumentJobRequest {
+    private Long orderId;
+    private DocumentType type;
+}
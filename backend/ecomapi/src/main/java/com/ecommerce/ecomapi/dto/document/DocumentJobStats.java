@@ -0,0 +1,20 @@
+package com.ecommerce.ecomapi.dto.document;
+
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DocumentJobStats {
+    private int queueDepth;
+    private int queueCapacity;
+    private int activeRenders;
+    private int maxRenders;
+    private int trackedJobs;
+    private long submitted;
+    private long completed;
+    private long failed;
+    private long rejected;
+    private double averageRenderMs;
+    private long maxRenderMs;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.ecomapi.dto.image;
+
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChunkedUploadRequest {
+    private Long productId;
+    private String fileName;
+    private String contentType;
+    private Long totalSize;
+    // Optional; the server default is used when absent
+    private Integer chunkSize;
+    // Optional hex SHA-256 of the whole file, checked on completion
+    private String checksum;
+    private boolean primary;
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.ecomapi.dto.image;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChunkedUploadStatus {
+    private String uploadId;
+    private Long productId;
+    private String fileName;
+    private long totalSize;
+    private int chunkSize;
+    private int chunkCount;
+    private int receivedChunks;
+    // What a resuming client still has to send
+    private List<Integer> missingChunks;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.ecomapi.dto.image;
+
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HotImageCacheStats {
+    private boolean enabled;
+    private int entries;
+    private long bytesResident;
+    private long maxBytes;
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long admissions;
+    private long evictions;
+    private long rejections;
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.ecomapi.dto.image;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageOrderRequest {
+    // Every image of the product, in the new display order
+    private List<Long> imageIds;
+    // Optional; the current primary image is kept when absent
+    private Long primaryImageId;
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.ecomapi.dto.image;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrphanFileReport {
+    private boolean dryRun;
+    private long scannedFiles;
+    private int orphanFiles;
+    private long orphanBytes;
+    // Unreferenced but younger than the grace period, e.g. uploads whose transaction is still open
+    private int recentUnreferencedFiles;
+    private int deletedFiles;
+    private long durationMs;
+    private LocalDateTime finishedAt;
+    private List<String> sample;
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.ecomapi.dto.product;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ListingConsistencyReport {
+    private long checkedProducts;
+    // Products without a listing row
+    private int missingRows;
+    // Rows that differ from what the product, its category and images give
+    private int staleRows;
+    // Rows whose product no longer exists
+    private int orphanedRows;
+    private boolean repaired;
+    private long durationMs;
+    private LocalDateTime finishedAt;
+    private List<Long> sampleProductIds;
+}
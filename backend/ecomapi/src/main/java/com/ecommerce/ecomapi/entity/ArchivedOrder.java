@@ -0,0 +1,39 @@
+package com.ecommerce.ecomapi.entity;
+
+import com.ecommerce.ecomapi.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Cold copy of an Order; ids are carried over from the hot table so lookups by order id keep working
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "orders_archive")
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    private BigDecimal totalAmount;
+
+    private LocalDateTime orderedAt;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus orderStatus;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @OneToMany(mappedBy = "order")
+    private List<ArchivedOrderItem> items;
+
+    private LocalDateTime archivedAt;
+}
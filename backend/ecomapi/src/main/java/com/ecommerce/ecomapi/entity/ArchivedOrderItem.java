@@ -0,0 +1,30 @@
+package com.ecommerce.ecomapi.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "order_item_archive")
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    private int quantity;
+    private BigDecimal price;
+
+    @ManyToOne
+    @JoinColumn(name = "order_id")
+    private ArchivedOrder order;
+
+    @ManyToOne
+    @JoinColumn(name = "product_id")
+    private Product product;
+}
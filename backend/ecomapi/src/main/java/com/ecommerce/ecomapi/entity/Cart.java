@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,4 +26,7 @@ public class Cart {
     private List<CartItem> items;
 
     private BigDecimal totalAmount;
+
+    // Last time the cart was changed; carts idle for longer than app.cart.expiry.ttl-days are purged
+    private LocalDateTime lastActivityAt;
 }
\ No newline at end of file
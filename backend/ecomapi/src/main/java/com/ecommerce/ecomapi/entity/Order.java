@@ -12,7 +12,7 @@ import java.util.List;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_ordered_at", columnList = "orderedAt"))
 public class Order {
 
     @Id
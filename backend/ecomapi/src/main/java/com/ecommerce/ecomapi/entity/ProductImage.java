@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "product_images")
+@Table(name = "product_images", indexes = @Index(name = "idx_product_images_file_name", columnList = "fileName"))
 public class ProductImage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,6 +27,11 @@ public class ProductImage {
     private Integer displayOrder = 0;
     private LocalDateTime uploadedAt;
     
+    // Scaled copies stored next to the original; null until generated
+    private String thumbnailFileName;
+    private String mediumFileName;
+    private String largeFileName;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     @JsonIgnore
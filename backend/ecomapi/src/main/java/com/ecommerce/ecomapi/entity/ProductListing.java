@@ -0,0 +1,45 @@
+package com.ecommerce.ecomapi.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Read model behind the product listing endpoints: one flat row per product with its category name and primary
+// image, so a product grid is a single-table query. Written only by ProductListingService
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "product_listing", indexes = {
+        @Index(name = "idx_product_listing_category", columnList = "categoryId"),
+        @Index(name = "idx_product_listing_brand", columnList = "brand"),
+        @Index(name = "idx_product_listing_price", columnList = "price"),
+        @Index(name = "idx_product_listing_active", columnList = "isActive"),
+        @Index(name = "idx_product_listing_name", columnList = "name")
+})
+public class ProductListing {
+    // The product's id
+    @Id
+    private Long id;
+
+    private String name;
+    private String brand;
+    private String model;
+    private String sku;
+    private BigDecimal price;
+    private Integer stockQuantity;
+    private Boolean isActive;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    private Long categoryId;
+    private String categoryName;
+
+    // The image flagged primary, or else the first by display order
+    private Long primaryImageId;
+    private String primaryImageUrl;
+}
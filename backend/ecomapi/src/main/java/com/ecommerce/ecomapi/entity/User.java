@@ -1,17 +1,20 @@
 package com.ecommerce.ecomapi.entity;
 
 import com.ecommerce.ecomapi.enums.Role;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 
 @Entity
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_tokens_revoked_at", columnList = "tokensRevokedAt"))
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,4 +29,11 @@ public class User {
     private String email;
 
     private String password;
+
+    // Access tokens carry the version they were issued with; bumping it revokes all of them
+    @JsonIgnore
+    private Integer tokenVersion = 0;
+
+    @JsonIgnore
+    private LocalDateTime tokensRevokedAt;
 }
\ No newline at end of file
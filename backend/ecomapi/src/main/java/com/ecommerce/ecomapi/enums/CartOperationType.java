@@ -0,0 +1,7 @@
+package com.ecommerce.ecomapi.enums;
+
+public enum CartOperationType {
+    ADD,
+    REMOVE,
+    SET_QUANTITY
+}
@@ -0,0 +1,8 @@
+package com.ecommerce.ecomapi.enums;
+
+public enum DocumentJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.ecommerce.ecomapi.enums;
+
+public enum DocumentType {
+    ORDER,
+    INVOICE
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.ecomapi.enums;
+
+// Derivative sizes generated for every product image; the longest side is scaled down to maxDimension
+public enum ImageSize {
+    THUMBNAIL(200),
+    MEDIUM(600),
+    LARGE(1200);
+
+    private final int maxDimension;
+
+    ImageSize(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+}
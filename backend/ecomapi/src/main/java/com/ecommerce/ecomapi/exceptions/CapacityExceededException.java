@@ -0,0 +1,8 @@
+package com.ecommerce.ecomapi.exceptions;
+
+// A bounded resource (queue, per-user quota) is full; the caller should retry later
+public class CapacityExceededException extends RuntimeException {
+    public CapacityExceededException(String message) {
+        super(message);
+    }
+}
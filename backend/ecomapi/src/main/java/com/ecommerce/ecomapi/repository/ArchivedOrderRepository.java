@@ -0,0 +1,45 @@
+package com.ecommerce.ecomapi.repository;
+
+import com.ecommerce.ecomapi.entity.ArchivedOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    @Query("SELECT DISTINCT o FROM ArchivedOrder o LEFT JOIN FETCH o.items WHERE o.id = :id")
+    Optional<ArchivedOrder> findWithItemsById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT o FROM ArchivedOrder o LEFT JOIN FETCH o.items WHERE o.user.id = :userId")
+    List<ArchivedOrder> findWithItemsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT o.id FROM ArchivedOrder o WHERE o.orderedAt >= :from AND o.orderedAt < :to ORDER BY o.id")
+    List<Long> findIdsOrderedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT o.id AS id, o.orderedAt AS orderedAt, o.orderStatus AS orderStatus, o.totalAmount AS totalAmount, " +
+            "(SELECT COALESCE(SUM(i.quantity), 0) FROM ArchivedOrderItem i WHERE i.order = o) AS itemCount " +
+            "FROM ArchivedOrder o WHERE o.user.id = :userId AND o.orderedAt >= :from AND o.orderedAt < :to AND o.id > :afterId " +
+            "ORDER BY o.id")
+    List<OrderRepository.StatementOrder> findStatementOrders(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+                                                             @Param("to") LocalDateTime to, @Param("afterId") Long afterId,
+                                                             Pageable pageable);
+
+    // Copies are done with INSERT ... SELECT so rows never round-trip through the JVM
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (id, total_amount, ordered_at, order_status, user_id, archived_at) " +
+            "SELECT id, total_amount, ordered_at, order_status, user_id, CURRENT_TIMESTAMP FROM orders WHERE id IN (:ids)",
+            nativeQuery = true)
+    int copyOrders(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_item_archive (id, quantity, price, order_id, product_id) " +
+            "SELECT id, quantity, price, order_id, product_id FROM order_item WHERE order_id IN (:ids)",
+            nativeQuery = true)
+    int copyOrderItems(@Param("ids") List<Long> ids);
+}
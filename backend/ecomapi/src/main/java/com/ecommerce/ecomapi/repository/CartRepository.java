@@ -2,12 +2,50 @@ package com.ecommerce.ecomapi.repository;
 
 import com.ecommerce.ecomapi.entity.Cart;
 import com.ecommerce.ecomapi.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUser(User user);
-}
\ No newline at end of file
+
+    @Query("SELECT c.id AS id, c.user.id AS userId, c.lastActivityAt AS lastActivityAt FROM Cart c WHERE c.id > :afterId ORDER BY c.id")
+    List<CartActivity> findActivityAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT c.id AS id, c.user.id AS userId, c.lastActivityAt AS lastActivityAt FROM Cart c WHERE c.id IN :ids")
+    List<CartActivity> findActivityByIds(@Param("ids") List<Long> ids);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM cart_item WHERE cart_id IN (:ids)", nativeQuery = true)
+    int deleteItemsByCartIds(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM cart WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Cart c SET c.totalAmount = 0, c.lastActivityAt = :now WHERE c.id = :id")
+    int resetCart(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.lastActivityAt = :now WHERE c.id = :id")
+    int markActivity(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.lastActivityAt = :now WHERE c.lastActivityAt IS NULL")
+    int backfillLastActivity(@Param("now") LocalDateTime now);
+
+    interface CartActivity {
+        Long getId();
+        Long getUserId();
+        LocalDateTime getLastActivityAt();
+    }
+}
@@ -1,10 +1,48 @@
 package com.ecommerce.ecomapi.repository;
 
 import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.enums.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserId(Long userId);
+
+    @Query("SELECT o.id FROM Order o WHERE o.orderedAt < :cutoff ORDER BY o.id")
+    List<Long> findIdsOrderedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Query("SELECT o.id FROM Order o WHERE o.orderedAt >= :from AND o.orderedAt < :to ORDER BY o.id")
+    List<Long> findIdsOrderedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Keyset-paged statement rows; projections keep the persistence context empty however long the statement is
+    @Query("SELECT o.id AS id, o.orderedAt AS orderedAt, o.orderStatus AS orderStatus, o.totalAmount AS totalAmount, " +
+            "(SELECT COALESCE(SUM(i.quantity), 0) FROM OrderItem i WHERE i.order = o) AS itemCount " +
+            "FROM Order o WHERE o.user.id = :userId AND o.orderedAt >= :from AND o.orderedAt < :to AND o.id > :afterId " +
+            "ORDER BY o.id")
+    List<StatementOrder> findStatementOrders(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to, @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_item WHERE order_id IN (:ids)", nativeQuery = true)
+    int deleteItemsByOrderIds(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    interface StatementOrder {
+        Long getId();
+        LocalDateTime getOrderedAt();
+        OrderStatus getOrderStatus();
+        BigDecimal getTotalAmount();
+        Long getItemCount();
+    }
 }
@@ -2,15 +2,20 @@ package com.ecommerce.ecomapi.repository;
 
 import com.ecommerce.ecomapi.entity.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
+public interface ProductImageRepository extends JpaRepository<ProductImage, Long>, ProductImageRepositoryCustom {
     
     List<ProductImage> findByProductIdOrderByDisplayOrderAsc(Long productId);
     
@@ -21,5 +26,29 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
     
     void deleteByProductId(Long productId);
     
+    // [productId, imageId, imageUrl] for several products, each product's listing image (primary, else lowest display order) first
+    @Query("SELECT pi.product.id, pi.id, pi.imageUrl FROM ProductImage pi WHERE pi.product.id IN :productIds " +
+            "ORDER BY pi.isPrimary DESC, pi.displayOrder, pi.id")
+    List<Object[]> findListingImages(@Param("productIds") Collection<Long> productIds);
+    
     long countByProductId(Long productId);
+    
+    // Content-addressed blobs are shared; each image row naming one is a reference to it
+    boolean existsByFileName(String fileName);
+    
+    // Originals and their derivatives share a name prefix (uuid or content hash)
+    boolean existsByFileNameStartingWith(String prefix);
+    
+    boolean existsByProductIdAndFileNameStartingWith(Long productId, String prefix);
+    
+    // [productId, fileName] for every image, streamed so the orphan file scan never loads the table as entities
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT pi.product.id, pi.fileName FROM ProductImage pi")
+    Stream<Object[]> streamFileNames();
+    
+    @Modifying
+    @Query("UPDATE ProductImage pi SET pi.thumbnailFileName = :thumbnail, pi.mediumFileName = :medium, pi.largeFileName = :large " +
+            "WHERE pi.product.id = :productId AND pi.fileName = :fileName")
+    int updateDerivatives(@Param("productId") Long productId, @Param("fileName") String fileName,
+                          @Param("thumbnail") String thumbnail, @Param("medium") String medium, @Param("large") String large);
 }
\ No newline at end of file
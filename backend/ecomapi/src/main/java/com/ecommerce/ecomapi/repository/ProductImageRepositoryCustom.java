@@ -0,0 +1,12 @@
+package com.ecommerce.ecomapi.repository;
+
+import java.util.List;
+
+// Updates whose shape depends on their arguments, which a @Query cannot express
+public interface ProductImageRepositoryCustom {
+
+    // One UPDATE over the product's images: display order follows orderedIds (rows not listed keep theirs) and only
+    // primaryImageId is flagged primary (flags left alone when null). Like @Modifying(flushAutomatically = true,
+    // clearAutomatically = true), pending changes are flushed first and the persistence context is cleared after
+    int reorder(Long productId, List<Long> orderedIds, Long primaryImageId);
+}
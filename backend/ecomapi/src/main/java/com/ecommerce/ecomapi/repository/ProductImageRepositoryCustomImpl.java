@@ -0,0 +1,48 @@
+package com.ecommerce.ecomapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductImageRepositoryCustomImpl implements ProductImageRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // UPDATE ProductImage pi SET pi.displayOrder = CASE pi.id WHEN :id0 THEN 0 WHEN :id1 THEN 1 ... END,
+    //     pi.isPrimary = CASE WHEN pi.id = :primaryImageId THEN true ELSE false END WHERE pi.product.id = :productId
+    @Override
+    public int reorder(Long productId, List<Long> orderedIds, Long primaryImageId) {
+        List<String> assignments = new ArrayList<>(2);
+        if (!orderedIds.isEmpty()) {
+            StringBuilder order = new StringBuilder("pi.displayOrder = CASE pi.id");
+            for (int i = 0; i < orderedIds.size(); i++) {
+                order.append(" WHEN :id").append(i).append(" THEN ").append(i);
+            }
+            assignments.add(order.append(" ELSE pi.displayOrder END").toString());
+        }
+        if (primaryImageId != null) {
+            assignments.add("pi.isPrimary = CASE WHEN pi.id = :primaryImageId THEN true ELSE false END");
+        }
+        if (assignments.isEmpty()) {
+            return 0;
+        }
+
+        entityManager.flush();
+        Query update = entityManager.createQuery("UPDATE ProductImage pi SET " + String.join(", ", assignments)
+                + " WHERE pi.product.id = :productId");
+        update.setParameter("productId", productId);
+        for (int i = 0; i < orderedIds.size(); i++) {
+            update.setParameter("id" + i, orderedIds.get(i));
+        }
+        if (primaryImageId != null) {
+            update.setParameter("primaryImageId", primaryImageId);
+        }
+        int updated = update.executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ecommerce.ecomapi.repository;
+
+import com.ecommerce.ecomapi.entity.ProductListing;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface ProductListingRepository extends JpaRepository<ProductListing, Long> {
+
+    List<ProductListing> findByNameContainingIgnoreCase(String name);
+
+    List<ProductListing> findByCategoryId(Long categoryId);
+
+    List<ProductListing> findByBrandContainingIgnoreCase(String brand);
+
+    List<ProductListing> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
+
+    List<ProductListing> findByIsActiveTrue();
+
+    @Query("SELECT l FROM ProductListing l WHERE " +
+           "(:name IS NULL OR LOWER(l.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
+           "(:brand IS NULL OR LOWER(l.brand) LIKE LOWER(CONCAT('%', :brand, '%'))) AND " +
+           "(:categoryId IS NULL OR l.categoryId = :categoryId) AND " +
+           "(:minPrice IS NULL OR l.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR l.price <= :maxPrice) AND " +
+           "(:isActive IS NULL OR l.isActive = :isActive)")
+    List<ProductListing> findWithFilters(
+            @Param("name") String name,
+            @Param("brand") String brand,
+            @Param("categoryId") Long categoryId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("isActive") Boolean isActive
+    );
+
+    // Rows left behind by products that no longer exist
+    @Query("SELECT l.id FROM ProductListing l WHERE NOT EXISTS (SELECT p.id FROM Product p WHERE p.id = l.id)")
+    List<Long> findOrphanedIds();
+}
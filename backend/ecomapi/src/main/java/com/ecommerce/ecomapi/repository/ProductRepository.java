@@ -1,12 +1,16 @@
 package com.ecommerce.ecomapi.repository;
 
 import com.ecommerce.ecomapi.entity.Product;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +21,9 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByNameContainingIgnoreCase(String name);
     
     List<Product> findByCategoryId(Long categoryId);
+
+    @Query("SELECT p.id FROM Product p WHERE p.category.id = :categoryId")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
     
     List<Product> findByBrandContainingIgnoreCase(String brand);
     
@@ -25,6 +32,15 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByIsActiveTrue();
     
     Optional<Product> findBySku(String sku);
+
+    // Locks the rows so concurrent checkouts can't both pass the stock check
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Keyset paging over product ids for batch jobs
+    @Query("SELECT p.id FROM Product p WHERE p.id > :after ORDER BY p.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
     
     @Query("SELECT p FROM Product p WHERE " +
            "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
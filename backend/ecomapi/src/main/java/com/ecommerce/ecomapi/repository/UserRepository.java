@@ -2,12 +2,20 @@ package com.ecommerce.ecomapi.repository;
 
 import com.ecommerce.ecomapi.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // [userId, tokenVersion, tokensRevokedAt]
+    @Query("SELECT u.id, u.tokenVersion, u.tokensRevokedAt FROM User u WHERE u.tokensRevokedAt > :since")
+    List<Object[]> findTokenRevocationsSince(@Param("since") LocalDateTime since);
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.ecommerce.ecomapi.security.config;
 
 import com.ecommerce.ecomapi.security.jwt.JwtAuthenticationFilter;
 import com.ecommerce.ecomapi.security.user.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -89,16 +90,24 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // Streamed downloads finish on an async dispatch; the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/**").permitAll()
 
+                        // Cached order documents and staged chunked uploads share the upload root but are never served directly
+                        .requestMatchers("/uploads/documents/**", "/uploads/chunked/**").denyAll()
+
                         // Public product view and images
                         .requestMatchers("/api/products/all", "/api/products/product/**", "/api/products/search","/api/products/page","/api/products/category/**", "/api/products/brand/**", "/api/products/price-range", "/api/products/active", "/api/products/sku/**", "/api/products/filter").permitAll()
+                        // Has to come before the public product image rule, which would otherwise match it first
+                        .requestMatchers("/api/images/products/*/order").hasRole("ADMIN")
                         .requestMatchers("/api/images/products/**").permitAll() // Allow public access to product images
 
                         // Admin-only: Manage products/categories and upload images
                         .requestMatchers("/api/products/add", "/api/products/product/*/update", "/api/products/product/*/delete").hasRole("ADMIN")
                         .requestMatchers("/api/categories/**").hasRole("ADMIN")
                         .requestMatchers("/api/images/products/*/upload", "/api/images/products/*/upload-multiple", "/api/images/*/delete", "/api/images/products/*/primary/*").hasRole("ADMIN")
+                        .requestMatchers("/api/images/uploads/**").hasRole("ADMIN")
 
                         // Customer-only: Cart, orders, and PDF downloads
                         .requestMatchers("/api/cart/**").hasRole("CUSTOMER")
@@ -107,6 +116,9 @@ public class SecurityConfig {
                         // Optional: User management
                         .requestMatchers("/api/users/**").hasRole("ADMIN")
 
+                        // Admin-only: maintenance and monitoring endpoints
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
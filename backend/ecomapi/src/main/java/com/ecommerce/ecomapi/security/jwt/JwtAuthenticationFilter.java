@@ -1,6 +1,10 @@
 package com.ecommerce.ecomapi.security.jwt;
 
+import com.ecommerce.ecomapi.enums.Role;
+import com.ecommerce.ecomapi.security.user.AuthenticatedUser;
 import com.ecommerce.ecomapi.security.user.CustomUserDetailsService;
+import com.ecommerce.ecomapi.service.auth.ITokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +25,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final ITokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(
@@ -40,17 +45,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         token = authHeader.substring(7); // Remove "Bearer "
-        userEmail = jwtUtil.extractUsername(token);
+        final Claims claims = jwtUtil.extractAllClaims(token);
+        userEmail = claims.getSubject();
 
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
-
-            if (jwtUtil.isTokenValid(token, userDetails.getUsername())) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
+            UsernamePasswordAuthenticationToken authToken = claims.get(JwtUtil.ROLE_CLAIM) != null
+                    ? authenticateFromClaims(claims)
+                    : authenticateFromDatabase(token, userEmail);
+
+            if (authToken != null) {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
@@ -58,4 +61,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    // The token is signed and unexpired, so its claims are trusted as they are; only revocation is checked
+    private UsernamePasswordAuthenticationToken authenticateFromClaims(Claims claims) {
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+        Integer tokenVersion = claims.get(JwtUtil.TOKEN_VERSION_CLAIM, Integer.class);
+        if (userId == null || tokenRevocationService.isRevoked(userId, tokenVersion != null ? tokenVersion : 0)) {
+            return null;
+        }
+        AuthenticatedUser user = new AuthenticatedUser(userId, claims.getSubject(),
+                Role.valueOf(claims.get(JwtUtil.ROLE_CLAIM, String.class)));
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    // Tokens issued before access tokens carried the role
+    private UsernamePasswordAuthenticationToken authenticateFromDatabase(String token, String userEmail) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+        if (!jwtUtil.isTokenValid(token, userDetails.getUsername())) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
 }
@@ -1,11 +1,20 @@
 package com.ecommerce.ecomapi.security.jwt;
 
+import com.ecommerce.ecomapi.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
@@ -20,14 +29,37 @@ public class JwtUtil {
     // Refresh token = 2 days
     private static final long REFRESH_TOKEN_EXPIRATION = 1000L * 60 * 60 * 24 * 2;
 
+    // Access tokens carry what authorization needs, so requests don't load the user
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
+    private final Key signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+
+    // Immutable and thread-safe, so one parser serves every request
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+    // Claims of tokens whose signature has already been checked, keyed by the token's SHA-256 so raw tokens aren't kept
+    private final ConcurrentHashMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    // 0 verifies the signature on every request
+    @Value("${app.jwt.claims-cache.max-entries:10000}")
+    private int claimsCacheMaxEntries;
+
+    private record VerifiedToken(Claims claims, long expiresAt) {
+    }
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        return signingKey;
     }
 
     // Generate Access Token (15 min)
-    public String generateAccessToken(String username) {
+    public String generateAccessToken(User user) {
         return Jwts.builder()
-                .setSubject(username)
+                .setSubject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
+                .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion() != null ? user.getTokenVersion() : 0)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + ACCESS_TOKEN_EXPIRATION))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
@@ -51,14 +83,16 @@ public class JwtUtil {
 
     // Check token validity
     public boolean isTokenValid(String token, String userEmail) {
-        final String username = extractUsername(token);
-        return (username.equals(userEmail) && !isTokenExpired(token));
+        final Claims claims = parseToken(token);
+        return (claims.getSubject().equals(userEmail) && !claims.getExpiration().before(new Date()));
     }
 
-    // Check expiry
-    private boolean isTokenExpired(String token) {
-        final Date expiration = extractClaim(token, Claims::getExpiration);
-        return expiration.before(new Date());
+    public Claims extractAllClaims(String token) {
+        return parseToken(token);
+    }
+
+    public long getAccessTokenExpiration() {
+        return ACCESS_TOKEN_EXPIRATION;
     }
 
     // Extract any claim
@@ -67,12 +101,50 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
-    // Parse JWT
+    // Parse JWT; a token is verified once and then served from the cache until it expires
     private Claims parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return cached.claims();
+            }
+            // Expired: the parser below throws ExpiredJwtException as it would have without the cache
+            verifiedTokens.remove(digest, cached);
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null && claimsCacheMaxEntries > 0) {
+            cache(digest, new VerifiedToken(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
+    // Expired entries are swept by evictExpired, so a full cache only drops one arbitrary entry here rather than
+    // scanning on the request path or tracking recency on every hit
+    private void cache(String digest, VerifiedToken token) {
+        if (verifiedTokens.size() >= claimsCacheMaxEntries) {
+            Iterator<String> digests = verifiedTokens.keySet().iterator();
+            if (digests.hasNext()) {
+                verifiedTokens.remove(digests.next());
+            }
+        }
+        verifiedTokens.put(digest, token);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.claims-cache.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        verifiedTokens.values().removeIf(entry -> entry.expiresAt() <= now);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
@@ -0,0 +1,23 @@
+package com.ecommerce.ecomapi.security.user;
+
+import com.ecommerce.ecomapi.enums.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.Collections;
+
+// Principal built from the claims of an access token
+public record AuthenticatedUser(Long id, String email, Role role) implements Principal {
+
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    // we are using email as username
+    @Override
+    public String getName() {
+        return email;
+    }
+}
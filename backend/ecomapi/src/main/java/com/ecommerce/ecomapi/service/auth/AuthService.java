@@ -37,7 +37,7 @@ public class AuthService implements IAuthService {
 
         userRepository.save(user);
 
-        String accessToken = jwtUtil.generateAccessToken(user.getEmail());
+        String accessToken = jwtUtil.generateAccessToken(user);
         String refreshToken = jwtUtil.generateRefreshToken(user.getEmail());
 
         return new AuthResponse(accessToken, refreshToken, user.getEmail(), user.getRole().name(),user.getId());
@@ -52,7 +52,7 @@ public class AuthService implements IAuthService {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        String accessToken = jwtUtil.generateAccessToken(user.getEmail());
+        String accessToken = jwtUtil.generateAccessToken(user);
         String refreshToken = jwtUtil.generateRefreshToken(user.getEmail());
 
         return new AuthResponse(accessToken, refreshToken, user.getEmail(), user.getRole().name(),user.getId());
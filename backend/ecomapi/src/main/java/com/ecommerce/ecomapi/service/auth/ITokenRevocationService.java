@@ -0,0 +1,12 @@
+package com.ecommerce.ecomapi.service.auth;
+
+import com.ecommerce.ecomapi.entity.User;
+
+public interface ITokenRevocationService {
+
+    // Invalidates every access token issued to the user so far; the caller saves the user, and the
+    // revocation applies once the surrounding transaction commits
+    void revokeTokens(User user);
+
+    boolean isRevoked(Long userId, int tokenVersion);
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.ecomapi.service.auth;
+
+import com.ecommerce.ecomapi.entity.User;
+import com.ecommerce.ecomapi.repository.UserRepository;
+import com.ecommerce.ecomapi.security.jwt.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Access tokens are checked against recent revocations in memory. An entry only has to outlive the access token
+// lifetime, since every token issued before an older revocation has expired anyway, so the map stays small
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService implements ITokenRevocationService {
+
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+
+    // Keyed by user id
+    private final ConcurrentHashMap<Long, Revocation> revocations = new ConcurrentHashMap<>();
+
+    private record Revocation(int minVersion, long revokedAt) {
+    }
+
+    @Override
+    public void revokeTokens(User user) {
+        int version = (user.getTokenVersion() != null ? user.getTokenVersion() : 0) + 1;
+        user.setTokenVersion(version);
+        user.setTokensRevokedAt(LocalDateTime.now());
+        Long userId = user.getId();
+        Revocation revocation = new Revocation(version, System.currentTimeMillis());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(userId, revocation);
+                }
+            });
+        } else {
+            remember(userId, revocation);
+        }
+    }
+
+    @Override
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        Revocation revocation = revocations.get(userId);
+        return revocation != null && tokenVersion < revocation.minVersion();
+    }
+
+    // Picks up revocations made on other nodes (and before a restart), then drops the ones no live token predates
+    @Scheduled(fixedDelayString = "${app.auth.revocation.sync-interval-ms:10000}")
+    public void syncRevocations() {
+        long lifetime = jwtUtil.getAccessTokenExpiration();
+        try {
+            LocalDateTime since = LocalDateTime.now().minus(lifetime, ChronoUnit.MILLIS);
+            for (Object[] row : userRepository.findTokenRevocationsSince(since)) {
+                long revokedAt = ((LocalDateTime) row[2]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                remember((Long) row[0], new Revocation((Integer) row[1], revokedAt));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not load token revocations", e);
+        }
+        long cutoff = System.currentTimeMillis() - lifetime;
+        revocations.values().removeIf(revocation -> revocation.revokedAt() < cutoff);
+    }
+
+    private void remember(Long userId, Revocation revocation) {
+        revocations.merge(userId, revocation,
+                (current, candidate) -> candidate.minVersion() > current.minVersion() ? candidate : current);
+    }
+}
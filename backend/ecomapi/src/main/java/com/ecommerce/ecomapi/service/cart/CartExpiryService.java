@@ -0,0 +1,168 @@
+package com.ecommerce.ecomapi.service.cart;
+
+import com.ecommerce.ecomapi.dto.cart.CartExpiryStats;
+import com.ecommerce.ecomapi.repository.CartRepository;
+import com.ecommerce.ecomapi.repository.CartRepository.CartActivity;
+import com.ecommerce.ecomapi.utils.HierarchicalTimingWheel;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartExpiryService implements ICartExpiryService {
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4;
+
+    private final CartRepository cartRepo;
+    private final WriteBehindCartStore cartStore;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.cart.expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cart.expiry.ttl-days:7}")
+    private int ttlDays;
+
+    @Value("${app.cart.expiry.tick-ms:60000}")
+    private long tickMs;
+
+    @Value("${app.cart.expiry.batch-size:500}")
+    private int batchSize;
+
+    private HierarchicalTimingWheel<Long> wheel;
+    private final AtomicLong totalPurged = new AtomicLong();
+    private final long startedAt = System.currentTimeMillis();
+    private volatile int lastRunPurged;
+    private volatile LocalDateTime lastRunAt;
+
+    @PostConstruct
+    public void init() {
+        wheel = new HierarchicalTimingWheel<>(tickMs, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+    }
+
+    // One pass over existing carts at startup; after that the wheel is driven purely by touches
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadExistingCarts() {
+        if (!enabled) {
+            return;
+        }
+        // Carts that predate the column start their TTL now rather than counting as long abandoned
+        Integer backfilled = transactionTemplate.execute(status -> cartRepo.backfillLastActivity(LocalDateTime.now()));
+        if (backfilled != null && backfilled > 0) {
+            log.info("Backfilled last activity on {} carts", backfilled);
+        }
+
+        long afterId = 0;
+        int loaded = 0;
+        while (true) {
+            List<CartActivity> page = cartRepo.findActivityAfter(afterId, PageRequest.of(0, batchSize));
+            for (CartActivity activity : page) {
+                wheel.schedule(activity.getId(), expiryOf(activity.getLastActivityAt()));
+                afterId = activity.getId();
+            }
+            loaded += page.size();
+            if (page.size() < batchSize) {
+                break;
+            }
+        }
+        log.info("Cart expiry tracking {} carts", loaded);
+    }
+
+    @Override
+    public void touch(Long cartId) {
+        if (enabled && cartId != null) {
+            wheel.schedule(cartId, System.currentTimeMillis() + ttlMs());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.cart.expiry.tick-ms:60000}", fixedDelayString = "${app.cart.expiry.tick-ms:60000}")
+    public void scheduledPurge() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            purgeExpiredCarts();
+        } catch (Exception e) {
+            log.error("Cart expiry run failed", e);
+        }
+    }
+
+    @Override
+    public int purgeExpiredCarts() {
+        List<Long> expired = wheel.advance(System.currentTimeMillis());
+        int purged = 0;
+        for (int i = 0; i < expired.size(); i += batchSize) {
+            purged += purgeBatch(expired.subList(i, Math.min(i + batchSize, expired.size())));
+        }
+
+        lastRunPurged = purged;
+        lastRunAt = LocalDateTime.now();
+        totalPurged.addAndGet(purged);
+        if (purged > 0) {
+            log.info("Purged {} abandoned carts", purged);
+        }
+        return purged;
+    }
+
+    private int purgeBatch(List<Long> cartIds) {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ttlDays);
+        List<Long> purgedUsers = new ArrayList<>();
+
+        Integer purged = transactionTemplate.execute(status -> {
+            List<Long> toDelete = new ArrayList<>();
+            // The database has the final say: a cart touched elsewhere since it was scheduled is put back on the wheel,
+            // and one with no recorded activity is never treated as expired
+            for (CartActivity activity : cartRepo.findActivityByIds(cartIds)) {
+                if (activity.getLastActivityAt() != null && activity.getLastActivityAt().isBefore(cutoff)) {
+                    toDelete.add(activity.getId());
+                    purgedUsers.add(activity.getUserId());
+                } else {
+                    wheel.schedule(activity.getId(), expiryOf(activity.getLastActivityAt()));
+                }
+            }
+            if (toDelete.isEmpty()) {
+                return 0;
+            }
+            cartRepo.deleteItemsByCartIds(toDelete);
+            return cartRepo.deleteByIds(toDelete);
+        });
+
+        purgedUsers.forEach(cartStore::discard);
+        return purged == null ? 0 : purged;
+    }
+
+    @Override
+    public CartExpiryStats getStats() {
+        double hours = Math.max(System.currentTimeMillis() - startedAt, 1) / 3_600_000d;
+        return new CartExpiryStats(wheel.size(), totalPurged.get(), lastRunPurged, lastRunAt,
+                totalPurged.get() / hours);
+    }
+
+    private long expiryOf(LocalDateTime lastActivityAt) {
+        if (lastActivityAt == null) {
+            return System.currentTimeMillis() + ttlMs();
+        }
+        return lastActivityAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + ttlMs();
+    }
+
+    private long ttlMs() {
+        return Duration.ofDays(ttlDays).toMillis();
+    }
+}
@@ -1,9 +1,11 @@
 package com.ecommerce.ecomapi.service.cart;
 
+import com.ecommerce.ecomapi.dto.cart.CartOperationRequest;
 import com.ecommerce.ecomapi.entity.Cart;
 import com.ecommerce.ecomapi.entity.CartItem;
 import com.ecommerce.ecomapi.entity.Product;
 import com.ecommerce.ecomapi.entity.User;
+import com.ecommerce.ecomapi.enums.CartOperationType;
 import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
 import com.ecommerce.ecomapi.repository.CartItemRepository;
 import com.ecommerce.ecomapi.repository.CartRepository;
@@ -11,11 +13,19 @@ import com.ecommerce.ecomapi.repository.ProductRepository;
 import com.ecommerce.ecomapi.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.ResourceAccessException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,21 +35,25 @@ public class CartService implements ICartService{
     private final CartItemRepository cartItemRepo;
     private final UserRepository userRepo;
     private final ProductRepository productRepo;
+    private final WriteBehindCartStore cartStore;
+    private final ICartExpiryService cartExpiryService;
     @Override
     public Cart getCartByUserId(Long userId) {
-        User user =userRepo.findById(userId)
-                .orElseThrow(()->new ResourceNotFoundException("User not found"));
-        return cartRepo.findByUser(user).orElseGet(()->{
-            Cart newCart = new Cart();
-            newCart.setUser(user);
-            newCart.setItems(new ArrayList<>());
-            newCart.setTotalAmount(BigDecimal.ZERO);
-            return cartRepo.save(newCart);
-        });
+        if (cartStore.isEnabled()) {
+            return cartStore.read(userId, () -> loadOrCreateCart(userId));
+        }
+        return loadOrCreateCart(userId);
     }
 
     @Override
     public Cart addItemToCart(Long userId, Long productId, int quantity) {
+        if (cartStore.isEnabled()) {
+            Product product = productRepo.findById(productId)
+                    .orElseThrow(()->new ResourceNotFoundException("Product not Found"));
+            return touched(cartStore.update(userId, () -> loadOrCreateCart(userId),
+                    cart -> mergeItem(cart, product, quantity)));
+        }
+
         User user = userRepo.findById(userId)
                 .orElseThrow(()->new ResourceNotFoundException("User not Found"));
 
@@ -63,22 +77,190 @@ public class CartService implements ICartService{
                 .map(CartItem::getTotalPrice).
                 reduce(BigDecimal.ZERO,BigDecimal::add);
         cart.setTotalAmount(totalAmount);
+        cart.setLastActivityAt(LocalDateTime.now());
 
-        return cartRepo.save(cart);
+        return touched(cartRepo.save(cart));
     }
 
     @Override
+    @Transactional
     public void removeItem(Long cartItemId) {
+        if (cartStore.isEnabled()) {
+            Long userId = cartStore.findOwner(cartItemId)
+                    .orElseGet(() -> cartItemRepo.findById(cartItemId)
+                            .map(item -> item.getCart().getUser().getId())
+                            .orElseThrow(()->new ResourceNotFoundException("Cart item not found")));
+            if (!cartStore.removeItem(userId, cartItemId, () -> loadOrCreateCart(userId))) {
+                throw new ResourceNotFoundException("Cart item not found");
+            }
+            touched(cartStore.read(userId, () -> loadOrCreateCart(userId)));
+            return;
+        }
+
         CartItem item =cartItemRepo.findById(cartItemId)
                 .orElseThrow(()->new ResourceNotFoundException("Cart item not found"));
         cartItemRepo.delete(item);
+        cartRepo.markActivity(item.getCart().getId(), LocalDateTime.now());
+        cartExpiryService.touch(item.getCart().getId());
     }
 
     @Override
+    @Transactional
     public void clearCart(Long userId) {
+        if (cartStore.isEnabled()) {
+            // Inside a transaction (e.g. checkout) the in-memory cart is only emptied once that transaction commits
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        clearStoredCart(userId);
+                    }
+                });
+            } else {
+                clearStoredCart(userId);
+            }
+            return;
+        }
+
+        // Bulk delete instead of loading and orphan-removing every line
         Cart cart = getCartByUserId(userId);
-        cart.getItems().clear();
-        cart.setTotalAmount(BigDecimal.ZERO);
-        cartRepo.save(cart);
+        cartRepo.deleteItemsByCartIds(List.of(cart.getId()));
+        cartRepo.resetCart(cart.getId(), LocalDateTime.now());
+        cartExpiryService.touch(cart.getId());
+    }
+
+    private void clearStoredCart(Long userId) {
+        touched(cartStore.update(userId, () -> loadOrCreateCart(userId), cart -> cart.getItems().clear()));
+    }
+
+    @Override
+    @Transactional
+    public Cart applyOperations(Long userId, List<CartOperationRequest> operations) {
+        if (operations == null || operations.isEmpty()) {
+            return getCartByUserId(userId);
+        }
+        for (CartOperationRequest operation : operations) {
+            validateOperation(operation);
+        }
+
+        // One query for every product touched by the batch
+        Set<Long> productIds = operations.stream()
+                .map(CartOperationRequest::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productRepo.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product not found with ID: " + productId);
+            }
+        }
+
+        if (cartStore.isEnabled()) {
+            return touched(cartStore.update(userId, () -> loadOrCreateCart(userId),
+                    cart -> operations.forEach(op -> applyOperation(cart, op, products.get(op.getProductId())))));
+        }
+
+        Cart cart = loadOrCreateCart(userId);
+        operations.forEach(op -> applyOperation(cart, op, products.get(op.getProductId())));
+
+        List<CartItem> newItems = cart.getItems().stream()
+                .filter(item -> item.getId() == null)
+                .toList();
+        cartItemRepo.saveAll(newItems);
+
+        cart.setTotalAmount(cart.getItems().stream()
+                .map(CartItem::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        cart.setLastActivityAt(LocalDateTime.now());
+        return touched(cartRepo.save(cart));
+    }
+
+    private void validateOperation(CartOperationRequest operation) {
+        if (operation.getType() == null || operation.getProductId() == null) {
+            throw new IllegalArgumentException("Each cart operation needs a type and a productId");
+        }
+        if (operation.getType() == CartOperationType.ADD && operation.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity to add must be positive for product: " + operation.getProductId());
+        }
+        if (operation.getType() == CartOperationType.SET_QUANTITY && operation.getQuantity() < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative for product: " + operation.getProductId());
+        }
+    }
+
+    private void applyOperation(Cart cart, CartOperationRequest operation, Product product) {
+        switch (operation.getType()) {
+            case ADD -> mergeItem(cart, product, operation.getQuantity());
+            case REMOVE -> removeProduct(cart, product);
+            case SET_QUANTITY -> setQuantity(cart, product, operation.getQuantity());
+        }
+    }
+
+    // Updates the existing line in place, so in database mode it is one UPDATE rather than a delete and an insert
+    private void setQuantity(Cart cart, Product product, int quantity) {
+        if (quantity == 0) {
+            removeProduct(cart, product);
+            return;
+        }
+        CartItem existing = null;
+        Iterator<CartItem> items = cart.getItems().iterator();
+        while (items.hasNext()) {
+            CartItem item = items.next();
+            if (!item.getProduct().getId().equals(product.getId())) {
+                continue;
+            }
+            if (existing == null) {
+                existing = item;
+            } else {
+                // A second line for the same product is folded into the first
+                items.remove();
+            }
+        }
+        if (existing == null) {
+            mergeItem(cart, product, quantity);
+            return;
+        }
+        existing.setQuantity(quantity);
+        existing.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+    }
+
+    // Adds to an existing line for the same product instead of creating a second one
+    private void mergeItem(Cart cart, Product product, int quantity) {
+        for (CartItem item : cart.getItems()) {
+            if (item.getProduct().getId().equals(product.getId())) {
+                item.setQuantity(item.getQuantity() + quantity);
+                item.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+                return;
+            }
+        }
+        CartItem item = new CartItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+        item.setCart(cart);
+        cart.getItems().add(item);
+    }
+
+    private void removeProduct(Cart cart, Product product) {
+        cart.getItems().removeIf(item -> item.getProduct().getId().equals(product.getId()));
+    }
+
+    private Cart loadOrCreateCart(Long userId) {
+        User user =userRepo.findById(userId)
+                .orElseThrow(()->new ResourceNotFoundException("User not found"));
+        return cartRepo.findByUser(user).orElseGet(()->{
+            Cart newCart = new Cart();
+            newCart.setUser(user);
+            newCart.setItems(new ArrayList<>());
+            newCart.setTotalAmount(BigDecimal.ZERO);
+            newCart.setLastActivityAt(LocalDateTime.now());
+            return touched(cartRepo.save(newCart));
+        });
+    }
+
+    // Only writes push a cart's expiry out: each one also persists lastActivityAt, which purging checks.
+    // Reads leave both alone so the wheel never holds a deadline the database doesn't back
+    private Cart touched(Cart cart) {
+        cartExpiryService.touch(cart.getId());
+        return cart;
     }
 }
@@ -0,0 +1,9 @@
+package com.ecommerce.ecomapi.service.cart;
+
+import com.ecommerce.ecomapi.dto.cart.CartExpiryStats;
+
+public interface ICartExpiryService {
+    void touch(Long cartId);
+    int purgeExpiredCarts();
+    CartExpiryStats getStats();
+}
@@ -1,10 +1,14 @@
 package com.ecommerce.ecomapi.service.cart;
 
+import com.ecommerce.ecomapi.dto.cart.CartOperationRequest;
 import com.ecommerce.ecomapi.entity.Cart;
 
+import java.util.List;
+
 public interface ICartService {
     Cart getCartByUserId(Long userId);
     Cart addItemToCart(Long userId, Long productId, int quantity);
     void removeItem(Long cartItemId);
     void clearCart(Long userId);
+    Cart applyOperations(Long userId, List<CartOperationRequest> operations);
 }
@@ -0,0 +1,372 @@
+package com.ecommerce.ecomapi.service.cart;
+
+import com.ecommerce.ecomapi.entity.Cart;
+import com.ecommerce.ecomapi.entity.CartItem;
+import com.ecommerce.ecomapi.repository.CartItemRepository;
+import com.ecommerce.ecomapi.repository.CartRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Keeps active carts in memory (app.cart.store=memory) and writes them back to the database in the background
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WriteBehindCartStore {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final CartRepository cartRepo;
+    private final CartItemRepository cartItemRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Long, CachedCart> carts = new ConcurrentHashMap<>();
+    // cart item id (database id or temporary negative id) -> owning user id
+    private final ConcurrentHashMap<Long, Long> itemOwners = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = createLocks();
+    private final AtomicLong tempIds = new AtomicLong();
+
+    @Value("${app.cart.store:database}")
+    private String storeMode;
+
+    @Value("${app.cart.memory.max-carts:10000}")
+    private int maxCarts;
+
+    @Value("${app.cart.memory.idle-eviction-ms:1800000}")
+    private long idleEvictionMs;
+
+    @Value("${app.cart.memory.flush-batch-size:50}")
+    private int flushBatchSize;
+
+    public boolean isEnabled() {
+        return "memory".equalsIgnoreCase(storeMode);
+    }
+
+    public Cart read(Long userId, Supplier<Cart> loader) {
+        return withLock(userId, () -> copyOf(load(userId, loader).cart));
+    }
+
+    public Cart update(Long userId, Supplier<Cart> loader, Consumer<Cart> mutation) {
+        return withLock(userId, () -> {
+            CachedCart cached = load(userId, loader);
+            mutation.accept(cached.cart);
+            registerNewItems(userId, cached.cart);
+            cached.cart.setTotalAmount(totalOf(cached.cart));
+            cached.cart.setLastActivityAt(LocalDateTime.now());
+            cached.dirty = true;
+            return copyOf(cached.cart);
+        });
+    }
+
+    // Returns the owner of a cart item if the item (or its pre-flush temporary id) is held in memory
+    public Optional<Long> findOwner(Long cartItemId) {
+        return Optional.ofNullable(itemOwners.get(cartItemId));
+    }
+
+    public boolean removeItem(Long userId, Long cartItemId, Supplier<Cart> loader) {
+        return withLock(userId, () -> {
+            CachedCart cached = load(userId, loader);
+            Long resolvedId = cached.aliases.getOrDefault(cartItemId, cartItemId);
+            boolean removed = cached.cart.getItems().removeIf(item -> resolvedId.equals(item.getId()));
+            if (removed) {
+                itemOwners.remove(cartItemId);
+                itemOwners.remove(resolvedId);
+                cached.cart.setTotalAmount(totalOf(cached.cart));
+                cached.cart.setLastActivityAt(LocalDateTime.now());
+                cached.dirty = true;
+            }
+            return removed;
+        });
+    }
+
+    // Writes a single cart through immediately, e.g. before something reads the cart tables directly
+    public void flush(Long userId) {
+        CachedCart cached = carts.get(userId);
+        if (cached == null) {
+            return;
+        }
+        // Blocks while a background flush holds a snapshot of this cart that it hasn't committed yet
+        cached.writeLock.lock();
+        try {
+            if (cached.dirty) {
+                flushBatch(List.of(userId));
+            }
+        } finally {
+            cached.writeLock.unlock();
+        }
+    }
+
+    // Drops a cart whose rows were deleted underneath us (e.g. by cart expiry) without writing it back
+    public void discard(Long userId) {
+        withLock(userId, () -> {
+            CachedCart cached = carts.remove(userId);
+            if (cached != null) {
+                cached.cart.getItems().forEach(item -> itemOwners.remove(item.getId()));
+                cached.aliases.keySet().forEach(itemOwners::remove);
+            }
+            return null;
+        });
+    }
+
+    public int size() {
+        return carts.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.memory.flush-interval-ms:5000}")
+    public void flushDirtyCarts() {
+        if (!isEnabled() || carts.isEmpty()) {
+            return;
+        }
+        List<Long> dirty = new ArrayList<>();
+        carts.forEach((userId, cached) -> {
+            if (cached.dirty) {
+                dirty.add(userId);
+            }
+        });
+        for (int i = 0; i < dirty.size(); i += flushBatchSize) {
+            flushBatch(dirty.subList(i, Math.min(i + flushBatchSize, dirty.size())));
+        }
+        evictIdleCarts();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (isEnabled()) {
+            flushDirtyCarts();
+        }
+    }
+
+    private void flushBatch(List<Long> userIds) {
+        // Snapshot under each cart's lock, write the whole batch in one transaction, then remap temporary ids.
+        // Each snapshotted cart's write lock is held until its ids are remapped (or it is marked dirty again)
+        Map<Long, Cart> snapshots = new LinkedHashMap<>();
+        List<CachedCart> writing = new ArrayList<>();
+        for (Long userId : userIds) {
+            withLock(userId, () -> {
+                CachedCart cached = carts.get(userId);
+                // A cart another thread is writing stays dirty and goes in a later round
+                if (cached != null && cached.dirty && cached.writeLock.tryLock()) {
+                    cached.dirty = false;
+                    snapshots.put(userId, copyOf(cached.cart));
+                    writing.add(cached);
+                }
+                return null;
+            });
+        }
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<Long, Map<Long, Long>> assignedIds;
+            try {
+                assignedIds = transactionTemplate.execute(status -> {
+                    Map<Long, Map<Long, Long>> result = new HashMap<>();
+                    snapshots.forEach((userId, snapshot) -> result.put(userId, writeCart(snapshot)));
+                    return result;
+                });
+            } catch (Exception e) {
+                log.error("Failed to flush {} carts, will retry", snapshots.size(), e);
+                snapshots.keySet().forEach(this::markDirty);
+                return;
+            }
+
+            if (assignedIds != null) {
+                assignedIds.forEach(this::applyAssignedIds);
+            }
+        } finally {
+            writing.forEach(cached -> cached.writeLock.unlock());
+        }
+    }
+
+    private Map<Long, Long> writeCart(Cart snapshot) {
+        Map<Long, Long> assigned = new HashMap<>();
+        Cart managed = cartRepo.findById(snapshot.getId()).orElse(null);
+        if (managed == null) {
+            return assigned;
+        }
+
+        Map<Long, CartItem> existing = new HashMap<>();
+        for (CartItem item : managed.getItems()) {
+            existing.put(item.getId(), item);
+        }
+
+        Set<Long> kept = new HashSet<>();
+        for (CartItem line : snapshot.getItems()) {
+            CartItem persisted = line.getId() > 0 ? existing.get(line.getId()) : null;
+            if (persisted != null) {
+                persisted.setQuantity(line.getQuantity());
+                persisted.setTotalPrice(line.getTotalPrice());
+                kept.add(persisted.getId());
+            } else {
+                CartItem item = new CartItem();
+                item.setProduct(line.getProduct());
+                item.setQuantity(line.getQuantity());
+                item.setTotalPrice(line.getTotalPrice());
+                item.setCart(managed);
+                cartItemRepo.save(item);
+                managed.getItems().add(item);
+                kept.add(item.getId());
+                assigned.put(line.getId(), item.getId());
+            }
+        }
+
+        managed.getItems().removeIf(item -> !kept.contains(item.getId()));
+        managed.setTotalAmount(snapshot.getTotalAmount());
+        managed.setLastActivityAt(snapshot.getLastActivityAt());
+        return assigned;
+    }
+
+    private void applyAssignedIds(Long userId, Map<Long, Long> assigned) {
+        if (assigned.isEmpty()) {
+            return;
+        }
+        withLock(userId, () -> {
+            CachedCart cached = carts.get(userId);
+            if (cached == null) {
+                return null;
+            }
+            for (CartItem item : cached.cart.getItems()) {
+                Long realId = assigned.get(item.getId());
+                if (realId != null) {
+                    cached.aliases.put(item.getId(), realId);
+                    item.setId(realId);
+                    itemOwners.put(realId, userId);
+                }
+            }
+            return null;
+        });
+    }
+
+    private void evictIdleCarts() {
+        long now = System.currentTimeMillis();
+        // lastTouched keeps changing under request threads, so sort a copy rather than the live values
+        List<TouchedCart> byAge = new ArrayList<>(carts.size());
+        carts.forEach((userId, cached) -> byAge.add(new TouchedCart(userId, cached.lastTouched)));
+        byAge.sort(Comparator.comparingLong(TouchedCart::lastTouched));
+
+        // Idle carts always go; beyond that the least recently touched go until we are back under max-carts
+        int excess = carts.size() - maxCarts;
+        for (TouchedCart candidate : byAge) {
+            boolean idle = now - candidate.lastTouched() > idleEvictionMs;
+            if (!idle && excess <= 0) {
+                break;
+            }
+            if (evict(candidate.userId(), idle || excess > 0)) {
+                excess--;
+            }
+        }
+    }
+
+    private boolean evict(Long userId, boolean force) {
+        return withLock(userId, () -> {
+            CachedCart cached = carts.get(userId);
+            if (cached == null || cached.dirty || cached.writeLock.isLocked() || !force) {
+                return false;
+            }
+            discard(userId);
+            return true;
+        });
+    }
+
+    private void markDirty(Long userId) {
+        withLock(userId, () -> {
+            CachedCart cached = carts.get(userId);
+            if (cached != null) {
+                cached.dirty = true;
+            }
+            return null;
+        });
+    }
+
+    private CachedCart load(Long userId, Supplier<Cart> loader) {
+        CachedCart cached = carts.get(userId);
+        if (cached == null) {
+            Cart cart = transactionTemplate.execute(status -> copyOf(loader.get()));
+            cached = new CachedCart(cart);
+            cart.getItems().forEach(item -> itemOwners.put(item.getId(), userId));
+            carts.put(userId, cached);
+        }
+        cached.lastTouched = System.currentTimeMillis();
+        return cached;
+    }
+
+    private void registerNewItems(Long userId, Cart cart) {
+        for (CartItem item : cart.getItems()) {
+            if (item.getId() == null) {
+                item.setId(-tempIds.incrementAndGet());
+                itemOwners.put(item.getId(), userId);
+            }
+        }
+    }
+
+    private <T> T withLock(Long userId, Supplier<T> action) {
+        ReentrantLock lock = locks[Long.hashCode(userId) & (LOCK_STRIPES - 1)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static BigDecimal totalOf(Cart cart) {
+        return cart.getItems().stream()
+                .map(CartItem::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    // Detached copy so callers never see (or serialize) a cart another thread is mutating
+    private static Cart copyOf(Cart source) {
+        Cart copy = new Cart();
+        copy.setId(source.getId());
+        copy.setUser(source.getUser());
+        copy.setTotalAmount(source.getTotalAmount());
+        copy.setLastActivityAt(source.getLastActivityAt());
+        List<CartItem> items = new ArrayList<>();
+        if (source.getItems() != null) {
+            for (CartItem item : source.getItems()) {
+                items.add(new CartItem(item.getId(), item.getProduct(), item.getQuantity(), item.getTotalPrice(), copy));
+            }
+        }
+        copy.setItems(items);
+        return copy;
+    }
+
+    private static ReentrantLock[] createLocks() {
+        ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        return stripes;
+    }
+
+    private record TouchedCart(Long userId, long lastTouched) {
+    }
+
+    private static class CachedCart {
+        private final Cart cart;
+        private final Map<Long, Long> aliases = new HashMap<>();
+        // Held from snapshot until the write is committed and its ids remapped
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private volatile boolean dirty;
+        private volatile long lastTouched = System.currentTimeMillis();
+
+        private CachedCart(Cart cart) {
+            this.cart = cart;
+        }
+    }
+}
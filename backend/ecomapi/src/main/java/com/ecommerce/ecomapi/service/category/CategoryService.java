@@ -3,8 +3,12 @@ package com.ecommerce.ecomapi.service.category;
 import com.ecommerce.ecomapi.entity.Category;
 import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
 import com.ecommerce.ecomapi.repository.CategoryRepository;
+import com.ecommerce.ecomapi.repository.ProductRepository;
+import com.ecommerce.ecomapi.service.product.ProductChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -13,9 +17,19 @@ import java.util.List;
 public class CategoryService  implements  ICategoryService{
 
     private  final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
     @Override
+    @Transactional
     public Category createCategory(Category category) {
-        return categoryRepository.save(category);
+        // Saving with an existing id renames the category, which the listing rows of its products carry
+        boolean existing = category.getId() != null;
+        Category saved = categoryRepository.save(category);
+        if (existing) {
+            publishProductChanges(saved.getId());
+        }
+        return saved;
     }
 
     @Override
@@ -30,7 +44,14 @@ public class CategoryService  implements  ICategoryService{
     }
 
     @Override
+    @Transactional
     public void deleteCategory(Long id) {
+        publishProductChanges(id);
         categoryRepository.deleteById(id);
     }
+
+    private void publishProductChanges(Long categoryId) {
+        productRepository.findIdsByCategoryId(categoryId)
+                .forEach(productId -> eventPublisher.publishEvent(new ProductChangedEvent(productId)));
+    }
 }
@@ -0,0 +1,200 @@
+package com.ecommerce.ecomapi.service.file;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+// Image rows are deleted in the request's transaction; their files go afterwards, off the request thread, so no
+// transaction waits on disk or object store I/O and a rollback never leaves rows pointing at deleted files.
+// Failed deletions are retried with backoff; what still fails is left to the orphan file collection
+@Service
+@Slf4j
+public class FileDeletionService implements IFileDeletionService {
+
+    private final IFileStorageService fileStorageService;
+    private final ThreadPoolTaskExecutor deletionExecutor;
+
+    private final DelayQueue<PendingDeletion> pending = new DelayQueue<>();
+
+    @Value("${app.file.deletion.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.file.deletion.max-attempts:5}")
+    private int maxAttempts;
+
+    // Doubles after every failed attempt
+    @Value("${app.file.deletion.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    // Blobs are checked for references only after this long: an upload on another node that deduplicated against
+    // the blob holds its reference in an uncommitted transaction until then, invisible to the check
+    @Value("${app.file.deletion.blob-grace-ms:60000}")
+    private long blobGraceMs;
+
+    public FileDeletionService(IFileStorageService fileStorageService,
+                               @Qualifier("fileDeletionExecutor") ThreadPoolTaskExecutor deletionExecutor) {
+        this.fileStorageService = fileStorageService;
+        this.deletionExecutor = deletionExecutor;
+    }
+
+    private static final class PendingDeletion implements Delayed {
+        private final String directory;
+        private final List<String> fileNames;
+        // Set for shared blobs only
+        private final BooleanSupplier referenced;
+        private final int attempts;
+        private final long dueAt;
+
+        private PendingDeletion(String directory, List<String> fileNames, BooleanSupplier referenced, int attempts, long delayMs) {
+            this.directory = directory;
+            this.fileNames = fileNames;
+            this.referenced = referenced;
+            this.attempts = attempts;
+            this.dueAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((PendingDeletion) other).dueAt);
+        }
+    }
+
+    @Override
+    public void deleteAfterCommit(Collection<String> fileNames, String directory) {
+        if (!fileNames.isEmpty()) {
+            enqueueAfterCommit(new PendingDeletion(directory, List.copyOf(fileNames), null, 0, 0));
+        }
+    }
+
+    @Override
+    public void deleteBlobAfterCommit(String fileName, BooleanSupplier referenced) {
+        enqueueAfterCommit(new PendingDeletion(null, List.of(fileName), referenced, 0, blobGraceMs));
+    }
+
+    @Override
+    public void deleteBlobLater(String fileName, BooleanSupplier referenced) {
+        pending.add(new PendingDeletion(null, List.of(fileName), referenced, 0, blobGraceMs));
+    }
+
+    private void enqueueAfterCommit(PendingDeletion deletion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.add(deletion);
+                }
+            });
+        } else {
+            pending.add(deletion);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.file.deletion.interval-ms:1000}")
+    public void scheduledDelete() {
+        if (pending.peek() == null) {
+            return;
+        }
+        // Only hands off: the scheduler thread is shared with every other @Scheduled job
+        deletionExecutor.execute(this::deleteInBackground);
+    }
+
+    private void deleteInBackground() {
+        try {
+            deletePending();
+        } catch (Exception e) {
+            log.error("Deleting queued files failed", e);
+        }
+    }
+
+    // Drains every deletion that is due
+    public void deletePending() {
+        List<PendingDeletion> batch = new ArrayList<>();
+        while (pending.drainTo(batch, batchSize) > 0) {
+            process(batch, true);
+            batch.clear();
+        }
+    }
+
+    // Whatever is still queued (including retries not yet due) gets one last attempt, except blobs still in their
+    // grace period, which are left to the orphan file collection
+    @PreDestroy
+    public void deleteOnShutdown() {
+        List<PendingDeletion> rest = new ArrayList<>(pending);
+        pending.clear();
+        rest.removeIf(deletion -> deletion.referenced != null && deletion.getDelay(TimeUnit.NANOSECONDS) > 0);
+        for (int i = 0; i < rest.size(); i += batchSize) {
+            process(rest.subList(i, Math.min(i + batchSize, rest.size())), false);
+        }
+    }
+
+    // Plain files are grouped by directory, so each directory costs one bulk delete in the storage backend
+    private void process(List<PendingDeletion> batch, boolean retry) {
+        Map<String, List<PendingDeletion>> byDirectory = new LinkedHashMap<>();
+        for (PendingDeletion deletion : batch) {
+            if (deletion.referenced != null) {
+                deleteBlob(deletion, retry);
+            } else {
+                byDirectory.computeIfAbsent(deletion.directory, directory -> new ArrayList<>()).add(deletion);
+            }
+        }
+        byDirectory.forEach((directory, deletions) -> {
+            List<String> fileNames = deletions.stream().flatMap(deletion -> deletion.fileNames.stream()).toList();
+            try {
+                fileStorageService.deleteFiles(fileNames, directory);
+            } catch (IOException | RuntimeException e) {
+                if (retry) {
+                    deletions.forEach(this::retryLater);
+                } else {
+                    log.warn("Could not delete {} files from {}", fileNames.size(), directory, e);
+                }
+            }
+        });
+    }
+
+    // A blob that is still referenced is kept for good; one that could not be deleted (or checked) is retried
+    private void deleteBlob(PendingDeletion deletion, boolean retry) {
+        String fileName = deletion.fileNames.get(0);
+        try {
+            fileStorageService.deleteBlobIfUnreferenced(fileName, deletion.referenced);
+        } catch (IOException | RuntimeException e) {
+            if (retry) {
+                retryLater(deletion);
+            } else {
+                log.warn("Could not delete blob {}", fileName, e);
+            }
+        }
+    }
+
+    private void retryLater(PendingDeletion deletion) {
+        String location = deletion.referenced != null ? "blobs" : deletion.directory;
+        int attempts = deletion.attempts + 1;
+        if (attempts >= maxAttempts) {
+            log.error("Giving up on deleting {} from {} after {} attempts", deletion.fileNames, location, attempts);
+            return;
+        }
+        log.warn("Deleting {} from {} failed, retrying (attempt {} of {})", deletion.fileNames, location, attempts + 1, maxAttempts);
+        pending.add(new PendingDeletion(deletion.directory, deletion.fileNames, deletion.referenced, attempts, retryBackoffMs << (attempts - 1)));
+    }
+}
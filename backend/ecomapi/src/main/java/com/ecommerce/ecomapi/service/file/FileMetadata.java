@@ -0,0 +1,7 @@
+package com.ecommerce.ecomapi.service.file;
+
+import java.nio.file.Path;
+
+// What conditional requests need to know about a stored file, without opening it
+public record FileMetadata(Path path, long size, long lastModified, String etag) {
+}
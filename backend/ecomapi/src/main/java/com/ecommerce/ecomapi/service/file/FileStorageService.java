@@ -1,28 +1,131 @@
 package com.ecommerce.ecomapi.service.file;
 
 import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
+import com.ecommerce.ecomapi.service.file.storage.StorageBackend;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+// Files are written to and served from the local upload directory and kept durably in the configured
+// StorageBackend; a file missing locally (stored by another node) is fetched from the backend on first use.
+// Uploads to the backend run in the background: the node that stored a file serves it from its local copy
+// until the backend holds it, and failed uploads are retried from that copy
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class FileStorageService implements IFileStorageService {
     
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}(_[a-z]+)?\\.[A-Za-z0-9]+");
+    private static final int LOCK_STRIPES = 64;
+    
+    private final StorageBackend storageBackend;
+    
     @Value("${app.file.upload-dir:uploads}")
     private String uploadDir;
     
+    @Value("${app.file.metadata-cache.max-entries:10000}")
+    private int metadataCacheMaxEntries;
+    
+    // "uuid" writes a new copy per upload; "content-addressed" stores each distinct content once under blobs/
+    @Value("${app.file.storage-mode:uuid}")
+    private String storageMode;
+    
+    // Keyed by storage key
+    private final ConcurrentHashMap<String, FileMetadata> metadataCache = new ConcurrentHashMap<>();
+    // Single flight for fetches from the backend, so concurrent requests for a missing file share one download
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> fetches = new ConcurrentHashMap<>();
+    // Blobs stored by uploads whose transaction has not finished yet, so their ProductImage rows are not visible
+    private final ConcurrentHashMap<String, Integer> pendingReferences = new ConcurrentHashMap<>();
+    private final ReentrantLock[] blobLocks = createLocks();
+    // Uploads handed to the backend and not yet durable there, by storage key
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> uploads = new ConcurrentHashMap<>();
+    // Uploads that failed, with the local copy they are retried from
+    private final ConcurrentHashMap<String, Path> failedUploads = new ConcurrentHashMap<>();
+    
+    private Path getUploadRoot() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+    
+    // Layout before keys were sharded (products/{id}/...); still read so existing files keep working
     private Path getUploadPath(String directory) {
-        return Paths.get(uploadDir, directory).toAbsolutePath().normalize();
+        return getUploadRoot().resolve(directory).normalize();
+    }
+    
+    private Path getBlobRoot() {
+        return getUploadRoot().resolve(BLOB_DIRECTORY);
+    }
+    
+    // blobs/ab/cd/abcd...{ext}; derivatives of a blob ({hash}_{size}.{ext}) sit in the same shard
+    private static String blobKey(String fileName) {
+        return BLOB_DIRECTORY + "/" + fileName.substring(0, 2) + "/" + fileName.substring(2, 4) + "/" + fileName;
+    }
+    
+    // products/42 -> products/5c/42: at most 256 directories directly under products/ on disk, and object
+    // keys spread over 256 prefixes rather than all products sharing one
+    private static String shardedDirectory(String directory) {
+        int slash = directory.indexOf('/');
+        if (slash == -1) {
+            return directory;
+        }
+        String owner = directory.substring(slash + 1);
+        int hash = owner.hashCode();
+        hash ^= hash >>> 16;
+        return directory.substring(0, slash) + "/" + String.format("%02x", (hash ^ hash >>> 8) & 0xFF) + "/" + owner;
+    }
+    
+    // Content-addressed names map to their blob wherever they are referenced from; anything else must stay
+    // inside its directory (e.g. no "..")
+    private String storageKey(String fileName, String directory) {
+        if (isContentAddressed(fileName)) {
+            return blobKey(fileName);
+        }
+        Path root = getUploadRoot();
+        Path directoryPath = root.resolve(shardedDirectory(directory)).normalize();
+        Path filePath = directoryPath.resolve(fileName).normalize();
+        if (!directoryPath.startsWith(root) || !filePath.startsWith(directoryPath) || filePath.equals(directoryPath)) {
+            throw new ResourceNotFoundException("File not found: " + fileName);
+        }
+        return root.relativize(filePath).toString().replace('\\', '/');
+    }
+    
+    private Path localPath(String key) {
+        return getUploadRoot().resolve(key);
     }
     
     @Override
@@ -37,33 +140,284 @@ public class FileStorageService implements IFileStorageService {
         }
         originalFileName = StringUtils.cleanPath(originalFileName);
         String fileExtension = getFileExtension(originalFileName);
+        if (isContentAddressedMode()) {
+            return storeBlob(file, fileExtension.toLowerCase());
+        }
         String fileName = UUID.randomUUID().toString() + fileExtension;
         
-        Path uploadPath = getUploadPath(directory);
-        Files.createDirectories(uploadPath);
-        
-        Path targetLocation = uploadPath.resolve(fileName);
+        String key = storageKey(fileName, directory);
+        Path targetLocation = localPath(key);
+        Files.createDirectories(targetLocation.getParent());
         Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+        publish(key, targetLocation);
+        
+        log.info("File stored successfully: {}", fileName);
+        return fileName;
+    }
+    
+    // The source sits under the upload directory, so it is moved into place rather than copied
+    @Override
+    public String storeFile(Path source, String originalFileName, String directory) throws IOException {
+        if (originalFileName == null || originalFileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("File name cannot be null or empty");
+        }
+        String fileExtension = getFileExtension(StringUtils.cleanPath(originalFileName));
+        if (isContentAddressedMode()) {
+            return storeBlob(source, fileExtension.toLowerCase());
+        }
+        String fileName = UUID.randomUUID().toString() + fileExtension;
+        
+        String key = storageKey(fileName, directory);
+        Path targetLocation = localPath(key);
+        Files.createDirectories(targetLocation.getParent());
+        Files.move(source, targetLocation);
+        publish(key, targetLocation);
         
         log.info("File stored successfully: {}", fileName);
         return fileName;
     }
     
+    // Does not wait for the backend: the request that stored the file is not held up by the upload, and this
+    // node keeps serving the local copy meanwhile (or for good, should every retry fail)
+    private void publish(String key, Path file) {
+        CompletableFuture<Void> upload = storageBackend.upload(key, file);
+        uploads.put(key, upload);
+        upload.whenComplete((done, error) -> {
+            uploads.remove(key, upload);
+            if (error != null) {
+                failedUploads.put(key, file);
+                log.warn("Upload of {} to the storage backend failed, serving it locally until a retry succeeds", key, error);
+            }
+        });
+    }
+    
+    @Scheduled(initialDelayString = "${app.file.storage.retry-interval-ms:60000}", fixedDelayString = "${app.file.storage.retry-interval-ms:60000}")
+    public void retryFailedUploads() {
+        for (String key : List.copyOf(failedUploads.keySet())) {
+            Path file = failedUploads.remove(key);
+            // Gone locally means the file was deleted meanwhile
+            if (file != null && Files.isRegularFile(file)) {
+                publish(key, file);
+            }
+        }
+    }
+    
+    // A delete racing an upload of the same key would let the object reappear in the backend afterwards
+    private void awaitUploads(String keyPrefix) {
+        for (String key : List.copyOf(uploads.keySet())) {
+            if (key.startsWith(keyPrefix)) {
+                CompletableFuture<Void> upload = uploads.get(key);
+                try {
+                    if (upload != null) {
+                        upload.join();
+                    }
+                } catch (CompletionException | CancellationException e) {
+                    // a failed upload left nothing behind in the backend
+                }
+            }
+        }
+        failedUploads.keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+    
+    @Override
+    public void publishFile(String fileName, String directory) throws IOException {
+        String key = storageKey(fileName, directory);
+        publish(key, locate(key, fileName, directory));
+    }
+    
+    // Hashes the upload while copying it to a temp file, then moves it into place unless that content is already stored
+    private String storeBlob(MultipartFile file, String fileExtension) throws IOException {
+        Path blobRoot = getBlobRoot();
+        Files.createDirectories(blobRoot);
+        Path temp = Files.createTempFile(blobRoot, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return placeBlob(temp, HexFormat.of().formatHex(digest.digest()), fileExtension);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    private String storeBlob(Path source, String fileExtension) throws IOException {
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return placeBlob(source, HexFormat.of().formatHex(digest.digest()), fileExtension);
+        } finally {
+            // Left behind only when the content was already stored
+            Files.deleteIfExists(source);
+        }
+    }
+    
+    private String placeBlob(Path source, String hash, String fileExtension) throws IOException {
+        String fileName = hash + fileExtension;
+        String key = blobKey(fileName);
+        Path target = localPath(key);
+        
+        boolean created;
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            boolean local = Files.exists(target);
+            // Another node may have stored the content: the upload then only becomes this node's local copy
+            created = !local && !isInBackend(key);
+            if (!local) {
+                Files.createDirectories(target.getParent());
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            if (created) {
+                log.info("Blob stored successfully: {}", fileName);
+            } else {
+                log.info("Upload deduplicated against stored blob: {}", fileName);
+            }
+            holdReference(hash);
+        } finally {
+            lock.unlock();
+        }
+        if (created) {
+            publish(key, target);
+        }
+        return fileName;
+    }
+    
+    // Uploading identical content again is harmless, so a backend that cannot answer is treated as not having it
+    private boolean isInBackend(String key) {
+        try {
+            return storageBackend.exists(key);
+        } catch (IOException e) {
+            log.warn("Could not check the storage backend for {}, uploading it again", key, e);
+            return false;
+        }
+    }
+    
+    // Until the uploading transaction completes its new reference is invisible to other transactions,
+    // so a concurrent delete of the last committed reference must not remove the blob meanwhile.
+    // Stores made outside a transaction (e.g. on an upload pool) stay pinned until releaseReference is called.
+    // The pins are only known to this node: deletes that other nodes may race with wait out a grace period
+    // first and check the database again (see FileDeletionService)
+    private void holdReference(String hash) {
+        pendingReferences.merge(hash, 1, Integer::sum);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    releasePending(hash);
+                }
+            });
+        }
+    }
+    
+    private void releasePending(String hash) {
+        pendingReferences.computeIfPresent(hash, (key, count) -> count > 1 ? count - 1 : null);
+    }
+    
+    @Override
+    public void releaseReference(String fileName) {
+        if (isContentAddressed(fileName)) {
+            releasePending(fileName.substring(0, 64));
+        }
+    }
+    
+    @Override
+    public void discardStoredFile(String fileName, String directory) {
+        if (isContentAddressed(fileName)) {
+            releaseReference(fileName);
+            return;
+        }
+        try {
+            deleteFile(fileName, directory);
+        } catch (IOException e) {
+            log.warn("Could not remove discarded file {}", fileName, e);
+        }
+    }
+    
+    @Override
+    public boolean isContentAddressed(String fileName) {
+        return fileName != null && BLOB_NAME.matcher(fileName).matches();
+    }
+    
+    @Override
+    public boolean deleteBlobIfUnreferenced(String fileName, BooleanSupplier referenced) throws IOException {
+        String hash = fileName.substring(0, 64);
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            if (pendingReferences.containsKey(hash) || referenced.getAsBoolean()) {
+                return false;
+            }
+            // The blob goes together with every derivative generated from it, locally and in the backend
+            String key = blobKey(fileName);
+            String prefix = key.substring(0, key.lastIndexOf('/') + 1) + hash;
+            metadataCache.keySet().removeIf(cached -> cached.startsWith(prefix));
+            awaitUploads(prefix);
+            try (Stream<Path> files = Files.list(localPath(key).getParent())) {
+                for (Path file : files.filter(f -> f.getFileName().toString().startsWith(hash)).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (NoSuchFileException e) {
+                // only stored in the backend
+            }
+            storageBackend.deleteByPrefix(prefix);
+            log.info("Blob deleted, no references left: {}", fileName);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
     @Override
     public String storeProductImage(MultipartFile file, Long productId) throws IOException {
         String directory = "products/" + productId;
         return storeFile(file, directory);
     }
     
+    @Override
+    public String storeProductImage(Path source, String originalFileName, Long productId) throws IOException {
+        String directory = "products/" + productId;
+        return storeFile(source, originalFileName, directory);
+    }
+    
     @Override
     public void deleteFile(String fileName, String directory) throws IOException {
-        Path filePath = getUploadPath(directory).resolve(fileName);
-        if (Files.exists(filePath)) {
-            Files.delete(filePath);
+        if (isContentAddressed(fileName)) {
+            throw new IllegalArgumentException("Shared blobs are only removed once unreferenced: " + fileName);
+        }
+        String key = storageKey(fileName, directory);
+        metadataCache.remove(key);
+        awaitUploads(key);
+        boolean deleted = Files.deleteIfExists(localPath(key));
+        deleted |= Files.deleteIfExists(getUploadPath(directory).resolve(fileName));
+        storageBackend.delete(key);
+        if (deleted) {
             log.info("File deleted successfully: {}", fileName);
         }
     }
     
+    @Override
+    public void deleteFiles(Collection<String> fileNames, String directory) throws IOException {
+        List<String> keys = new ArrayList<>(fileNames.size());
+        int deleted = 0;
+        for (String fileName : fileNames) {
+            if (isContentAddressed(fileName)) {
+                throw new IllegalArgumentException("Shared blobs are only removed once unreferenced: " + fileName);
+            }
+            String key = storageKey(fileName, directory);
+            metadataCache.remove(key);
+            awaitUploads(key);
+            boolean removed = Files.deleteIfExists(localPath(key));
+            removed |= Files.deleteIfExists(getUploadPath(directory).resolve(fileName));
+            deleted += removed ? 1 : 0;
+            keys.add(key);
+        }
+        storageBackend.deleteAll(keys);
+        log.info("Deleted {} of {} files from {}", deleted, keys.size(), directory);
+    }
+    
     @Override
     public void deleteProductImage(String fileName, Long productId) throws IOException {
         String directory = "products/" + productId;
@@ -72,22 +426,137 @@ public class FileStorageService implements IFileStorageService {
     
     @Override
     public Path getFilePath(String fileName, String directory) {
-        return getUploadPath(directory).resolve(fileName);
+        String key = storageKey(fileName, directory);
+        Path legacy = isContentAddressed(fileName) ? null : getUploadPath(directory).resolve(fileName);
+        return legacy != null && Files.exists(legacy) && !Files.exists(localPath(key)) ? legacy : localPath(key);
     }
     
     @Override
     public byte[] loadFileAsBytes(String fileName, String directory) throws IOException {
-        Path filePath = getFilePath(fileName, directory);
-        if (!Files.exists(filePath)) {
+        return Files.readAllBytes(loadFile(fileName, directory));
+    }
+    
+    // Resolves an existing file without reading it, so callers can stream or sendfile it from disk
+    @Override
+    public Path loadFile(String fileName, String directory) {
+        try {
+            return locate(storageKey(fileName, directory), fileName, directory);
+        } catch (IOException e) {
+            throw new ResourceNotFoundException("File not found: " + fileName);
+        }
+    }
+    
+    // Stored files are never rewritten in place (new content gets a new name), so their size and
+    // modification time can be cached until the file is deleted
+    @Override
+    public FileMetadata getFileMetadata(String fileName, String directory) throws IOException {
+        String key = storageKey(fileName, directory);
+        FileMetadata metadata = metadataCache.get(key);
+        if (metadata != null) {
+            return metadata;
+        }
+        
+        Path filePath = locate(key, fileName, directory);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
             throw new ResourceNotFoundException("File not found: " + fileName);
         }
-        return Files.readAllBytes(filePath);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+        metadata = new FileMetadata(filePath, size, lastModified, etag);
+        
+        if (metadataCache.size() >= metadataCacheMaxEntries) {
+            // Drop an arbitrary entry rather than track recency on every hit
+            Iterator<String> keys = metadataCache.keySet().iterator();
+            if (keys.hasNext()) {
+                metadataCache.remove(keys.next());
+            }
+        }
+        metadataCache.put(key, metadata);
+        return metadata;
     }
     
     @Override
     public boolean fileExists(String fileName, String directory) {
-        Path filePath = getFilePath(fileName, directory);
-        return Files.exists(filePath);
+        try {
+            String key = storageKey(fileName, directory);
+            return Files.isRegularFile(getFilePath(fileName, directory)) || storageBackend.exists(key);
+        } catch (ResourceNotFoundException | IOException e) {
+            return false;
+        }
+    }
+    
+    // The local copy at the sharded location, at the pre-sharding location, or fetched from the backend
+    private Path locate(String key, String fileName, String directory) throws IOException {
+        Path local = localPath(key);
+        if (Files.isRegularFile(local)) {
+            return local;
+        }
+        if (!isContentAddressed(fileName)) {
+            Path legacy = getUploadPath(directory).resolve(fileName);
+            if (Files.isRegularFile(legacy)) {
+                return legacy;
+            }
+        }
+        if (!fetch(key, local)) {
+            throw new ResourceNotFoundException("File not found: " + fileName);
+        }
+        return local;
+    }
+    
+    private boolean fetch(String key, Path local) throws IOException {
+        CompletableFuture<Boolean> mine = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = fetches.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while fetching " + key);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException("Fetching " + key + " failed", e.getCause());
+            }
+        }
+        try {
+            boolean found = storageBackend.download(key, local);
+            if (found) {
+                log.info("Fetched {} from the storage backend", key);
+            }
+            mine.complete(found);
+            return found;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            fetches.remove(key, mine);
+        }
+    }
+    
+    private boolean isContentAddressedMode() {
+        return "content-addressed".equalsIgnoreCase(storageMode);
+    }
+    
+    private ReentrantLock lockFor(String hash) {
+        return blobLocks[hash.hashCode() & (LOCK_STRIPES - 1)];
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static ReentrantLock[] createLocks() {
+        ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        return stripes;
     }
     
     private String getFileExtension(String fileName) {
@@ -0,0 +1,17 @@
+package com.ecommerce.ecomapi.service.file;
+
+import java.util.Collection;
+import java.util.function.BooleanSupplier;
+
+public interface IFileDeletionService {
+
+    // Queued once the current transaction commits (right away without one) and removed in the background;
+    // a rollback leaves the files in place
+    void deleteAfterCommit(Collection<String> fileNames, String directory);
+
+    // Shared blobs are removed the same way, after a grace period and only if nothing references them by then
+    void deleteBlobAfterCommit(String fileName, BooleanSupplier referenced);
+
+    // Queued right away, for blobs whose storing transaction rolled back
+    void deleteBlobLater(String fileName, BooleanSupplier referenced);
+}
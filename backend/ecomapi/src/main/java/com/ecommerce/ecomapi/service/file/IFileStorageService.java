@@ -4,6 +4,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.function.BooleanSupplier;
 
 public interface IFileStorageService {
     
@@ -11,13 +13,42 @@ public interface IFileStorageService {
     
     String storeProductImage(MultipartFile file, Long productId) throws IOException;
     
+    // Moves an already assembled file (e.g. a finished chunked upload) into storage
+    String storeFile(Path source, String originalFileName, String directory) throws IOException;
+    
+    String storeProductImage(Path source, String originalFileName, Long productId) throws IOException;
+    
     void deleteFile(String fileName, String directory) throws IOException;
     
     void deleteProductImage(String fileName, Long productId) throws IOException;
     
+    // Removes several files of one directory, with a single bulk delete in the storage backend
+    void deleteFiles(Collection<String> fileNames, String directory) throws IOException;
+    
     Path getFilePath(String fileName, String directory);
     
     byte[] loadFileAsBytes(String fileName, String directory) throws IOException;
     
+    Path loadFile(String fileName, String directory);
+    
+    FileMetadata getFileMetadata(String fileName, String directory) throws IOException;
+    
     boolean fileExists(String fileName, String directory);
+    
+    // Hands a file written in place (e.g. a generated derivative) to the storage backend
+    void publishFile(String fileName, String directory) throws IOException;
+    
+    // True for names of content-addressed blobs, which may be shared by many products
+    boolean isContentAddressed(String fileName);
+    
+    // Removes the blob and its derivatives unless it is still referenced (or an upload of it is still in flight);
+    // false only when it was kept, a failed delete throws
+    boolean deleteBlobIfUnreferenced(String fileName, BooleanSupplier referenced) throws IOException;
+    
+    // Unpins a blob stored outside a transaction once the rows referencing it are committed
+    void releaseReference(String fileName);
+    
+    // Undoes a store whose rows never got committed: plain files are deleted, blobs only unpinned (another upload,
+    // possibly on another node, may share them; IFileDeletionService.deleteBlobLater removes them if unreferenced)
+    void discardStoredFile(String fileName, String directory);
 }
\ No newline at end of file
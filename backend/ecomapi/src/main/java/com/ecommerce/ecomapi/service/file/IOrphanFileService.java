@@ -0,0 +1,11 @@
+package com.ecommerce.ecomapi.service.file;
+
+import com.ecommerce.ecomapi.dto.image.OrphanFileReport;
+
+public interface IOrphanFileService {
+
+    // Reports unreferenced files without deleting anything
+    OrphanFileReport scan();
+
+    OrphanFileReport collect();
+}
@@ -0,0 +1,361 @@
+package com.ecommerce.ecomapi.service.file;
+
+import com.ecommerce.ecomapi.dto.image.OrphanFileReport;
+import com.ecommerce.ecomapi.enums.ImageSize;
+import com.ecommerce.ecomapi.repository.ProductImageRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Finds files under products/ and blobs/ that no ProductImage row refers to (left by rolled back uploads and
+// deleted products) and removes them. documents/ and chunked/ are cleaned up by the services that own them
+@Service
+@Slf4j
+public class OrphanFileService implements IOrphanFileService {
+
+    private static final String PRODUCT_DIRECTORY = "products";
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final int SAMPLE_SIZE = 100;
+
+    private final ProductImageRepository productImageRepository;
+    private final IFileStorageService fileStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor collectionExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ForkJoinPool walkPool;
+
+    @Value("${app.file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.file.orphan-gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.file.orphan-gc.grace-minutes:60}")
+    private long graceMinutes;
+
+    @Value("${app.file.orphan-gc.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.file.orphan-gc.batch-pause-ms:200}")
+    private long batchPauseMs;
+
+    // 0 walks with one thread per core
+    @Value("${app.file.orphan-gc.parallelism:0}")
+    private int parallelism;
+
+    public OrphanFileService(ProductImageRepository productImageRepository,
+                             IFileStorageService fileStorageService,
+                             TransactionTemplate transactionTemplate,
+                             @Qualifier("orphanFileExecutor") ThreadPoolTaskExecutor collectionExecutor) {
+        this.productImageRepository = productImageRepository;
+        this.fileStorageService = fileStorageService;
+        this.transactionTemplate = transactionTemplate;
+        this.collectionExecutor = collectionExecutor;
+    }
+
+    private record Orphan(String key, Long productId, String fileName, long size) {
+    }
+
+    private record ScanResult(List<Orphan> orphans, int recent) {
+    }
+
+    @Scheduled(initialDelayString = "${app.file.orphan-gc.initial-delay-ms:600000}",
+            fixedDelayString = "${app.file.orphan-gc.interval-ms:21600000}")
+    public void scheduledCollect() {
+        if (!enabled) {
+            return;
+        }
+        // Only hands off: the scheduler thread is shared with every other @Scheduled job
+        collectionExecutor.execute(this::collectInBackground);
+    }
+
+    private void collectInBackground() {
+        try {
+            collect();
+        } catch (IllegalStateException e) {
+            log.info("Skipping scheduled orphan file collection: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Orphan file collection failed", e);
+        }
+    }
+
+    @Override
+    public OrphanFileReport scan() {
+        return run(true);
+    }
+
+    @Override
+    public OrphanFileReport collect() {
+        return run(false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (walkPool != null) {
+            walkPool.shutdownNow();
+        }
+    }
+
+    private OrphanFileReport run(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An orphan file scan is already running");
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
+            long cutoff = started - graceMinutes * 60_000;
+
+            // Taken before the walk: anything stored after it is younger than the grace period
+            Set<String> knownStems = new HashSet<>();
+            Set<String> knownHashes = new HashSet<>();
+            loadKnownNames(knownStems, knownHashes);
+
+            LongAdder scanned = new LongAdder();
+            List<DirectoryScan> scans = new ArrayList<>();
+            for (String top : List.of(PRODUCT_DIRECTORY, BLOB_DIRECTORY)) {
+                if (Files.isDirectory(root.resolve(top))) {
+                    scans.add(new DirectoryScan(root, root.resolve(top), knownStems, knownHashes, cutoff, scanned));
+                }
+            }
+            List<Orphan> orphans = new ArrayList<>();
+            int recent = 0;
+            for (DirectoryScan scan : scans) {
+                ScanResult result = pool().invoke(scan);
+                orphans.addAll(result.orphans());
+                recent += result.recent();
+            }
+
+            int deleted = dryRun ? 0 : deleteInBatches(root, orphans);
+            long orphanBytes = orphans.stream().mapToLong(Orphan::size).sum();
+            List<String> sample = orphans.stream().limit(SAMPLE_SIZE).map(Orphan::key).toList();
+            long duration = System.currentTimeMillis() - started;
+            if (!dryRun && !orphans.isEmpty()) {
+                log.info("Orphan file collection deleted {} of {} unreferenced files ({} bytes) in {} ms",
+                        deleted, orphans.size(), orphanBytes, duration);
+            }
+            return new OrphanFileReport(dryRun, scanned.sum(), orphans.size(), orphanBytes, recent, deleted,
+                    duration, LocalDateTime.now(), sample);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (walkPool == null) {
+            walkPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        }
+        return walkPool;
+    }
+
+    // Originals and their derivatives share a stem, so one entry per image row covers all of its files
+    private void loadKnownNames(Set<String> knownStems, Set<String> knownHashes) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = productImageRepository.streamFileNames()) {
+                rows.forEach(row -> {
+                    Long productId = (Long) row[0];
+                    String fileName = (String) row[1];
+                    if (fileName == null) {
+                        return;
+                    }
+                    if (fileStorageService.isContentAddressed(fileName)) {
+                        knownHashes.add(fileName.substring(0, 64));
+                    } else if (productId != null) {
+                        knownStems.add(productId + "/" + stem(fileName));
+                    }
+                });
+            }
+        });
+    }
+
+    private int deleteInBatches(Path root, List<Orphan> orphans) {
+        int deleted = 0;
+        for (int i = 0; i < orphans.size(); i++) {
+            if (i > 0 && i % batchSize == 0 && batchPauseMs > 0) {
+                try {
+                    Thread.sleep(batchPauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Orphan file collection interrupted after {} deletions", deleted);
+                    break;
+                }
+            }
+            try {
+                if (delete(root, orphans.get(i))) {
+                    deleted++;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not delete orphaned file {}", orphans.get(i).key(), e);
+            }
+        }
+        return deleted;
+    }
+
+    // Each candidate is checked against the database once more right before it goes
+    private boolean delete(Path root, Orphan orphan) throws IOException {
+        String fileName = orphan.fileName();
+        if (isTempFile(fileName)) {
+            return Files.deleteIfExists(root.resolve(orphan.key()));
+        }
+        if (fileStorageService.isContentAddressed(fileName)) {
+            if (!Files.exists(root.resolve(orphan.key()))) {
+                // went together with an earlier file of the same blob
+                return true;
+            }
+            String hash = fileName.substring(0, 64);
+            return fileStorageService.deleteBlobIfUnreferenced(fileName,
+                    () -> productImageRepository.existsByFileNameStartingWith(hash));
+        }
+        if (productImageRepository.existsByProductIdAndFileNameStartingWith(orphan.productId(), stem(fileName))) {
+            return false;
+        }
+        fileStorageService.deleteProductImage(fileName, orphan.productId());
+        removeIfEmpty(root.resolve(orphan.key()).getParent());
+        return true;
+    }
+
+    private static void removeIfEmpty(Path directory) {
+        try {
+            Files.delete(directory);
+        } catch (DirectoryNotEmptyException | NoSuchFileException e) {
+            // still in use
+        } catch (IOException e) {
+            log.debug("Could not remove empty directory {}", directory, e);
+        }
+    }
+
+    // Parallel walk: every subdirectory is forked as its own task
+    private static final class DirectoryScan extends RecursiveTask<ScanResult> {
+
+        private final Path root;
+        private final Path directory;
+        private final Set<String> knownStems;
+        private final Set<String> knownHashes;
+        private final long cutoff;
+        private final LongAdder scanned;
+
+        private DirectoryScan(Path root, Path directory, Set<String> knownStems, Set<String> knownHashes,
+                              long cutoff, LongAdder scanned) {
+            this.root = root;
+            this.directory = directory;
+            this.knownStems = knownStems;
+            this.knownHashes = knownHashes;
+            this.cutoff = cutoff;
+            this.scanned = scanned;
+        }
+
+        @Override
+        protected ScanResult compute() {
+            List<DirectoryScan> subdirectories = new ArrayList<>();
+            List<Orphan> orphans = new ArrayList<>();
+            int recent = 0;
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isDirectory()) {
+                        DirectoryScan scan = new DirectoryScan(root, entry, knownStems, knownHashes, cutoff, scanned);
+                        scan.fork();
+                        subdirectories.add(scan);
+                    } else if (attributes.isRegularFile()) {
+                        scanned.increment();
+                        Orphan orphan = classify(root.relativize(entry), attributes.size());
+                        if (orphan == null) {
+                            continue;
+                        }
+                        if (attributes.lastModifiedTime().toMillis() > cutoff) {
+                            recent++;
+                        } else {
+                            orphans.add(orphan);
+                        }
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // removed while walking
+            } catch (IOException e) {
+                log.warn("Could not scan {} for orphaned files", directory, e);
+            }
+            for (DirectoryScan scan : subdirectories) {
+                ScanResult result = scan.join();
+                orphans.addAll(result.orphans());
+                recent += result.recent();
+            }
+            return new ScanResult(orphans, recent);
+        }
+
+        // Null for referenced files and for anything whose layout isn't recognised, which is never touched
+        private Orphan classify(Path relative, long size) {
+            String key = relative.toString().replace('\\', '/');
+            String fileName = relative.getFileName().toString();
+            if (isTempFile(fileName)) {
+                return new Orphan(key, null, fileName, size);
+            }
+            int depth = relative.getNameCount();
+            if (relative.getName(0).toString().equals(BLOB_DIRECTORY)) {
+                if (depth != 4 || fileName.length() < 64 || !fileName.substring(0, 64).matches("[0-9a-f]{64}")) {
+                    return null;
+                }
+                return knownHashes.contains(fileName.substring(0, 64)) ? null : new Orphan(key, null, fileName, size);
+            }
+            // products/{shard}/{id}/file, or products/{id}/file from before keys were sharded
+            if (depth != 3 && depth != 4) {
+                return null;
+            }
+            Long productId = parseId(relative.getName(depth - 2).toString());
+            if (productId == null) {
+                return null;
+            }
+            return knownStems.contains(productId + "/" + stem(fileName)) ? null : new Orphan(key, productId, fileName, size);
+        }
+    }
+
+    private static Long parseId(String name) {
+        try {
+            return Long.valueOf(name);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Partial writes of uploads and derivatives that never got moved into place
+    private static boolean isTempFile(String fileName) {
+        return fileName.endsWith(".tmp") && (fileName.startsWith("upload-") || fileName.startsWith("derivative-"));
+    }
+
+    // abc.png, abc_thumbnail.png and abc_large.jpg all have the stem abc
+    private static String stem(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String stem = dot == -1 ? fileName : fileName.substring(0, dot);
+        for (ImageSize size : ImageSize.values()) {
+            String suffix = "_" + size.name().toLowerCase();
+            if (stem.endsWith(suffix)) {
+                return stem.substring(0, stem.length() - suffix.length());
+            }
+        }
+        return stem;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.ecomapi.service.file.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+// Files kept on a filesystem. By default its root is the upload directory itself, so storing and fetching are
+// no-ops; pointing app.file.storage.local.root at a shared mount lets several nodes use it as their common store
+@Component
+@ConditionalOnProperty(name = "app.file.storage.backend", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class LocalStorageBackend implements StorageBackend {
+
+    @Value("${app.file.storage.local.root:${app.file.upload-dir:uploads}}")
+    private String root;
+
+    @Override
+    public CompletableFuture<Void> upload(String key, Path source) {
+        try {
+            Path target = resolve(key);
+            if (!target.equals(source.toAbsolutePath().normalize())) {
+                copy(source, target);
+            }
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public boolean download(String key, Path target) throws IOException {
+        Path source = resolve(key);
+        if (!Files.isRegularFile(source)) {
+            return false;
+        }
+        if (!source.equals(target.toAbsolutePath().normalize())) {
+            copy(source, target);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public void deleteByPrefix(String prefix) throws IOException {
+        Path first = resolve(prefix);
+        String namePrefix = first.getFileName().toString();
+        try (Stream<Path> files = Files.list(first.getParent())) {
+            for (Path file : files.filter(f -> f.getFileName().toString().startsWith(namePrefix)).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (NoSuchFileException e) {
+            // nothing stored under that prefix
+        }
+    }
+
+    // Written next to the target and moved into place, so readers never see a partial file
+    private static void copy(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "copy-", ".tmp");
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path resolve(String key) {
+        Path base = Paths.get(root).toAbsolutePath().normalize();
+        Path path = base.resolve(key).normalize();
+        if (!path.startsWith(base) || path.equals(base)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,419 @@
+package com.ecommerce.ecomapi.service.file.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// S3-compatible object store (AWS S3, MinIO, ...) over the JDK HTTP client, addressed path-style as
+// {endpoint}/{bucket}/{key}. Uploads are asynchronous; files from multipart-threshold up go as a multipart
+// upload with up to max-concurrent-parts parts in flight, each streamed from its slice of the file
+@Component
+@ConditionalOnProperty(name = "app.file.storage.backend", havingValue = "s3")
+@Slf4j
+public class S3StorageBackend implements StorageBackend {
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final int MAX_DELETE_KEYS = 1000;
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+    private static final Pattern KEY = Pattern.compile("<Key>([^<]+)</Key>");
+    private static final Pattern CONTINUATION_TOKEN = Pattern.compile("<NextContinuationToken>([^<]+)</NextContinuationToken>");
+
+    @Value("${app.file.storage.s3.endpoint:http://localhost:9000}")
+    private String endpoint;
+
+    @Value("${app.file.storage.s3.bucket:ecomapi}")
+    private String bucket;
+
+    @Value("${app.file.storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${app.file.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${app.file.storage.s3.secret-key:}")
+    private String secretKey;
+
+    @Value("${app.file.storage.s3.multipart-threshold:16777216}")
+    private long multipartThreshold;
+
+    // S3 requires at least 5 MB for every part but the last
+    @Value("${app.file.storage.s3.part-size:8388608}")
+    private long partSize;
+
+    @Value("${app.file.storage.s3.max-concurrent-parts:4}")
+    private int maxConcurrentParts;
+
+    @Value("${app.file.storage.s3.request-timeout-seconds:60}")
+    private long requestTimeoutSeconds;
+
+    private HttpClient httpClient;
+    private AwsV4Signer signer;
+
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        signer = new AwsV4Signer(accessKey, secretKey, region, "s3");
+        endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        log.info("Storing files in bucket {} at {}", bucket, endpoint);
+    }
+
+    @Override
+    public CompletableFuture<Void> upload(String key, Path source) {
+        long size;
+        HttpRequest.BodyPublisher body;
+        try {
+            size = Files.size(source);
+            body = HttpRequest.BodyPublishers.ofFile(source);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String contentType = contentType(source);
+        if (size < multipartThreshold) {
+            return send(request("PUT", key, Map.of(), body, Map.of("content-type", contentType)))
+                    .thenAccept(response -> log.debug("Uploaded {} ({} bytes)", key, size));
+        }
+        return uploadMultipart(key, source, size, contentType);
+    }
+
+    private CompletableFuture<Void> uploadMultipart(String key, Path source, long size, String contentType) {
+        return send(request("POST", key, Map.of("uploads", ""), HttpRequest.BodyPublishers.noBody(), Map.of("content-type", contentType)))
+                .thenCompose(response -> {
+                    String uploadId = extract(UPLOAD_ID, response.body(), key);
+                    String[] etags = new String[(int) ((size + partSize - 1) / partSize)];
+                    return uploadParts(key, source, size, uploadId, etags)
+                            .thenCompose(done -> completeMultipart(key, uploadId, etags))
+                            .whenComplete((done, error) -> {
+                                if (error != null) {
+                                    abortMultipart(key, uploadId);
+                                } else {
+                                    log.debug("Uploaded {} in {} parts ({} bytes)", key, etags.length, size);
+                                }
+                            });
+                });
+    }
+
+    // A fixed number of lanes, each starting the next unclaimed part when its previous one finishes
+    private CompletableFuture<Void> uploadParts(String key, Path source, long size, String uploadId, String[] etags) {
+        AtomicInteger nextPart = new AtomicInteger();
+        int lanes = Math.max(1, Math.min(maxConcurrentParts, etags.length));
+        CompletableFuture<?>[] running = new CompletableFuture<?>[lanes];
+        for (int i = 0; i < lanes; i++) {
+            running[i] = uploadNextPart(key, source, size, uploadId, etags, nextPart)
+                    // After a failure the other lanes stop claiming parts
+                    .whenComplete((done, error) -> {
+                        if (error != null) {
+                            nextPart.set(etags.length);
+                        }
+                    });
+        }
+        return CompletableFuture.allOf(running);
+    }
+
+    private CompletableFuture<Void> uploadNextPart(String key, Path source, long size, String uploadId,
+                                                   String[] etags, AtomicInteger nextPart) {
+        int index = nextPart.getAndIncrement();
+        if (index >= etags.length) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long offset = index * partSize;
+        long length = Math.min(partSize, size - offset);
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> openSlice(source, offset, length)), length);
+        Map<String, String> query = Map.of("partNumber", String.valueOf(index + 1), "uploadId", uploadId);
+        return send(request("PUT", key, query, body, Map.of()))
+                .thenCompose(response -> {
+                    etags[index] = response.headers().firstValue("ETag").orElseThrow(() ->
+                            new CompletionException(new IOException("No ETag for part " + (index + 1) + " of " + key)));
+                    return uploadNextPart(key, source, size, uploadId, etags, nextPart);
+                });
+    }
+
+    private CompletableFuture<Void> completeMultipart(String key, String uploadId, String[] etags) {
+        StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+        for (int i = 0; i < etags.length; i++) {
+            xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                    .append(etags[i]).append("</ETag></Part>");
+        }
+        xml.append("</CompleteMultipartUpload>");
+        return send(request("POST", key, Map.of("uploadId", uploadId),
+                HttpRequest.BodyPublishers.ofString(xml.toString()), Map.of("content-type", "application/xml")))
+                .thenAccept(response -> {
+                    // S3 reports some completion failures in the body of a 200 response
+                    if (response.body().contains("<Error>")) {
+                        throw new CompletionException(new IOException("Completing upload of " + key + " failed: " + response.body()));
+                    }
+                });
+    }
+
+    private void abortMultipart(String key, String uploadId) {
+        send(request("DELETE", key, Map.of("uploadId", uploadId), HttpRequest.BodyPublishers.noBody(), Map.of()))
+                .exceptionally(error -> {
+                    log.warn("Could not abort multipart upload {} of {}", uploadId, key, error);
+                    return null;
+                });
+    }
+
+    @Override
+    public boolean download(String key, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "download-", ".tmp");
+        try {
+            HttpResponse<Path> response = execute(request("GET", key, Map.of(), HttpRequest.BodyPublishers.noBody(), Map.of()),
+                    HttpResponse.BodyHandlers.ofFile(temp));
+            if (response.statusCode() == 404) {
+                return false;
+            }
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("GET " + key + " failed with status " + response.statusCode());
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<Void> response = execute(request("HEAD", key, Map.of(), HttpRequest.BodyPublishers.noBody(), Map.of()),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("HEAD " + key + " failed with status " + response.statusCode());
+        }
+        return true;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<String> response = execute(request("DELETE", key, Map.of(), HttpRequest.BodyPublishers.noBody(), Map.of()),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2 && response.statusCode() != 404) {
+            throw new IOException("DELETE " + key + " failed with status " + response.statusCode());
+        }
+    }
+
+    @Override
+    public void deleteByPrefix(String prefix) throws IOException {
+        List<String> keys = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            Map<String, String> query = new HashMap<>(Map.of("list-type", "2", "prefix", prefix));
+            if (continuationToken != null) {
+                query.put("continuation-token", continuationToken);
+            }
+            HttpResponse<String> response = execute(request("GET", null, query, HttpRequest.BodyPublishers.noBody(), Map.of()),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("Listing " + prefix + " failed with status " + response.statusCode());
+            }
+            Matcher matcher = KEY.matcher(response.body());
+            while (matcher.find()) {
+                keys.add(unescapeXml(matcher.group(1)));
+            }
+            Matcher token = CONTINUATION_TOKEN.matcher(response.body());
+            continuationToken = token.find() ? unescapeXml(token.group(1)) : null;
+        } while (continuationToken != null);
+
+        deleteAll(keys);
+    }
+
+    // Multi-object delete, up to 1000 keys per request
+    @Override
+    public void deleteAll(Collection<String> keys) throws IOException {
+        List<String> all = List.copyOf(keys);
+        for (int from = 0; from < all.size(); from += MAX_DELETE_KEYS) {
+            deleteBatch(all.subList(from, Math.min(all.size(), from + MAX_DELETE_KEYS)));
+        }
+    }
+
+    private void deleteBatch(List<String> keys) throws IOException {
+        if (keys.size() == 1) {
+            delete(keys.get(0));
+            return;
+        }
+        StringBuilder xml = new StringBuilder("<Delete><Quiet>true</Quiet>");
+        for (String key : keys) {
+            xml.append("<Object><Key>").append(escapeXml(key)).append("</Key></Object>");
+        }
+        byte[] body = xml.append("</Delete>").toString().getBytes(StandardCharsets.UTF_8);
+        Map<String, String> headers = Map.of("Content-Type", "application/xml", "Content-MD5", md5(body));
+        HttpResponse<String> response = execute(request("POST", null, Map.of("delete", ""),
+                HttpRequest.BodyPublishers.ofByteArray(body), headers), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Deleting " + keys.size() + " objects failed with status " + response.statusCode());
+        }
+        // Quiet mode only lists the keys that could not be deleted
+        if (response.body().contains("<Error>")) {
+            throw new IOException("Deleting " + keys.size() + " objects partly failed: " + response.body());
+        }
+    }
+
+    // A null key addresses the bucket itself (listing)
+    private HttpRequest request(String method, String key, Map<String, String> query,
+                                HttpRequest.BodyPublisher body, Map<String, String> extraHeaders) {
+        String canonicalUri = "/" + AwsV4Signer.uriEncode(bucket, false)
+                + (key == null ? "" : "/" + AwsV4Signer.uriEncode(key, true));
+        String canonicalQuery = AwsV4Signer.canonicalQuery(query);
+        URI uri = URI.create(endpoint + canonicalUri + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery));
+        String amzDate = AMZ_DATE.format(Instant.now());
+
+        TreeMap<String, String> headers = new TreeMap<>();
+        headers.put("host", uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort());
+        headers.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+        headers.put("x-amz-date", amzDate);
+        extraHeaders.forEach((name, value) -> headers.put(name.toLowerCase(), value));
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds))
+                .method(method, body)
+                .header("Authorization", signer.authorization(method, canonicalUri, canonicalQuery, headers, UNSIGNED_PAYLOAD, amzDate));
+        // The client sets Host itself, with the same value that was signed
+        headers.forEach((name, value) -> {
+            if (!name.equals("host")) {
+                builder.header(name, value);
+            }
+        });
+        return builder.build();
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new CompletionException(new IOException(request.method() + " " + request.uri().getPath()
+                                + " failed with status " + response.statusCode() + ": " + response.body()));
+                    }
+                    return response;
+                });
+    }
+
+    private <T> HttpResponse<T> execute(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during " + request.method() + " " + request.uri().getPath());
+        }
+    }
+
+    private static InputStream openSlice(Path source, long offset, long length) {
+        try {
+            return new FileSliceInputStream(FileChannel.open(source, StandardOpenOption.READ), offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String extract(Pattern pattern, String body, String key) {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new CompletionException(new IOException("Unexpected response for " + key + ": " + body));
+        }
+        return matcher.group(1);
+    }
+
+    private static String escapeXml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;").replace("'", "&apos;");
+    }
+
+    private static String md5(byte[] body) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("MD5").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String unescapeXml(String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    private static String contentType(Path source) {
+        String type = URLConnection.guessContentTypeFromName(source.getFileName().toString());
+        return type != null ? type : "application/octet-stream";
+    }
+
+    // Positional reads of one part of the file, so parts can be read concurrently from the same file
+    private static class FileSliceInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        private FileSliceInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(bytes, offset, (int) Math.min(length, end - position)), position);
+            if (count == -1) {
+                throw new EOFException("File shrank while uploading");
+            }
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
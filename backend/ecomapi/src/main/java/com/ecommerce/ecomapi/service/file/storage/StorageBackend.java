@@ -0,0 +1,32 @@
+package com.ecommerce.ecomapi.service.file.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+// Where stored files are kept durably (app.file.storage.backend). Files are always written to and served from the
+// local upload directory; the backend holds the shared copy, so a node can fetch a file another node stored.
+// Keys are relative, '/'-separated paths such as products/5c/42/{uuid}.jpg
+public interface StorageBackend {
+
+    // Completes once the object is durable in the backend
+    CompletableFuture<Void> upload(String key, Path source);
+
+    // Copies the object to target; false if the backend has no such object
+    boolean download(String key, Path target) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    // Backends with a bulk delete override this; missing keys are not an error
+    default void deleteAll(Collection<String> keys) throws IOException {
+        for (String key : keys) {
+            delete(key);
+        }
+    }
+
+    // Removes every object whose key starts with the prefix, e.g. a blob together with its derivatives
+    void deleteByPrefix(String prefix) throws IOException;
+}
@@ -0,0 +1,306 @@
+package com.ecommerce.ecomapi.service.image;
+
+import com.ecommerce.ecomapi.dto.image.ChunkedUploadRequest;
+import com.ecommerce.ecomapi.dto.image.ChunkedUploadStatus;
+import com.ecommerce.ecomapi.entity.ProductImage;
+import com.ecommerce.ecomapi.exceptions.CapacityExceededException;
+import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Large images arrive as independently retried chunks written straight into a pre-sized staging file under
+// {upload-dir}/chunked, so a dropped connection only costs the chunk in flight and nothing is buffered by Tomcat.
+// Sessions live in memory on the node that started them and expire after expiry-minutes without activity
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChunkedUploadService implements IChunkedUploadService {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final IProductImageService productImageService;
+
+    private final ConcurrentHashMap<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    @Value("${app.file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.images.chunked-upload.max-file-size:104857600}")
+    private long maxFileSize;
+
+    @Value("${app.images.chunked-upload.default-chunk-size:1048576}")
+    private int defaultChunkSize;
+
+    @Value("${app.images.chunked-upload.max-chunk-size:8388608}")
+    private int maxChunkSize;
+
+    @Value("${app.images.chunked-upload.max-active:100}")
+    private int maxActive;
+
+    @Value("${app.images.chunked-upload.expiry-minutes:1440}")
+    private long expiryMinutes;
+
+    @Override
+    public ChunkedUploadStatus start(ChunkedUploadRequest request) throws IOException {
+        if (request.getProductId() == null || !StringUtils.hasText(request.getFileName()) || request.getTotalSize() == null) {
+            throw new IllegalArgumentException("productId, fileName and totalSize are required");
+        }
+        long totalSize = request.getTotalSize();
+        if (totalSize <= 0 || totalSize > maxFileSize) {
+            throw new IllegalArgumentException("totalSize must be between 1 and " + maxFileSize + " bytes");
+        }
+        int chunkSize = request.getChunkSize() != null ? request.getChunkSize() : defaultChunkSize;
+        if (chunkSize <= 0 || chunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("chunkSize must be between 1 and " + maxChunkSize + " bytes");
+        }
+        if (uploads.size() >= maxActive) {
+            throw new CapacityExceededException("Too many uploads in progress, try again later");
+        }
+
+        Path staging = Paths.get(uploadDir, "chunked").toAbsolutePath().normalize();
+        Files.createDirectories(staging);
+        Upload upload = new Upload(UUID.randomUUID().toString(), request, totalSize, chunkSize);
+        upload.file = staging.resolve(upload.id + ".part");
+        // Sized up front so every chunk can be written at its offset, in whatever order they arrive
+        try (RandomAccessFile file = new RandomAccessFile(upload.file.toFile(), "rw")) {
+            file.setLength(totalSize);
+        }
+        upload.channel = FileChannel.open(upload.file, StandardOpenOption.WRITE);
+        uploads.put(upload.id, upload);
+        log.info("Chunked upload {} started for product {}: {} bytes in {} chunks",
+                upload.id, upload.productId, totalSize, upload.chunkCount);
+        return upload.status();
+    }
+
+    @Override
+    public ChunkedUploadStatus writeChunk(String uploadId, int index, String sha256, InputStream content) throws IOException {
+        Upload upload = find(uploadId);
+        if (index < 0 || index >= upload.chunkCount) {
+            throw new IllegalArgumentException("Chunk index must be between 0 and " + (upload.chunkCount - 1));
+        }
+        if (!StringUtils.hasText(sha256)) {
+            throw new IllegalArgumentException("Every chunk needs its SHA-256 checksum");
+        }
+        upload.beginChunk(index);
+        boolean written = false;
+        try {
+            long offset = (long) index * upload.chunkSize;
+            long length = Math.min(upload.chunkSize, upload.totalSize - offset);
+            MessageDigest digest = sha256();
+            writeAt(upload.channel, new DigestInputStream(content, digest), offset, length);
+            if (!HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(sha256.trim())) {
+                throw new IllegalArgumentException("Checksum mismatch for chunk " + index + ", send it again");
+            }
+            written = true;
+        } finally {
+            upload.endChunk(index, written);
+        }
+        return upload.status();
+    }
+
+    @Override
+    public ChunkedUploadStatus getStatus(String uploadId) {
+        return find(uploadId).status();
+    }
+
+    @Override
+    public ProductImage complete(String uploadId) throws IOException {
+        Upload upload = find(uploadId);
+        upload.beginCompletion();
+        try {
+            upload.channel.force(false);
+            upload.channel.close();
+            if (StringUtils.hasText(upload.checksum) && !upload.checksum.equalsIgnoreCase(sha256Hex(upload.file))) {
+                throw new IllegalArgumentException("Checksum of the assembled file does not match");
+            }
+            ProductImage image = productImageService.uploadProductImage(upload.productId, upload.file,
+                    upload.fileName, upload.contentType, upload.primary);
+            log.info("Chunked upload {} completed as image {}", uploadId, image.getId());
+            return image;
+        } finally {
+            // Whatever the outcome the session is over; a rejected file has to be uploaded again
+            discard(upload);
+        }
+    }
+
+    @Override
+    public void abort(String uploadId) {
+        discard(find(uploadId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.images.chunked-upload.cleanup-interval-ms:300000}")
+    public void removeExpiredUploads() {
+        long cutoff = System.currentTimeMillis() - expiryMinutes * 60_000;
+        for (Upload upload : uploads.values()) {
+            if (upload.lastActivity < cutoff && upload.isIdle()) {
+                log.info("Chunked upload {} expired", upload.id);
+                discard(upload);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void closeUploads() {
+        uploads.values().forEach(this::discard);
+    }
+
+    private Upload find(String uploadId) {
+        Upload upload = uploads.get(uploadId);
+        if (upload == null) {
+            throw new ResourceNotFoundException("Upload not found: " + uploadId);
+        }
+        return upload;
+    }
+
+    private void discard(Upload upload) {
+        if (uploads.remove(upload.id, upload)) {
+            try {
+                upload.channel.close();
+                Files.deleteIfExists(upload.file);
+            } catch (IOException e) {
+                log.warn("Could not remove staging file of upload {}", upload.id, e);
+            }
+        }
+    }
+
+    // Positional writes leave the channel's own position alone, so chunks of one file are written concurrently
+    private static void writeAt(FileChannel channel, InputStream in, long offset, long length) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_SIZE, length)];
+        long position = offset;
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                throw new IllegalArgumentException("Chunk is shorter than the expected " + length + " bytes");
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+            remaining -= read;
+        }
+        if (in.read() != -1) {
+            throw new IllegalArgumentException("Chunk is longer than the expected " + length + " bytes");
+        }
+    }
+
+    private static String sha256Hex(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class Upload {
+        private final String id;
+        private final Long productId;
+        private final String fileName;
+        private final String contentType;
+        private final String checksum;
+        private final boolean primary;
+        private final long totalSize;
+        private final int chunkSize;
+        private final int chunkCount;
+        private final BitSet received = new BitSet();
+        private final BitSet writing = new BitSet();
+        private boolean completing;
+        private Path file;
+        private FileChannel channel;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        private Upload(String id, ChunkedUploadRequest request, long totalSize, int chunkSize) {
+            this.id = id;
+            this.productId = request.getProductId();
+            this.fileName = StringUtils.cleanPath(request.getFileName());
+            this.contentType = request.getContentType();
+            this.checksum = request.getChecksum();
+            this.primary = request.isPrimary();
+            this.totalSize = totalSize;
+            this.chunkSize = chunkSize;
+            this.chunkCount = (int) ((totalSize + chunkSize - 1) / chunkSize);
+        }
+
+        private synchronized void beginChunk(int index) {
+            if (completing) {
+                throw new IllegalStateException("Upload is already completing");
+            }
+            if (writing.get(index)) {
+                throw new IllegalStateException("Chunk " + index + " is already being written");
+            }
+            writing.set(index);
+            // A resent chunk is not counted until it has been written and verified again
+            received.clear(index);
+            lastActivity = System.currentTimeMillis();
+        }
+
+        private synchronized void endChunk(int index, boolean written) {
+            writing.clear(index);
+            if (written) {
+                received.set(index);
+            }
+            lastActivity = System.currentTimeMillis();
+        }
+
+        private synchronized void beginCompletion() {
+            if (completing) {
+                throw new IllegalStateException("Upload is already completing");
+            }
+            if (!writing.isEmpty() || received.cardinality() < chunkCount) {
+                throw new IllegalStateException((chunkCount - received.cardinality()) + " chunks are still missing");
+            }
+            completing = true;
+        }
+
+        private synchronized boolean isIdle() {
+            return writing.isEmpty() && !completing;
+        }
+
+        private synchronized ChunkedUploadStatus status() {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = received.nextClearBit(0); i < chunkCount; i = received.nextClearBit(i + 1)) {
+                missing.add(i);
+            }
+            LocalDateTime expiresAt = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(lastActivity + expiryMinutes * 60_000), ZoneId.systemDefault());
+            return new ChunkedUploadStatus(id, productId, fileName, totalSize, chunkSize, chunkCount,
+                    received.cardinality(), missing, expiresAt);
+        }
+    }
+}
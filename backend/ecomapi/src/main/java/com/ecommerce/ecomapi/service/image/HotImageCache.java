@@ -0,0 +1,259 @@
+package com.ecommerce.ecomapi.service.image;
+
+import com.ecommerce.ecomapi.dto.image.HotImageCacheStats;
+import com.ecommerce.ecomapi.service.file.FileMetadata;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Holds the most frequently requested image files in direct buffers (app.images.hot-cache.enabled), so hits
+// need no disk read and the bytes stay off the GC heap. Admission and eviction go by access frequency, which
+// is halved periodically so images that stop being popular age out
+@Component
+@Slf4j
+public class HotImageCache {
+
+    private final ConcurrentHashMap<Path, CachedImage> entries = new ConcurrentHashMap<>();
+    // Access counts for resident files and for recently requested candidates
+    private final ConcurrentHashMap<Path, AtomicInteger> frequencies = new ConcurrentHashMap<>();
+    private final ReentrantLock admissionLock = new ReentrantLock();
+
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final AtomicLong accessesSinceAging = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong admissions = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+    @Value("${app.images.hot-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.images.hot-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${app.images.hot-cache.max-entry-bytes:2097152}")
+    private long maxEntryBytes;
+
+    // A file has to be requested this often before it is worth a slot
+    @Value("${app.images.hot-cache.min-hits:2}")
+    private int minHits;
+
+    @Value("${app.images.hot-cache.aging-interval:10000}")
+    private long agingInterval;
+
+    // The cached file as a resource, admitting it first if it is now hot enough; null means serve it from disk
+    public Resource lookup(FileMetadata metadata) {
+        if (!enabled) {
+            return null;
+        }
+        Path path = metadata.path();
+        int frequency = recordAccess(path);
+
+        CachedImage cached = entries.get(path);
+        if (cached != null && cached.lastModified() == metadata.lastModified()) {
+            hits.incrementAndGet();
+            return new BufferResource(cached.buffer(), path);
+        }
+        misses.incrementAndGet();
+        if (metadata.size() > maxEntryBytes || metadata.size() > maxBytes || frequency < minHits) {
+            return null;
+        }
+        return admit(metadata, frequency);
+    }
+
+    public HotImageCacheStats getStats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return new HotImageCacheStats(enabled, entries.size(), residentBytes.get(), maxBytes, hitCount, misses.get(),
+                total == 0 ? 0 : (double) hitCount / total, admissions.get(), evictions.get(), rejections.get());
+    }
+
+    private Resource admit(FileMetadata metadata, int frequency) {
+        Path path = metadata.path();
+        admissionLock.lock();
+        try {
+            CachedImage current = entries.get(path);
+            if (current != null && current.lastModified() == metadata.lastModified()) {
+                return new BufferResource(current.buffer(), path);
+            }
+            if (current != null) {
+                evict(path);
+            }
+
+            // Only residents colder than the newcomer make way for it
+            while (residentBytes.get() + metadata.size() > maxBytes) {
+                Path victim = coldestResident();
+                if (victim == null || frequencyOf(victim) >= frequency) {
+                    rejections.incrementAndGet();
+                    return null;
+                }
+                evict(victim);
+            }
+
+            ByteBuffer buffer = read(path, metadata.size()).asReadOnlyBuffer();
+            entries.put(path, new CachedImage(buffer, metadata.lastModified()));
+            residentBytes.addAndGet(buffer.capacity());
+            admissions.incrementAndGet();
+            return new BufferResource(buffer, path);
+        } catch (IOException e) {
+            log.debug("Could not cache image {}", path, e);
+            return null;
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    private int recordAccess(Path path) {
+        int frequency = frequencies.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+        if (accessesSinceAging.incrementAndGet() >= agingInterval) {
+            accessesSinceAging.set(0);
+            age();
+        }
+        return frequency;
+    }
+
+    // Halves every count and forgets candidates that were not requested again
+    private void age() {
+        for (Map.Entry<Path, AtomicInteger> entry : frequencies.entrySet()) {
+            int halved = entry.getValue().updateAndGet(count -> count / 2);
+            if (halved == 0 && !entries.containsKey(entry.getKey())) {
+                frequencies.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private Path coldestResident() {
+        Path coldest = null;
+        int lowest = Integer.MAX_VALUE;
+        for (Path path : entries.keySet()) {
+            int frequency = frequencyOf(path);
+            if (frequency < lowest) {
+                lowest = frequency;
+                coldest = path;
+            }
+        }
+        return coldest;
+    }
+
+    private int frequencyOf(Path path) {
+        AtomicInteger frequency = frequencies.get(path);
+        return frequency == null ? 0 : frequency.get();
+    }
+
+    private void evict(Path path) {
+        CachedImage removed = entries.remove(path);
+        if (removed != null) {
+            residentBytes.addAndGet(-removed.buffer().capacity());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static ByteBuffer read(Path path, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full
+            }
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException("File shrank while caching: " + path);
+        }
+        return buffer.flip();
+    }
+
+    private record CachedImage(ByteBuffer buffer, long lastModified) {
+    }
+
+    // Every response gets its own view of the shared buffer; Spring cuts ranges out of it through skip()
+    private static class BufferResource extends AbstractResource {
+
+        private final ByteBuffer buffer;
+        private final Path path;
+
+        private BufferResource(ByteBuffer buffer, Path path) {
+            this.buffer = buffer;
+            this.path = path;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new BufferInputStream(buffer.duplicate());
+        }
+
+        @Override
+        public long contentLength() {
+            return buffer.capacity();
+        }
+
+        @Override
+        public String getFilename() {
+            return path.getFileName().toString();
+        }
+
+        @Override
+        public String getDescription() {
+            return "cached image [" + path + "]";
+        }
+    }
+
+    private static class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        // Whole-body writes go from the direct buffer to the response channel without an intermediate byte[] of the image
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            int count = buffer.remaining();
+            Channels.newChannel(out).write(buffer);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.ecomapi.service.image;
+
+import com.ecommerce.ecomapi.dto.image.ChunkedUploadRequest;
+import com.ecommerce.ecomapi.dto.image.ChunkedUploadStatus;
+import com.ecommerce.ecomapi.entity.ProductImage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface IChunkedUploadService {
+
+    ChunkedUploadStatus start(ChunkedUploadRequest request) throws IOException;
+
+    // Chunks may arrive in any order and in parallel; a chunk can be sent again until the upload completes
+    ChunkedUploadStatus writeChunk(String uploadId, int index, String sha256, InputStream content) throws IOException;
+
+    ChunkedUploadStatus getStatus(String uploadId);
+
+    // Registers the assembled file as a ProductImage once every chunk has arrived
+    ProductImage complete(String uploadId) throws IOException;
+
+    void abort(String uploadId);
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.ecomapi.service.image;
+
+import com.ecommerce.ecomapi.enums.ImageSize;
+
+public interface IImageDerivativeService {
+
+    // File name to serve for the requested size: the derivative, generated now if missing, or the original if it cannot be
+    String resolveDerivative(Long productId, String fileName, ImageSize size);
+
+    String derivativeFileName(String fileName, ImageSize size);
+
+    // Generates every size for a freshly stored image (runs on the derivative pool after the upload commits)
+    void onImageStored(ProductImageStoredEvent event);
+}
@@ -4,23 +4,30 @@ import com.ecommerce.ecomapi.entity.ProductImage;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
 public interface IProductImageService {
     
     ProductImage uploadProductImage(Long productId, MultipartFile file, boolean isPrimary) throws IOException;
     
+    // For a file already assembled on local disk (e.g. a chunked upload); the file is moved into storage
+    ProductImage uploadProductImage(Long productId, Path file, String originalFileName, String contentType, boolean isPrimary) throws IOException;
+    
     List<ProductImage> uploadMultipleProductImages(Long productId, MultipartFile[] files) throws IOException;
     
     List<ProductImage> getProductImages(Long productId);
     
     ProductImage getPrimaryProductImage(Long productId);
     
-    void deleteProductImage(Long imageId) throws IOException;
+    void deleteProductImage(Long imageId);
     
-    void deleteAllProductImages(Long productId) throws IOException;
+    void deleteAllProductImages(Long productId);
     
     ProductImage setPrimaryImage(Long productId, Long imageId);
     
     ProductImage updateImageDisplayOrder(Long imageId, Integer displayOrder);
+    
+    // imageIds must list every image of the product exactly once; their positions become the display order
+    List<ProductImage> reorderImages(Long productId, List<Long> imageIds, Long primaryImageId);
 }
\ No newline at end of file
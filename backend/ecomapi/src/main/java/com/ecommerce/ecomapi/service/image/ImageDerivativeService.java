@@ -0,0 +1,251 @@
+package com.ecommerce.ecomapi.service.image;
+
+import com.ecommerce.ecomapi.enums.ImageSize;
+import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
+import com.ecommerce.ecomapi.repository.ProductImageRepository;
+import com.ecommerce.ecomapi.service.file.IFileStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Derivatives live in the original's directory as {stem}_{size}.jpg (JPEG originals) or {stem}_{size}.png (everything else)
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageDerivativeService implements IImageDerivativeService {
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final IFileStorageService fileStorageService;
+    private final ProductImageRepository productImageRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Path, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.images.derivatives.enabled:true}")
+    private boolean derivativesEnabled;
+
+    @Override
+    @Async("imageDerivativeExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImageStored(ProductImageStoredEvent event) {
+        if (!derivativesEnabled || !canDecode(event.fileName())) {
+            return;
+        }
+        try {
+            generateOnce(event.productId(), event.fileName());
+        } catch (Exception e) {
+            log.warn("Generating derivatives of image {} for product {} failed", event.fileName(), event.productId(), e);
+        }
+    }
+
+    @Override
+    public String resolveDerivative(Long productId, String fileName, ImageSize size) {
+        String derivative = derivativeFileName(fileName, size);
+        if (exists(productId, derivative)) {
+            return derivative;
+        }
+        if (!derivativesEnabled || !canDecode(fileName) || isDerivative(fileName)) {
+            return fileName;
+        }
+        try {
+            generateOnce(productId, fileName);
+            return derivative;
+        } catch (ResourceNotFoundException e) {
+            return fileName;
+        } catch (Exception e) {
+            log.warn("Generating derivatives of image {} for product {} failed, serving the original", fileName, productId, e);
+            return fileName;
+        }
+    }
+
+    @Override
+    public String derivativeFileName(String fileName, ImageSize size) {
+        int dot = fileName.lastIndexOf('.');
+        String stem = dot == -1 ? fileName : fileName.substring(0, dot);
+        return stem + "_" + size.name().toLowerCase() + (isJpeg(fileName) ? ".jpg" : ".png");
+    }
+
+    // Single flight per original: the upload's background job and any requests arriving meanwhile share one decode
+    private void generateOnce(Long productId, String fileName) throws IOException {
+        Path original = fileStorageService.loadFile(fileName, directory(productId));
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(original, mine);
+        if (existing != null) {
+            awaitGeneration(existing);
+            return;
+        }
+        try {
+            generate(productId, fileName, original);
+            mine.complete(null);
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(original, mine);
+        }
+    }
+
+    private void generate(Long productId, String fileName, Path original) throws IOException {
+        Map<ImageSize, String> names = new EnumMap<>(ImageSize.class);
+        boolean complete = true;
+        for (ImageSize size : ImageSize.values()) {
+            names.put(size, derivativeFileName(fileName, size));
+            complete &= exists(productId, names.get(size));
+        }
+
+        if (!complete) {
+            BufferedImage image = decode(original, ImageSize.LARGE.getMaxDimension() * 2);
+            if (image == null) {
+                throw new IOException("Unsupported image format: " + fileName);
+            }
+            boolean opaque = isJpeg(fileName);
+            // Largest first, each size scaled from the previous one rather than from the full original
+            for (ImageSize size : List.of(ImageSize.values()).reversed()) {
+                image = scaleToFit(image, size.getMaxDimension(), opaque);
+                write(image, fileStorageService.getFilePath(names.get(size), directory(productId)), opaque);
+                fileStorageService.publishFile(names.get(size), directory(productId));
+            }
+            log.info("Generated derivatives of image {} for product {}", fileName, productId);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> productImageRepository.updateDerivatives(productId, fileName,
+                names.get(ImageSize.THUMBNAIL), names.get(ImageSize.MEDIUM), names.get(ImageSize.LARGE)));
+    }
+
+    // Decodes at a fraction of full resolution when the original is far larger than the biggest derivative needs
+    private static BufferedImage decode(Path original, int minDimension) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longest / minDimension);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves with bilinear filtering until close to the target; one big bilinear step would skip most source pixels
+    private static BufferedImage scaleToFit(BufferedImage source, int maxDimension, boolean opaque) {
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage scaled = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = scaled;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+        return current;
+    }
+
+    private static void write(BufferedImage image, Path target, boolean jpeg) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "derivative-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName(jpeg ? "jpeg" : "png").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if (jpeg) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(JPEG_QUALITY);
+                }
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private boolean exists(Long productId, String fileName) {
+        try {
+            fileStorageService.getFileMetadata(fileName, directory(productId));
+            return true;
+        } catch (ResourceNotFoundException | IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean canDecode(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot != -1 && ImageIO.getImageReadersBySuffix(fileName.substring(dot + 1)).hasNext();
+    }
+
+    private static boolean isDerivative(String fileName) {
+        for (ImageSize size : ImageSize.values()) {
+            if (fileName.contains("_" + size.name().toLowerCase() + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isJpeg(String fileName) {
+        String name = fileName.toLowerCase();
+        return name.endsWith(".jpg") || name.endsWith(".jpeg");
+    }
+
+    private static String directory(Long productId) {
+        return "products/" + productId;
+    }
+
+    private static void awaitGeneration(CompletableFuture<Void> generation) throws IOException {
+        try {
+            generation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+}
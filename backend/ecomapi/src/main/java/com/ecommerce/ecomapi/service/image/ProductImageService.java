@@ -2,34 +2,69 @@ package com.ecommerce.ecomapi.service.image;
 
 import com.ecommerce.ecomapi.entity.Product;
 import com.ecommerce.ecomapi.entity.ProductImage;
+import com.ecommerce.ecomapi.enums.ImageSize;
 import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
 import com.ecommerce.ecomapi.repository.ProductImageRepository;
 import com.ecommerce.ecomapi.repository.ProductRepository;
+import com.ecommerce.ecomapi.service.file.IFileDeletionService;
 import com.ecommerce.ecomapi.service.file.IFileStorageService;
-import lombok.RequiredArgsConstructor;
+import com.ecommerce.ecomapi.service.product.ProductChangedEvent;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ProductImageService implements IProductImageService {
     
     private final ProductImageRepository productImageRepository;
     private final ProductRepository productRepository;
     private final IFileStorageService fileStorageService;
+    private final IImageDerivativeService imageDerivativeService;
+    private final IFileDeletionService fileDeletionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolTaskExecutor uploadExecutor;
     
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
     
+    public ProductImageService(ProductImageRepository productImageRepository,
+                               ProductRepository productRepository,
+                               IFileStorageService fileStorageService,
+                               IImageDerivativeService imageDerivativeService,
+                               IFileDeletionService fileDeletionService,
+                               ApplicationEventPublisher eventPublisher,
+                               @Qualifier("imageUploadExecutor") ThreadPoolTaskExecutor uploadExecutor) {
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+        this.fileStorageService = fileStorageService;
+        this.imageDerivativeService = imageDerivativeService;
+        this.fileDeletionService = fileDeletionService;
+        this.eventPublisher = eventPublisher;
+        this.uploadExecutor = uploadExecutor;
+    }
+    
     @Override
     @Transactional
     public ProductImage uploadProductImage(Long productId, MultipartFile file, boolean isPrimary) throws IOException {
@@ -41,42 +76,68 @@ public class ProductImageService implements IProductImageService {
         
         // If setting as primary, unset current primary
         if (isPrimary) {
-            productImageRepository.findByProductIdAndIsPrimaryTrue(productId)
-                    .ifPresent(currentPrimary -> {
-                        currentPrimary.setIsPrimary(false);
-                        productImageRepository.save(currentPrimary);
-                    });
+            unsetPrimaryImage(productId);
         }
         
         // Store file
         String fileName = fileStorageService.storeProductImage(file, productId);
-        String imageUrl = baseUrl + "/api/images/products/" + productId + "/" + fileName;
+        ProductImage productImage = newProductImage(product, file, fileName, isPrimary, getNextDisplayOrder(productId));
         
-        // Create ProductImage entity
-        ProductImage productImage = new ProductImage();
-        productImage.setProduct(product);
-        productImage.setFileName(fileName);
-        productImage.setOriginalFileName(file.getOriginalFilename());
-        productImage.setContentType(file.getContentType());
-        productImage.setFileSize(file.getSize());
-        productImage.setImageUrl(imageUrl);
-        productImage.setIsPrimary(isPrimary);
-        productImage.setDisplayOrder(getNextDisplayOrder(productId));
+        ProductImage saved = productImageRepository.save(productImage);
+        // Thumbnail and responsive sizes are generated in the background once the upload commits
+        eventPublisher.publishEvent(new ProductImageStoredEvent(productId, fileName));
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        return saved;
+    }
+    
+    @Override
+    @Transactional
+    public ProductImage uploadProductImage(Long productId, Path file, String originalFileName, String contentType,
+                                           boolean isPrimary) throws IOException {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        
+        // No size check here: files arriving this way are bounded by the chunked upload limits instead
+        validateImageType(originalFileName, contentType);
+        long fileSize = Files.size(file);
         
-        return productImageRepository.save(productImage);
+        if (isPrimary) {
+            unsetPrimaryImage(productId);
+        }
+        
+        String fileName = fileStorageService.storeProductImage(file, originalFileName, productId);
+        ProductImage saved = productImageRepository.save(newProductImage(product, fileName, originalFileName,
+                contentType, fileSize, isPrimary, getNextDisplayOrder(productId)));
+        eventPublisher.publishEvent(new ProductImageStoredEvent(productId, fileName));
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        return saved;
     }
     
     @Override
     @Transactional
     public List<ProductImage> uploadMultipleProductImages(Long productId, MultipartFile[] files) throws IOException {
-        List<ProductImage> uploadedImages = new ArrayList<>();
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        
+        // Reject the whole batch before anything is written
+        for (MultipartFile file : files) {
+            validateImageFile(file);
+        }
+        
+        List<String> fileNames = storeFiles(productId, files);
+        registerStoredFiles(productId, fileNames);
         
+        // Primary flag and display order are worked out once for the batch, then all rows are saved together
+        boolean needsPrimary = !hasPrimaryImage(productId);
+        int displayOrder = getNextDisplayOrder(productId);
+        List<ProductImage> productImages = new ArrayList<>(files.length);
         for (int i = 0; i < files.length; i++) {
-            MultipartFile file = files[i];
-            boolean isPrimary = i == 0 && !hasPrimaryImage(productId);
-            uploadedImages.add(uploadProductImage(productId, file, isPrimary));
+            productImages.add(newProductImage(product, files[i], fileNames.get(i), needsPrimary && i == 0, displayOrder + i));
         }
+        List<ProductImage> uploadedImages = productImageRepository.saveAll(productImages);
         
+        fileNames.forEach(fileName -> eventPublisher.publishEvent(new ProductImageStoredEvent(productId, fileName)));
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
         return uploadedImages;
     }
     
@@ -93,61 +154,113 @@ public class ProductImageService implements IProductImageService {
     
     @Override
     @Transactional
-    public void deleteProductImage(Long imageId) throws IOException {
+    public void deleteProductImage(Long imageId) {
         ProductImage productImage = productImageRepository.findById(imageId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product image not found with id: " + imageId));
         
-        // Delete file from storage
-        fileStorageService.deleteProductImage(productImage.getFileName(), productImage.getProduct().getId());
-        
-        // Delete from database
+        // Delete from database; the files follow once this commits
         productImageRepository.delete(productImage);
+        deleteImageFiles(productImage.getProduct().getId(), List.of(productImage.getFileName()));
+        eventPublisher.publishEvent(new ProductChangedEvent(productImage.getProduct().getId()));
         
         log.info("Product image deleted: {}", imageId);
     }
     
     @Override
     @Transactional
-    public void deleteAllProductImages(Long productId) throws IOException {
-        List<ProductImage> images = productImageRepository.findByProductIdOrderByDisplayOrderAsc(productId);
-        
-        for (ProductImage image : images) {
-            fileStorageService.deleteProductImage(image.getFileName(), productId);
-        }
+    public void deleteAllProductImages(Long productId) {
+        List<String> fileNames = productImageRepository.findByProductIdOrderByDisplayOrderAsc(productId).stream()
+                .map(ProductImage::getFileName)
+                .toList();
         
         productImageRepository.deleteByProductId(productId);
+        deleteImageFiles(productId, fileNames);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
         log.info("All product images deleted for product: {}", productId);
     }
     
     @Override
     @Transactional
     public ProductImage setPrimaryImage(Long productId, Long imageId) {
-        // Unset current primary
-        productImageRepository.findByProductIdAndIsPrimaryTrue(productId)
-                .ifPresent(currentPrimary -> {
-                    currentPrimary.setIsPrimary(false);
-                    productImageRepository.save(currentPrimary);
-                });
-        
-        // Set new primary
-        ProductImage newPrimary = productImageRepository.findById(imageId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product image not found with id: " + imageId));
-        
-        if (!newPrimary.getProduct().getId().equals(productId)) {
-            throw new IllegalArgumentException("Image does not belong to the specified product");
-        }
+        List<ProductImage> images = productImageRepository.findByProductIdOrderByDisplayOrderAsc(productId);
+        ProductImage newPrimary = images.stream()
+                .filter(image -> image.getId().equals(imageId))
+                .findFirst()
+                .orElseThrow(() -> imageNotOwned(imageId));
         
-        newPrimary.setIsPrimary(true);
-        return productImageRepository.save(newPrimary);
+        // One UPDATE moves the flag; the loaded (now detached) rows are only brought in line for the response
+        productImageRepository.reorder(productId, List.of(), imageId);
+        applyPrimary(images, imageId);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        return newPrimary;
     }
     
     @Override
+    @Transactional
     public ProductImage updateImageDisplayOrder(Long imageId, Integer displayOrder) {
         ProductImage productImage = productImageRepository.findById(imageId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product image not found with id: " + imageId));
         
         productImage.setDisplayOrder(displayOrder);
-        return productImageRepository.save(productImage);
+        ProductImage saved = productImageRepository.save(productImage);
+        // Without a primary image the listing shows the first one by display order
+        eventPublisher.publishEvent(new ProductChangedEvent(productImage.getProduct().getId()));
+        return saved;
+    }
+    
+    @Override
+    @Transactional
+    public List<ProductImage> reorderImages(Long productId, List<Long> imageIds, Long primaryImageId) {
+        if (imageIds == null || imageIds.isEmpty()) {
+            throw new IllegalArgumentException("Image ids are required");
+        }
+        // One query loads the product's images; ownership is checked against it
+        Map<Long, ProductImage> images = new HashMap<>();
+        for (ProductImage image : productImageRepository.findByProductIdOrderByDisplayOrderAsc(productId)) {
+            images.put(image.getId(), image);
+        }
+        Set<Long> seen = new HashSet<>();
+        for (Long imageId : imageIds) {
+            if (!images.containsKey(imageId)) {
+                throw imageNotOwned(imageId);
+            }
+            if (!seen.add(imageId)) {
+                throw new IllegalArgumentException("Image " + imageId + " is listed more than once");
+            }
+        }
+        if (seen.size() != images.size()) {
+            throw new IllegalArgumentException("Image ids must list every image of the product");
+        }
+        if (primaryImageId != null && !images.containsKey(primaryImageId)) {
+            throw imageNotOwned(primaryImageId);
+        }
+        
+        // One UPDATE rewrites every row; the loaded (now detached) rows are only brought in line for the response
+        productImageRepository.reorder(productId, imageIds, primaryImageId);
+        List<ProductImage> ordered = new ArrayList<>(imageIds.size());
+        for (int i = 0; i < imageIds.size(); i++) {
+            ProductImage image = images.get(imageIds.get(i));
+            image.setDisplayOrder(i);
+            ordered.add(image);
+        }
+        if (primaryImageId != null) {
+            applyPrimary(ordered, primaryImageId);
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        return ordered;
+    }
+    
+    private static void applyPrimary(List<ProductImage> images, Long primaryImageId) {
+        for (ProductImage image : images) {
+            image.setIsPrimary(image.getId().equals(primaryImageId));
+        }
+    }
+    
+    private RuntimeException imageNotOwned(Long imageId) {
+        if (!productImageRepository.existsById(imageId)) {
+            return new ResourceNotFoundException("Product image not found with id: " + imageId);
+        }
+        return new IllegalArgumentException("Image does not belong to the specified product");
     }
     
     private void validateImageFile(MultipartFile file) {
@@ -155,19 +268,21 @@ public class ProductImageService implements IProductImageService {
             throw new IllegalArgumentException("File cannot be empty");
         }
         
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new IllegalArgumentException("File must be an image");
-        }
-        
         // Check file size (5MB limit)
         long maxSize = 5 * 1024 * 1024; // 5MB
         if (file.getSize() > maxSize) {
             throw new IllegalArgumentException("File size cannot exceed 5MB");
         }
         
+        validateImageType(file.getOriginalFilename(), file.getContentType());
+    }
+    
+    private void validateImageType(String originalFileName, String contentType) {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("File must be an image");
+        }
+        
         // Check allowed extensions
-        String originalFileName = file.getOriginalFilename();
         if (originalFileName != null) {
             String extension = originalFileName.toLowerCase();
             if (!extension.endsWith(".jpg") && !extension.endsWith(".jpeg") && 
@@ -178,6 +293,116 @@ public class ProductImageService implements IProductImageService {
         }
     }
     
+    private ProductImage newProductImage(Product product, MultipartFile file, String fileName, boolean isPrimary, int displayOrder) {
+        return newProductImage(product, fileName, file.getOriginalFilename(), file.getContentType(), file.getSize(),
+                isPrimary, displayOrder);
+    }
+    
+    private ProductImage newProductImage(Product product, String fileName, String originalFileName, String contentType,
+                                         long fileSize, boolean isPrimary, int displayOrder) {
+        ProductImage productImage = new ProductImage();
+        productImage.setProduct(product);
+        productImage.setFileName(fileName);
+        productImage.setOriginalFileName(originalFileName);
+        productImage.setContentType(contentType);
+        productImage.setFileSize(fileSize);
+        productImage.setImageUrl(baseUrl + "/api/images/products/" + product.getId() + "/" + fileName);
+        productImage.setIsPrimary(isPrimary);
+        productImage.setDisplayOrder(displayOrder);
+        return productImage;
+    }
+    
+    // Writes the files in parallel on the upload pool; if any write fails, the ones that made it are removed again
+    private List<String> storeFiles(Long productId, MultipartFile[] files) throws IOException {
+        List<CompletableFuture<String>> writes = new ArrayList<>(files.length);
+        for (MultipartFile file : files) {
+            writes.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fileStorageService.storeProductImage(file, productId);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, uploadExecutor));
+        }
+        
+        List<String> fileNames = new ArrayList<>(files.length);
+        Throwable failure = null;
+        for (CompletableFuture<String> write : writes) {
+            try {
+                fileNames.add(write.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (failure == null) {
+            return fileNames;
+        }
+        
+        fileNames.forEach(fileName -> discardStoredFile(productId, fileName));
+        if (failure instanceof UncheckedIOException io) {
+            throw io.getCause();
+        }
+        if (failure instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        throw new IOException("Storing images failed", failure);
+    }
+    
+    // The pool threads stored the files outside this transaction: unpin them once the rows commit, remove them on rollback
+    private void registerStoredFiles(Long productId, List<String> fileNames) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            fileNames.forEach(fileStorageService::releaseReference);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (String fileName : fileNames) {
+                    if (status == STATUS_COMMITTED) {
+                        fileStorageService.releaseReference(fileName);
+                    } else {
+                        discardStoredFile(productId, fileName);
+                    }
+                }
+            }
+        });
+    }
+    
+    private void discardStoredFile(Long productId, String fileName) {
+        fileStorageService.discardStoredFile(fileName, "products/" + productId);
+        if (fileStorageService.isContentAddressed(fileName)) {
+            fileDeletionService.deleteBlobLater(fileName, () -> productImageRepository.existsByFileName(fileName));
+        }
+    }
+    
+    // Shared blobs go only when no ProductImage references them any more, checked once this delete has committed
+    private void deleteImageFiles(Long productId, List<String> fileNames) {
+        List<String> files = new ArrayList<>();
+        for (String fileName : fileNames) {
+            if (fileStorageService.isContentAddressed(fileName)) {
+                fileDeletionService.deleteBlobAfterCommit(fileName, () -> productImageRepository.existsByFileName(fileName));
+                continue;
+            }
+            files.add(fileName);
+            for (ImageSize size : ImageSize.values()) {
+                files.add(imageDerivativeService.derivativeFileName(fileName, size));
+            }
+        }
+        fileDeletionService.deleteAfterCommit(files, "products/" + productId);
+    }
+    
+    private void unsetPrimaryImage(Long productId) {
+        productImageRepository.findByProductIdAndIsPrimaryTrue(productId)
+                .ifPresent(currentPrimary -> {
+                    currentPrimary.setIsPrimary(false);
+                    productImageRepository.save(currentPrimary);
+                });
+    }
+    
     private Integer getNextDisplayOrder(Long productId) {
         long count = productImageRepository.countByProductId(productId);
         return (int) count;
@@ -0,0 +1,5 @@
+package com.ecommerce.ecomapi.service.image;
+
+// Published when a new product image file has been stored
+public record ProductImageStoredEvent(Long productId, String fileName) {
+}
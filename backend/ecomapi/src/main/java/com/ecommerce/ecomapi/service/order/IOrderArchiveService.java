@@ -0,0 +1,13 @@
+package com.ecommerce.ecomapi.service.order;
+
+import com.ecommerce.ecomapi.entity.Order;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface IOrderArchiveService {
+    int archiveOldOrders();
+    Optional<Order> findArchivedOrder(Long orderId);
+    boolean isArchived(Long orderId);
+    List<Order> findArchivedOrdersByUserId(Long userId);
+}
@@ -2,11 +2,14 @@ package com.ecommerce.ecomapi.service.order;
 
 import com.ecommerce.ecomapi.dto.order.OrderRequest;
 import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.enums.OrderStatus;
 
 import java.util.List;
 
 public interface IOrderService {
     Order placeOrder(OrderRequest request);
+    Order checkout(Long userId);
     Order getOrderById(Long id);
     List<Order> getOrdersByUserId(Long userId);
+    Order updateOrderStatus(Long orderId, OrderStatus status);
 }
@@ -0,0 +1,156 @@
+package com.ecommerce.ecomapi.service.order;
+
+import com.ecommerce.ecomapi.entity.ArchivedOrder;
+import com.ecommerce.ecomapi.entity.ArchivedOrderItem;
+import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.entity.OrderItem;
+import com.ecommerce.ecomapi.repository.ArchivedOrderRepository;
+import com.ecommerce.ecomapi.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@Slf4j
+public class OrderArchiveService implements IOrderArchiveService {
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor archiveExecutor;
+
+    @Value("${app.orders.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.orders.archive.after-days:180}")
+    private int afterDays;
+
+    @Value("${app.orders.archive.batch-size:500}")
+    private int batchSize;
+
+    // Breathing room for the hot table between chunks while a large backlog drains
+    @Value("${app.orders.archive.batch-pause-ms:100}")
+    private long batchPauseMs;
+
+    public OrderArchiveService(OrderRepository orderRepository,
+                               ArchivedOrderRepository archivedOrderRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Qualifier("orderArchiveExecutor") ThreadPoolTaskExecutor archiveExecutor) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.archiveExecutor = archiveExecutor;
+    }
+
+    @Scheduled(initialDelayString = "${app.orders.archive.initial-delay-ms:60000}",
+            fixedDelayString = "${app.orders.archive.interval-ms:3600000}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        // Only hands off: the scheduler thread is shared with every other @Scheduled job
+        archiveExecutor.execute(this::archiveInBackground);
+    }
+
+    private void archiveInBackground() {
+        try {
+            archiveOldOrders();
+        } catch (Exception e) {
+            log.error("Order archival run failed", e);
+        }
+    }
+
+    @Override
+    public int archiveOldOrders() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int total = 0;
+
+        // Each chunk is its own short transaction so the hot table is never locked for a whole run
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            if (moved == null || moved == 0) {
+                break;
+            }
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+            if (batchPauseMs > 0) {
+                try {
+                    Thread.sleep(batchPauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Order archival interrupted after {} orders", total);
+                    break;
+                }
+            }
+        }
+
+        if (total > 0) {
+            log.info("Archived {} orders placed before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = orderRepository.findIdsOrderedBefore(cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedOrderRepository.copyOrders(ids);
+        archivedOrderRepository.copyOrderItems(ids);
+        orderRepository.deleteItemsByOrderIds(ids);
+        orderRepository.deleteByIds(ids);
+        return ids.size();
+    }
+
+    @Override
+    public Optional<Order> findArchivedOrder(Long orderId) {
+        return archivedOrderRepository.findWithItemsById(orderId).map(this::toOrder);
+    }
+
+    @Override
+    public boolean isArchived(Long orderId) {
+        return archivedOrderRepository.existsById(orderId);
+    }
+
+    @Override
+    public List<Order> findArchivedOrdersByUserId(Long userId) {
+        return archivedOrderRepository.findWithItemsByUserId(userId).stream()
+                .map(this::toOrder)
+                .toList();
+    }
+
+    // Archived rows are handed out as detached Orders so callers (PDFs, order history) don't care where they live
+    private Order toOrder(ArchivedOrder archived) {
+        Order order = new Order();
+        order.setId(archived.getId());
+        order.setTotalAmount(archived.getTotalAmount());
+        order.setOrderedAt(archived.getOrderedAt());
+        order.setOrderStatus(archived.getOrderStatus());
+        order.setUser(archived.getUser());
+
+        List<OrderItem> items = new ArrayList<>();
+        for (ArchivedOrderItem archivedItem : archived.getItems()) {
+            OrderItem item = new OrderItem();
+            item.setId(archivedItem.getId());
+            item.setQuantity(archivedItem.getQuantity());
+            item.setPrice(archivedItem.getPrice());
+            item.setProduct(archivedItem.getProduct());
+            item.setOrder(order);
+            items.add(item);
+        }
+        order.setItems(items);
+        return order;
+    }
+}
@@ -0,0 +1,5 @@
+package com.ecommerce.ecomapi.service.order;
+
+// Published whenever an order is created or its status changes
+public record OrderChangedEvent(Long orderId) {
+}
@@ -2,6 +2,8 @@ package com.ecommerce.ecomapi.service.order;
 
 import com.ecommerce.ecomapi.dto.order.OrderItemRequest;
 import com.ecommerce.ecomapi.dto.order.OrderRequest;
+import com.ecommerce.ecomapi.entity.Cart;
+import com.ecommerce.ecomapi.entity.CartItem;
 import com.ecommerce.ecomapi.entity.Order;
 import com.ecommerce.ecomapi.entity.OrderItem;
 import com.ecommerce.ecomapi.entity.Product;
@@ -12,13 +14,21 @@ import com.ecommerce.ecomapi.repository.OrderItemRepository;
 import com.ecommerce.ecomapi.repository.OrderRepository;
 import com.ecommerce.ecomapi.repository.ProductRepository;
 import com.ecommerce.ecomapi.repository.UserRepository;
+import com.ecommerce.ecomapi.service.cart.ICartService;
+import com.ecommerce.ecomapi.service.product.ProductChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +38,9 @@ public class OrderService implements IOrderService{
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final IOrderArchiveService orderArchiveService;
+    private final ICartService cartService;
+    private final ApplicationEventPublisher eventPublisher;
     @Override
     public Order placeOrder(OrderRequest request) {
         User user=userRepository.findById(request.getUserId())
@@ -59,17 +72,96 @@ public class OrderService implements IOrderService{
         order.setItems(orderItems);
         order.setTotalAmount(totalAmount);
 
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(saved.getId()));
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public Order checkout(Long userId) {
+        Cart cart = cartService.getCartByUserId(userId);
+        if (cart.getItems() == null || cart.getItems().isEmpty()) {
+            throw new IllegalStateException("Cart is empty");
+        }
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartItem cartItem : cart.getItems()) {
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+        }
+
+        // One locking read for every product in the cart; prices and stock come from here, not from the cart
+        Map<Long, Product> products = productRepository.findAllByIdForUpdate(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Order order = new Order();
+        order.setUser(cart.getUser());
+        order.setOrderedAt(LocalDateTime.now());
+        order.setOrderStatus(OrderStatus.PENDING);
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        BigDecimal totalAmount = BigDecimal.ZERO;
+
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Product product = products.get(entry.getKey());
+            int quantity = entry.getValue();
+            if (product == null || Boolean.FALSE.equals(product.getIsActive())) {
+                throw new ResourceNotFoundException("Product not available with ID: " + entry.getKey());
+            }
+            int stock = product.getStockQuantity() == null ? 0 : product.getStockQuantity();
+            if (stock < quantity) {
+                throw new IllegalStateException("Insufficient stock for product: " + product.getName());
+            }
+            // Stock updates are flushed together with the order inserts
+            product.setStockQuantity(stock - quantity);
+
+            BigDecimal itemPrice = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(quantity);
+            item.setPrice(itemPrice);
+            item.setOrder(order);
+
+            orderItems.add(item);
+            totalAmount = totalAmount.add(itemPrice);
+        }
+
+        order.setItems(orderItems);
+        order.setTotalAmount(totalAmount);
+        Order saved = orderRepository.save(order);
+
+        cartService.clearCart(userId);
+        eventPublisher.publishEvent(new OrderChangedEvent(saved.getId()));
+        // Stock levels shown in listings
+        products.keySet().forEach(productId -> eventPublisher.publishEvent(new ProductChangedEvent(productId)));
+        return saved;
     }
 
     @Override
     public Order getOrderById(Long id) {
         return orderRepository.findById(id)
+                .or(() -> orderArchiveService.findArchivedOrder(id))
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + id));
     }
 
     @Override
     public List<Order> getOrdersByUserId(Long userId) {
-        return orderRepository.findByUserId(userId);
+        List<Order> orders = new ArrayList<>(orderRepository.findByUserId(userId));
+        orders.addAll(orderArchiveService.findArchivedOrdersByUserId(userId));
+        return orders;
+    }
+
+    @Override
+    @Transactional
+    public Order updateOrderStatus(Long orderId, OrderStatus status) {
+        // Archived orders are read-only copies; their status is final once they leave the hot table
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> orderArchiveService.isArchived(orderId)
+                        ? new IllegalStateException("Order " + orderId + " is archived and its status can no longer be changed")
+                        : new ResourceNotFoundException("Order not found with ID: " + orderId));
+        order.setOrderStatus(status);
+        Order saved = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(saved.getId()));
+        return saved;
     }
 }
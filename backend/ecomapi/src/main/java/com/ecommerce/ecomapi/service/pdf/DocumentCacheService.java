@@ -0,0 +1,219 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.entity.OrderItem;
+import com.ecommerce.ecomapi.enums.DocumentType;
+import com.ecommerce.ecomapi.service.order.IOrderService;
+import com.ecommerce.ecomapi.service.order.OrderChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// Rendered order documents live under {upload-dir}/documents/orders/{orderId}/{type}-{version}.pdf
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentCacheService implements IDocumentCacheService {
+
+    private final IOrderService orderService;
+    private final IPdfService pdfService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.documents.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${app.documents.prerender.enabled:true}")
+    private boolean prerenderEnabled;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Path getOrderDocument(Long orderId, DocumentType type) throws IOException {
+        Order order = orderService.getOrderById(orderId);
+        return getOrRender(order, type);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Path> findOrderDocument(Long orderId, DocumentType type) {
+        Order order = orderService.getOrderById(orderId);
+        Path target = documentPath(order, type);
+        return Files.exists(target) ? Optional.of(target) : Optional.empty();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void writeOrderDocument(Long orderId, DocumentType type, OutputStream out) throws IOException {
+        Order order = orderService.getOrderById(orderId);
+        write(order, type, out);
+    }
+
+    @Override
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    @Override
+    public void prerender(Long orderId) {
+        if (!cacheEnabled || !prerenderEnabled) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                Order order = orderService.getOrderById(orderId);
+                for (DocumentType type : DocumentType.values()) {
+                    try {
+                        getOrRender(order, type);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Pre-rendering documents for order {} failed", orderId, e);
+        }
+    }
+
+    @Async("documentTaskExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        prerender(event.orderId());
+    }
+
+    private Path getOrRender(Order order, DocumentType type) throws IOException {
+        Path directory = documentDirectory(order.getId());
+        Path target = documentPath(order, type);
+        if (Files.exists(target)) {
+            return target;
+        }
+
+        // Single flight: concurrent requests for the same document wait for one render
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(target, mine);
+        if (existing != null) {
+            return awaitRender(existing);
+        }
+        try {
+            if (!Files.exists(target)) {
+                render(order, type, directory, target);
+            }
+            mine.complete(target);
+            return target;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(target, mine);
+        }
+    }
+
+    private void render(Order order, DocumentType type, Path directory, Path target) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, type.name().toLowerCase() + "-", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                write(order, type, out);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        deleteStaleVersions(directory, type, target);
+        log.info("Rendered {} document for order {}", type, order.getId());
+    }
+
+    private void write(Order order, DocumentType type, OutputStream out) throws IOException {
+        if (type == DocumentType.INVOICE) {
+            pdfService.writeOrderInvoice(order, out);
+        } else {
+            pdfService.writeOrderPdf(order, out);
+        }
+    }
+
+    private void deleteStaleVersions(Path directory, DocumentType type, Path current) {
+        String prefix = type.name().toLowerCase() + "-";
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().startsWith(prefix))
+                    .filter(file -> file.getFileName().toString().endsWith(".pdf"))
+                    .filter(file -> !file.equals(current))
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            log.warn("Could not delete stale document {}", file, e);
+                        }
+                    });
+        } catch (IOException e) {
+            log.warn("Could not list documents in {}", directory, e);
+        }
+    }
+
+    // Digest of everything the documents print, so any change to the order yields a new file name
+    private String versionOf(Order order) {
+        StringBuilder content = new StringBuilder()
+                .append(order.getOrderStatus()).append('|')
+                .append(order.getOrderedAt()).append('|')
+                .append(order.getTotalAmount()).append('|');
+        if (order.getUser() != null) {
+            content.append(order.getUser().getName()).append('|').append(order.getUser().getEmail()).append('|');
+        }
+        if (order.getItems() != null) {
+            for (OrderItem item : order.getItems()) {
+                content.append(item.getId()).append(',')
+                        .append(item.getProduct() != null ? item.getProduct().getName() : "").append(',')
+                        .append(item.getQuantity()).append(',')
+                        .append(item.getPrice()).append(';');
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path documentPath(Order order, DocumentType type) {
+        return documentDirectory(order.getId()).resolve(type.name().toLowerCase() + "-" + versionOf(order) + ".pdf");
+    }
+
+    private Path documentDirectory(Long orderId) {
+        return Paths.get(uploadDir, "documents", "orders", String.valueOf(orderId)).toAbsolutePath().normalize();
+    }
+
+    private static Path awaitRender(CompletableFuture<Path> render) throws IOException {
+        try {
+            return render.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import com.ecommerce.ecomapi.dto.document.DocumentJob;
+import com.ecommerce.ecomapi.dto.document.DocumentJobStats;
+import com.ecommerce.ecomapi.enums.DocumentJobStatus;
+import com.ecommerce.ecomapi.enums.DocumentType;
+import com.ecommerce.ecomapi.exceptions.CapacityExceededException;
+import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
+import com.ecommerce.ecomapi.service.order.IOrderService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Every on-demand render goes through one bounded executor, so a burst of heavy documents queues (or is rejected)
+// here instead of occupying the request threads that serve the rest of the API
+@Service
+@Slf4j
+public class DocumentJobService implements IDocumentJobService {
+
+    private final IDocumentCacheService documentCacheService;
+    private final IOrderService orderService;
+    private final ThreadPoolTaskExecutor jobExecutor;
+
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, AtomicInteger> activeJobsByUser = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder totalRenderMs = new LongAdder();
+    private final AtomicLong maxRenderMs = new AtomicLong();
+
+    @Value("${app.documents.jobs.per-user-limit:3}")
+    private int perUserLimit;
+
+    @Value("${app.documents.jobs.retention-ms:900000}")
+    private long retentionMs;
+
+    @Value("${app.documents.jobs.sync-timeout-ms:30000}")
+    private long syncTimeoutMs;
+
+    @Value("${app.documents.jobs.sync-max-waiting:4}")
+    private int syncMaxWaiting;
+
+    // Request threads allowed to wait on a synchronous render at once
+    private Semaphore syncWaiters;
+
+    public DocumentJobService(IDocumentCacheService documentCacheService,
+                              IOrderService orderService,
+                              @Qualifier("documentJobExecutor") ThreadPoolTaskExecutor jobExecutor) {
+        this.documentCacheService = documentCacheService;
+        this.orderService = orderService;
+        this.jobExecutor = jobExecutor;
+    }
+
+    @PostConstruct
+    public void init() {
+        syncWaiters = new Semaphore(syncMaxWaiting);
+    }
+
+    @Override
+    public DocumentJob submit(Long orderId, DocumentType type) {
+        if (orderId == null || type == null) {
+            throw new IllegalArgumentException("orderId and type are required");
+        }
+        // The owner comes from the order, like the synchronous path, so the limit can't be dodged by the caller
+        Long userId = orderService.getOrderById(orderId).getUser().getId();
+        AtomicInteger active = acquireUserSlot(userId);
+
+        Job job = new Job(UUID.randomUUID().toString(), userId, orderId, type);
+        jobs.put(job.id, job);
+        try {
+            jobExecutor.execute(() -> run(job, active));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            active.decrementAndGet();
+            rejected.increment();
+            throw new CapacityExceededException("Document queue is full, try again later");
+        }
+        submitted.increment();
+        return job.toDto();
+    }
+
+    @Override
+    public DocumentJob getJob(String jobId) {
+        return findJob(jobId).toDto();
+    }
+
+    @Override
+    public Path getJobDocument(String jobId) {
+        Job job = findJob(jobId);
+        if (job.status != DocumentJobStatus.COMPLETED) {
+            throw new IllegalStateException("Document job is " + job.status);
+        }
+        // A later change to the order replaces the file; the job result is gone with it
+        if (!Files.exists(job.file)) {
+            throw new ResourceNotFoundException("Document is no longer available, submit a new job");
+        }
+        return job.file;
+    }
+
+    @Override
+    public Path renderDocument(Long orderId, DocumentType type) throws IOException {
+        Optional<Path> cached = documentCacheService.findOrderDocument(orderId, type);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        Long userId = orderService.getOrderById(orderId).getUser().getId();
+        // Only a few request threads may park here; once they are all waiting the bulkhead is saturated and
+        // further downloads are turned away at once instead of holding a Tomcat thread each
+        if (!syncWaiters.tryAcquire()) {
+            rejected.increment();
+            throw new CapacityExceededException("Too many documents are rendering, try again shortly");
+        }
+        try {
+            return awaitRender(userId, orderId, type);
+        } finally {
+            syncWaiters.release();
+        }
+    }
+
+    private Path awaitRender(Long userId, Long orderId, DocumentType type) throws IOException {
+        // Counts against the same per-user limit as submitted jobs until the render itself finishes
+        AtomicInteger active = acquireUserSlot(userId);
+        Future<Path> render;
+        try {
+            render = jobExecutor.submit(() -> {
+                try {
+                    return timedRender(orderId, type);
+                } finally {
+                    active.decrementAndGet();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            active.decrementAndGet();
+            rejected.increment();
+            throw new CapacityExceededException("Document queue is full, try again later");
+        }
+        try {
+            return render.get(syncTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for document");
+        } catch (TimeoutException e) {
+            // The render carries on and lands in the cache; only this request gives up waiting
+            throw new CapacityExceededException("Document is still rendering, try again shortly");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Document render failed", e.getCause());
+        }
+    }
+
+    @Override
+    public DocumentJobStats getStats() {
+        ThreadPoolExecutor executor = jobExecutor.getThreadPoolExecutor();
+        long count = renders.sum();
+        return new DocumentJobStats(
+                executor.getQueue().size(),
+                jobExecutor.getQueueCapacity(),
+                executor.getActiveCount(),
+                jobExecutor.getMaxPoolSize(),
+                jobs.size(),
+                submitted.sum(),
+                completed.sum(),
+                failed.sum(),
+                rejected.sum(),
+                count == 0 ? 0 : (double) totalRenderMs.sum() / count,
+                maxRenderMs.get());
+    }
+
+    @Scheduled(fixedDelayString = "${app.documents.jobs.cleanup-interval-ms:60000}")
+    public void removeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(retentionMs * 1_000_000);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+    }
+
+    private void run(Job job, AtomicInteger active) {
+        job.status = DocumentJobStatus.RUNNING;
+        try {
+            job.file = timedRender(job.orderId, job.type);
+            job.completedAt = LocalDateTime.now();
+            job.status = DocumentJobStatus.COMPLETED;
+            completed.increment();
+        } catch (Exception e) {
+            log.warn("Document job {} for order {} failed", job.id, job.orderId, e);
+            job.error = e.getMessage();
+            job.completedAt = LocalDateTime.now();
+            job.status = DocumentJobStatus.FAILED;
+            failed.increment();
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private AtomicInteger acquireUserSlot(Long userId) {
+        AtomicInteger active = activeJobsByUser.computeIfAbsent(userId, id -> new AtomicInteger());
+        if (active.incrementAndGet() > perUserLimit) {
+            active.decrementAndGet();
+            rejected.increment();
+            throw new CapacityExceededException("At most " + perUserLimit + " document jobs can be in progress per user");
+        }
+        return active;
+    }
+
+    private Path timedRender(Long orderId, DocumentType type) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return documentCacheService.getOrderDocument(orderId, type);
+        } finally {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            renders.increment();
+            totalRenderMs.add(elapsedMs);
+            maxRenderMs.accumulateAndGet(elapsedMs, Math::max);
+        }
+    }
+
+    private Job findJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Document job not found");
+        }
+        return job;
+    }
+
+    private static class Job {
+        private final String id;
+        private final Long userId;
+        private final Long orderId;
+        private final DocumentType type;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile DocumentJobStatus status = DocumentJobStatus.QUEUED;
+        private volatile LocalDateTime completedAt;
+        private volatile Path file;
+        private volatile String error;
+
+        private Job(String id, Long userId, Long orderId, DocumentType type) {
+            this.id = id;
+            this.userId = userId;
+            this.orderId = orderId;
+            this.type = type;
+        }
+
+        private DocumentJob toDto() {
+            return new DocumentJob(id, userId, orderId, type, status, submittedAt, completedAt, error);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import com.ecommerce.ecomapi.enums.DocumentType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public interface IDocumentCacheService {
+
+    Path getOrderDocument(Long orderId, DocumentType type) throws IOException;
+
+    // The current rendering if it is already on disk; never renders
+    Optional<Path> findOrderDocument(Long orderId, DocumentType type);
+
+    // Renders straight into the given stream, bypassing the disk cache
+    void writeOrderDocument(Long orderId, DocumentType type, OutputStream out) throws IOException;
+
+    boolean isCacheEnabled();
+
+    void prerender(Long orderId);
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import com.ecommerce.ecomapi.dto.document.DocumentJob;
+import com.ecommerce.ecomapi.dto.document.DocumentJobStats;
+import com.ecommerce.ecomapi.enums.DocumentType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface IDocumentJobService {
+
+    // Counts against the per-user limit of the order's owner
+    DocumentJob submit(Long orderId, DocumentType type);
+
+    DocumentJob getJob(String jobId);
+
+    Path getJobDocument(String jobId);
+
+    // Synchronous render for the download endpoints, bounded by the job bulkhead and the per-user limit;
+    // fails fast once the allowed number of request threads are already waiting
+    Path renderDocument(Long orderId, DocumentType type) throws IOException;
+
+    DocumentJobStats getStats();
+}
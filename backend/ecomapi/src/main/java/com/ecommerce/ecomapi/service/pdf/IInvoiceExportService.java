@@ -0,0 +1,13 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface IInvoiceExportService {
+
+    List<Long> resolveOrderIds(LocalDate from, LocalDate to, List<Long> orderIds);
+
+    void exportInvoices(List<Long> orderIds, OutputStream out) throws IOException;
+}
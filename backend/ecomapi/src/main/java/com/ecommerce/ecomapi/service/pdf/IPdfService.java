@@ -4,12 +4,17 @@ import com.ecommerce.ecomapi.entity.Order;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 public interface IPdfService {
     
     ByteArrayOutputStream generateOrderPdf(Order order) throws IOException;
     
     ByteArrayOutputStream generateOrderInvoice(Order order) throws IOException;
+
+    void writeOrderPdf(Order order, OutputStream out) throws IOException;
+
+    void writeOrderInvoice(Order order, OutputStream out) throws IOException;
     
     byte[] generateOrderReceipt(Long orderId) throws IOException;
 }
\ No newline at end of file
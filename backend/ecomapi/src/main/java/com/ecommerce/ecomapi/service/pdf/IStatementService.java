@@ -0,0 +1,13 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface IStatementService {
+
+    // Checks the user and period up front so errors surface before any bytes are streamed
+    void validateStatement(Long userId, LocalDate from, LocalDate to);
+
+    void writeStatement(Long userId, LocalDate from, LocalDate to, OutputStream out) throws IOException;
+}
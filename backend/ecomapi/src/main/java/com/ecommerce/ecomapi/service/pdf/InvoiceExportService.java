@@ -0,0 +1,203 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import com.ecommerce.ecomapi.enums.DocumentType;
+import com.ecommerce.ecomapi.repository.ArchivedOrderRepository;
+import com.ecommerce.ecomapi.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+@Slf4j
+public class InvoiceExportService implements IInvoiceExportService {
+
+    private final OrderRepository orderRepo;
+    private final ArchivedOrderRepository archivedOrderRepo;
+    private final IDocumentCacheService documentCacheService;
+    private final ThreadPoolTaskExecutor exportExecutor;
+
+    @Value("${app.documents.export.max-orders:5000}")
+    private int maxOrders;
+
+    public InvoiceExportService(OrderRepository orderRepo,
+                                ArchivedOrderRepository archivedOrderRepo,
+                                IDocumentCacheService documentCacheService,
+                                @Qualifier("invoiceExportExecutor") ThreadPoolTaskExecutor exportExecutor) {
+        this.orderRepo = orderRepo;
+        this.archivedOrderRepo = archivedOrderRepo;
+        this.documentCacheService = documentCacheService;
+        this.exportExecutor = exportExecutor;
+    }
+
+    @Override
+    public List<Long> resolveOrderIds(LocalDate from, LocalDate to, List<Long> orderIds) {
+        Set<Long> ids = new TreeSet<>();
+        if (orderIds != null) {
+            orderIds.stream().filter(Objects::nonNull).forEach(ids::add);
+        }
+        if (from != null || to != null) {
+            if (from == null || to == null || to.isBefore(from)) {
+                throw new IllegalArgumentException("Both 'from' and 'to' are required and 'to' cannot be before 'from'");
+            }
+            // 'to' is inclusive, so the range ends at the start of the following day
+            ids.addAll(orderRepo.findIdsOrderedBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+            ids.addAll(archivedOrderRepo.findIdsOrderedBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+        } else if (orderIds == null) {
+            throw new IllegalArgumentException("Provide a date range or a list of order ids");
+        }
+        if (ids.size() > maxOrders) {
+            throw new IllegalArgumentException("An export is limited to " + maxOrders + " orders, got " + ids.size());
+        }
+        return new ArrayList<>(ids);
+    }
+
+    @Override
+    public void exportInvoices(List<Long> orderIds, OutputStream out) throws IOException {
+        CompletionService<RenderedInvoice> completion = new ExecutorCompletionService<>(exportExecutor);
+        TemporaryFiles temporaryFiles = new TemporaryFiles();
+        // Only a small window of renders is outstanding at a time, so memory stays flat however large the export
+        int window = exportExecutor.getMaxPoolSize() * 2;
+        List<Long> failed = new ArrayList<>();
+        int next = 0;
+        int pending = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDFs are already compressed; spend as little CPU as possible deflating them again
+        zip.setLevel(Deflater.BEST_SPEED);
+        try {
+            while (next < orderIds.size() || pending > 0) {
+                while (pending < window && next < orderIds.size()) {
+                    Long orderId = orderIds.get(next++);
+                    completion.submit(() -> render(orderId, temporaryFiles));
+                    pending++;
+                }
+
+                RenderedInvoice invoice = completion.take().get();
+                pending--;
+                try {
+                    if (invoice.file() == null || !addEntry(zip, invoice)) {
+                        failed.add(invoice.orderId());
+                    }
+                } finally {
+                    temporaryFiles.release(invoice.file());
+                }
+            }
+
+            if (!failed.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("failed-orders.txt"));
+                for (Long orderId : failed) {
+                    zip.write((orderId + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+            }
+            zip.finish();
+            zip.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Invoice export interrupted");
+        } catch (ExecutionException e) {
+            // render() never throws, so this only happens if the task itself could not run
+            throw new IOException("Invoice export failed", e.getCause());
+        } finally {
+            // Renders still outstanding when the export stops early clean up after themselves
+            temporaryFiles.close();
+        }
+        log.info("Exported {} invoices ({} failed)", orderIds.size() - failed.size(), failed.size());
+    }
+
+    // The worker hands back a file instead of bytes held in memory: the cached document, or with the cache
+    // disabled a temporary file that is deleted once it has been zipped
+    private RenderedInvoice render(Long orderId, TemporaryFiles temporaryFiles) {
+        try {
+            if (documentCacheService.isCacheEnabled()) {
+                return new RenderedInvoice(orderId, documentCacheService.getOrderDocument(orderId, DocumentType.INVOICE));
+            }
+            Path file = Files.createTempFile("invoice-" + orderId + "-", ".pdf");
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    documentCacheService.writeOrderDocument(orderId, DocumentType.INVOICE, out);
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            return new RenderedInvoice(orderId, temporaryFiles.register(file));
+        } catch (Exception e) {
+            log.warn("Could not render invoice for order {}", orderId, e);
+            return new RenderedInvoice(orderId, null);
+        }
+    }
+
+    private boolean addEntry(ZipOutputStream zip, RenderedInvoice invoice) throws IOException {
+        InputStream in;
+        try {
+            // Opened before the entry is started; an open file survives a concurrent re-render replacing it
+            in = Files.newInputStream(invoice.file());
+        } catch (IOException e) {
+            log.warn("Rendered invoice for order {} disappeared before it was zipped", invoice.orderId(), e);
+            return false;
+        }
+        try (in) {
+            zip.putNextEntry(new ZipEntry("invoice-" + invoice.orderId() + ".pdf"));
+            in.transferTo(zip);
+            zip.closeEntry();
+        }
+        return true;
+    }
+
+    private record RenderedInvoice(Long orderId, Path file) {
+    }
+
+    // Temporary renders of one export; whatever is left when the export ends is deleted, including renders that
+    // finish after it has given up
+    private static final class TemporaryFiles {
+
+        private final Set<Path> files = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Path register(Path file) throws IOException {
+            files.add(file);
+            if (closed.get()) {
+                release(file);
+                throw new InterruptedIOException("Invoice export already ended");
+            }
+            return file;
+        }
+
+        private void release(Path file) {
+            if (file != null && files.remove(file)) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Could not delete temporary invoice {}", file, e);
+                }
+            }
+        }
+
+        private void close() {
+            closed.set(true);
+            List.copyOf(files).forEach(this::release);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import com.ecommerce.ecomapi.entity.User;
+import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
+import com.ecommerce.ecomapi.repository.ArchivedOrderRepository;
+import com.ecommerce.ecomapi.repository.OrderRepository;
+import com.ecommerce.ecomapi.repository.UserRepository;
+import com.ecommerce.ecomapi.service.pdf.template.InvoiceTemplate;
+import com.ecommerce.ecomapi.service.pdf.template.PdfRenderingEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.LongFunction;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatementService implements IStatementService {
+
+    private final UserRepository userRepo;
+    private final OrderRepository orderRepo;
+    private final ArchivedOrderRepository archivedOrderRepo;
+    private final PdfRenderingEngine renderingEngine;
+    private final InvoiceTemplate invoiceTemplate;
+
+    @Value("${app.documents.statement.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.documents.statement.max-days:366}")
+    private int maxDays;
+
+    @Override
+    public void validateStatement(Long userId, LocalDate from, LocalDate to) {
+        validatePeriod(from, to);
+        if (!userRepo.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found");
+        }
+    }
+
+    @Override
+    public void writeStatement(Long userId, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        validatePeriod(from, to);
+        User customer = userRepo.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        LocalDateTime start = from.atStartOfDay();
+        // 'to' is inclusive, so the range ends at the start of the following day
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+
+        // Archived orders are the older ones, so reading them first keeps the statement roughly chronological
+        Iterator<OrderRepository.StatementOrder> archived = new KeysetIterator(
+                afterId -> archivedOrderRepo.findStatementOrders(userId, start, end, afterId, PageRequest.of(0, batchSize)));
+        Iterator<OrderRepository.StatementOrder> hot = new KeysetIterator(
+                afterId -> orderRepo.findStatementOrders(userId, start, end, afterId, PageRequest.of(0, batchSize)));
+
+        renderingEngine.renderStatement(customer, from, to, invoiceTemplate.letterhead(), concat(archived, hot), out);
+        log.info("Streamed statement for user {} ({} - {})", userId, from, to);
+    }
+
+    private void validatePeriod(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Both 'from' and 'to' are required and 'to' cannot be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new IllegalArgumentException("A statement can cover at most " + maxDays + " days");
+        }
+    }
+
+    private static <T> Iterator<T> concat(Iterator<T> first, Iterator<T> second) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return first.hasNext() || second.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return first.hasNext() ? first.next() : second.next();
+            }
+        };
+    }
+
+    // Fetches one page past the last id seen whenever the current page runs out; only one page is ever held
+    private class KeysetIterator implements Iterator<OrderRepository.StatementOrder> {
+
+        private final LongFunction<List<OrderRepository.StatementOrder>> fetch;
+        private List<OrderRepository.StatementOrder> page = List.of();
+        private int position;
+        private long afterId;
+        private boolean exhausted;
+
+        private KeysetIterator(LongFunction<List<OrderRepository.StatementOrder>> fetch) {
+            this.fetch = fetch;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position < page.size()) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            page = fetch.apply(afterId);
+            position = 0;
+            exhausted = page.size() < batchSize;
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+            return !page.isEmpty();
+        }
+
+        @Override
+        public OrderRepository.StatementOrder next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(position++);
+        }
+    }
+}
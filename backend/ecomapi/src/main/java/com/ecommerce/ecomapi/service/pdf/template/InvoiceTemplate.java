@@ -0,0 +1,89 @@
+package com.ecommerce.ecomapi.service.pdf.template;
+
+import com.ecommerce.ecomapi.entity.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Component
+public class InvoiceTemplate implements OrderDocumentTemplate {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final List<String> LETTERHEAD = List.of(
+            "E-Commerce Store", "123 Business Street\nCity, State 12345\nPhone: (555) 123-4567");
+    private static final List<Column> COLUMNS = List.of(
+            new Column("Description", 4), new Column("Qty", 1), new Column("Rate", 2), new Column("Amount", 2));
+
+    @Override
+    public String title() {
+        return "INVOICE";
+    }
+
+    @Override
+    public float titleSize() {
+        return 24;
+    }
+
+    @Override
+    public List<String> letterhead() {
+        return LETTERHEAD;
+    }
+
+    @Override
+    public String detailsHeading() {
+        return null;
+    }
+
+    @Override
+    public List<Row> details(Order order) {
+        return List.of(
+                new Row("Invoice #:", "INV-" + order.getId(), false),
+                new Row("Invoice Date:", order.getOrderedAt().format(DATE), false),
+                new Row("Due Date:", order.getOrderedAt().plusDays(30).format(DATE), false));
+    }
+
+    @Override
+    public String billToHeading() {
+        return "Bill To:";
+    }
+
+    @Override
+    public String itemsHeading() {
+        return null;
+    }
+
+    @Override
+    public List<Column> columns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public float totalsWidthPercent() {
+        return 40;
+    }
+
+    @Override
+    public float totalsMarginLeft() {
+        return 60f;
+    }
+
+    @Override
+    public List<Row> totals(Order order, BigDecimal subtotal) {
+        return List.of(
+                new Row("Subtotal:", "$" + subtotal, false),
+                new Row("Tax (0%):", "$0.00", false),
+                new Row("TOTAL:", "$" + order.getTotalAmount(), true));
+    }
+
+    @Override
+    public String footer() {
+        return "\n\nPayment Terms: Net 30 days";
+    }
+
+    @Override
+    public float footerSize() {
+        return 10;
+    }
+}
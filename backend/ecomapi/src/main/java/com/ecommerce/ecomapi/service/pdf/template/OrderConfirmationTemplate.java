@@ -0,0 +1,88 @@
+package com.ecommerce.ecomapi.service.pdf.template;
+
+import com.ecommerce.ecomapi.entity.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Component
+public class OrderConfirmationTemplate implements OrderDocumentTemplate {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final List<Column> COLUMNS = List.of(
+            new Column("Product", 3), new Column("Qty", 1), new Column("Price", 2), new Column("Total", 2));
+
+    @Override
+    public String title() {
+        return "ORDER CONFIRMATION";
+    }
+
+    @Override
+    public float titleSize() {
+        return 20;
+    }
+
+    @Override
+    public List<String> letterhead() {
+        return List.of();
+    }
+
+    @Override
+    public String detailsHeading() {
+        return "Order Details";
+    }
+
+    @Override
+    public List<Row> details(Order order) {
+        return List.of(
+                new Row("Order ID:", order.getId().toString(), false),
+                new Row("Order Date:", order.getOrderedAt().format(DATE_TIME), false),
+                new Row("Status:", order.getOrderStatus().toString(), false),
+                new Row("Customer:", order.getUser().getName(), false),
+                new Row("Email:", order.getUser().getEmail(), false));
+    }
+
+    @Override
+    public String billToHeading() {
+        return null;
+    }
+
+    @Override
+    public String itemsHeading() {
+        return "Order Items";
+    }
+
+    @Override
+    public List<Column> columns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public float totalsWidthPercent() {
+        return 50;
+    }
+
+    @Override
+    public float totalsMarginLeft() {
+        return 50f;
+    }
+
+    @Override
+    public List<Row> totals(Order order, BigDecimal subtotal) {
+        return List.of(
+                new Row("Subtotal:", "$" + subtotal, false),
+                new Row("Total:", "$" + order.getTotalAmount(), false));
+    }
+
+    @Override
+    public String footer() {
+        return "\n\nThank you for your order!";
+    }
+
+    @Override
+    public float footerSize() {
+        return 12;
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.ecomapi.service.pdf.template;
+
+import com.ecommerce.ecomapi.entity.Order;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Everything that differs between order documents; layout and styling live in PdfRenderingEngine
+public interface OrderDocumentTemplate {
+
+    String title();
+
+    float titleSize();
+
+    // Static fragment printed under the title, e.g. the store letterhead (may be empty)
+    List<String> letterhead();
+
+    // Optional heading above the details table
+    String detailsHeading();
+
+    List<Row> details(Order order);
+
+    // Heading of the customer block printed after the details, or null to leave it out
+    String billToHeading();
+
+    // Optional heading above the items table
+    String itemsHeading();
+
+    List<Column> columns();
+
+    float totalsWidthPercent();
+
+    float totalsMarginLeft();
+
+    List<Row> totals(Order order, BigDecimal subtotal);
+
+    String footer();
+
+    float footerSize();
+
+    record Row(String label, String value, boolean emphasised) {
+    }
+
+    record Column(String label, float width) {
+    }
+}
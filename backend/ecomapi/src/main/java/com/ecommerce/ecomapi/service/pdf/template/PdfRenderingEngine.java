@@ -0,0 +1,259 @@
+package com.ecommerce.ecomapi.service.pdf.template;
+
+import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.entity.OrderItem;
+import com.ecommerce.ecomapi.entity.User;
+import com.ecommerce.ecomapi.repository.OrderRepository;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.BlockElement;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Renders any OrderDocumentTemplate. The font program and style definitions are shared by every render;
+// only the per-document PdfFont wrapper and the order-specific content are created each time.
+@Component
+public class PdfRenderingEngine {
+
+    private static final int FLUSH_EVERY_ROWS = 50;
+    private static final float DEFAULT_FONT_SIZE = 12;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // Shared style definitions. They are applied as plain element properties rather than attached as iText Style
+    // objects, which layout would re-scan on every property lookup. Bold and italic are simulated from the one
+    // regular font, so each document carries a single font dictionary.
+    private static final Consumer<BlockElement<?>> BOLD = element -> element.setBold();
+    private static final Consumer<BlockElement<?>> TITLE = element -> {
+        element.setBold();
+        element.setTextAlignment(TextAlignment.CENTER);
+        element.setMarginBottom(20);
+    };
+    private static final Consumer<BlockElement<?>> SECTION = element -> {
+        element.setBold();
+        element.setFontSize(16);
+        element.setMarginBottom(10);
+    };
+    private static final Consumer<BlockElement<?>> LETTERHEAD = element -> {
+        element.setBold();
+        element.setFontSize(16);
+    };
+    private static final Consumer<BlockElement<?>> BILL_TO = element -> {
+        element.setBold();
+        element.setFontSize(14);
+    };
+    private static final Consumer<BlockElement<?>> HEADER_CELL = element -> {
+        element.setBold();
+        element.setBackgroundColor(ColorConstants.LIGHT_GRAY);
+        element.setTextAlignment(TextAlignment.CENTER);
+    };
+    private static final Consumer<BlockElement<?>> BLOCK = element -> element.setMarginBottom(20);
+    private static final Consumer<BlockElement<?>> FOOTER = element -> {
+        element.setItalic();
+        element.setTextAlignment(TextAlignment.CENTER);
+    };
+
+    private final FontProgram regularProgram;
+
+    public PdfRenderingEngine() {
+        try {
+            this.regularProgram = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load PDF fonts", e);
+        }
+    }
+
+    public void render(OrderDocumentTemplate template, Order order, OutputStream out) throws IOException {
+        Document document = openDocument(out);
+
+        try {
+            document.add(styled(new Paragraph(template.title()), TITLE).setFontSize(template.titleSize()));
+            addLetterhead(document, template.letterhead());
+
+            addHeading(document, template.detailsHeading());
+            Table detailsTable = new Table(2);
+            detailsTable.setWidth(UnitValue.createPercentValue(100));
+            addRows(detailsTable, template.details(order));
+            document.add(detailsTable);
+            document.add(new Paragraph("\n"));
+
+            if (template.billToHeading() != null) {
+                document.add(styled(new Paragraph(template.billToHeading()), BILL_TO));
+                document.add(styled(new Paragraph(order.getUser().getName() + "\n" + order.getUser().getEmail()), BLOCK));
+            }
+
+            addHeading(document, template.itemsHeading());
+            BigDecimal subtotal = addItems(document, template.columns(), order.getItems());
+            document.add(new Paragraph("\n"));
+
+            Table totalsTable = new Table(2);
+            totalsTable.setWidth(UnitValue.createPercentValue(template.totalsWidthPercent()));
+            totalsTable.setMarginLeft(template.totalsMarginLeft());
+            addRows(totalsTable, template.totals(order, subtotal));
+            document.add(totalsTable);
+
+            document.add(styled(new Paragraph(template.footer()), FOOTER).setFontSize(template.footerSize()));
+        } finally {
+            document.close();
+        }
+    }
+
+    // Statement rows arrive from a lazy iterator and are flushed in batches, so pages go out as they fill up and
+    // memory stays flat however many orders the period covers
+    public void renderStatement(User customer, LocalDate from, LocalDate to, List<String> letterhead,
+                                Iterator<OrderRepository.StatementOrder> orders, OutputStream out) throws IOException {
+        Document document = openDocument(out);
+
+        try {
+            document.add(styled(new Paragraph("STATEMENT"), TITLE).setFontSize(24));
+            addLetterhead(document, letterhead);
+
+            Table detailsTable = new Table(2);
+            detailsTable.setWidth(UnitValue.createPercentValue(100));
+            addRows(detailsTable, List.of(
+                    new OrderDocumentTemplate.Row("Customer:", customer.getName(), false),
+                    new OrderDocumentTemplate.Row("Email:", customer.getEmail(), false),
+                    new OrderDocumentTemplate.Row("Period:", from.format(DATE) + " - " + to.format(DATE), false),
+                    new OrderDocumentTemplate.Row("Issued:", LocalDate.now().format(DATE), false)));
+            document.add(detailsTable);
+            document.add(new Paragraph("\n"));
+
+            Table ordersTable = new Table(new float[] { 2, 2, 2, 1, 2 }, true);
+            ordersTable.setWidth(UnitValue.createPercentValue(100));
+            for (String header : List.of("Date", "Order #", "Status", "Items", "Amount")) {
+                ordersTable.addHeaderCell(styled(cell(header), HEADER_CELL));
+            }
+            document.add(ordersTable);
+
+            long orderCount = 0;
+            BigDecimal total = BigDecimal.ZERO;
+            while (orders.hasNext()) {
+                OrderRepository.StatementOrder order = orders.next();
+                ordersTable.addCell(cell(order.getOrderedAt().format(DATE)));
+                ordersTable.addCell(cell(order.getId().toString()));
+                ordersTable.addCell(cell(order.getOrderStatus().toString()));
+                ordersTable.addCell(cell(String.valueOf(order.getItemCount())));
+                ordersTable.addCell(cell("$" + order.getTotalAmount()));
+                total = total.add(order.getTotalAmount());
+
+                if (++orderCount % FLUSH_EVERY_ROWS == 0) {
+                    ordersTable.flush();
+                }
+            }
+            ordersTable.complete();
+            document.add(new Paragraph("\n"));
+
+            Table totalsTable = new Table(2);
+            totalsTable.setWidth(UnitValue.createPercentValue(40));
+            totalsTable.setMarginLeft(60f);
+            addRows(totalsTable, List.of(
+                    new OrderDocumentTemplate.Row("Orders:", String.valueOf(orderCount), false),
+                    new OrderDocumentTemplate.Row("TOTAL:", "$" + total, true)));
+            document.add(totalsTable);
+        } finally {
+            document.close();
+        }
+    }
+
+    // Pages are written to the stream as soon as they are laid out; the caller owns (and closes) the stream
+    private Document openDocument(OutputStream out) {
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        PdfDocument pdfDoc = new PdfDocument(writer);
+        Document document = new Document(pdfDoc, PageSize.A4, true);
+        // PdfFont objects belong to a single PdfDocument, so only the parsed program can be shared
+        document.setFont(PdfFontFactory.createFont(regularProgram));
+        // Set explicitly so inherited font-size lookups find it on the document instead of building iText's default
+        // value afresh each time
+        document.setFontSize(DEFAULT_FONT_SIZE);
+        return document;
+    }
+
+    private BigDecimal addItems(Document document, List<OrderDocumentTemplate.Column> columns,
+                                List<OrderItem> items) {
+        float[] widths = new float[columns.size()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = columns.get(i).width();
+        }
+        Table itemsTable = new Table(widths, true);
+        itemsTable.setWidth(UnitValue.createPercentValue(100));
+        for (OrderDocumentTemplate.Column column : columns) {
+            itemsTable.addHeaderCell(styled(cell(column.label()), HEADER_CELL));
+        }
+        document.add(itemsTable);
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        int row = 0;
+        for (OrderItem item : items) {
+            BigDecimal itemTotal = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+            itemsTable.addCell(cell(item.getProduct().getName()));
+            itemsTable.addCell(cell(String.valueOf(item.getQuantity())));
+            itemsTable.addCell(cell("$" + item.getPrice()));
+            itemsTable.addCell(cell("$" + itemTotal));
+            subtotal = subtotal.add(itemTotal);
+
+            // Lay out and write finished rows so long orders never sit in memory as one table
+            if (++row % FLUSH_EVERY_ROWS == 0) {
+                itemsTable.flush();
+            }
+        }
+        itemsTable.complete();
+        return subtotal;
+    }
+
+    private static void addLetterhead(Document document, List<String> letterhead) {
+        for (int i = 0; i < letterhead.size(); i++) {
+            // First line is the store name, the rest is the address block
+            Paragraph line = new Paragraph(letterhead.get(i));
+            if (i == 0) {
+                styled(line, LETTERHEAD);
+            } else if (i == letterhead.size() - 1) {
+                styled(line, BLOCK);
+            }
+            document.add(line);
+        }
+    }
+
+    private static void addHeading(Document document, String heading) {
+        if (heading != null) {
+            document.add(styled(new Paragraph(heading), SECTION));
+        }
+    }
+
+    private static void addRows(Table table, List<OrderDocumentTemplate.Row> rows) {
+        for (OrderDocumentTemplate.Row row : rows) {
+            table.addCell(styled(cell(row.label()), BOLD));
+            Cell value = cell(row.value());
+            table.addCell(row.emphasised() ? styled(value, BOLD) : value);
+        }
+    }
+
+    private static <T extends BlockElement<T>> T styled(T element, Consumer<BlockElement<?>> style) {
+        style.accept(element);
+        return element;
+    }
+
+    private static Cell cell(String content) {
+        return new Cell().add(new Paragraph(content));
+    }
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.ecomapi.service.product;
+
+import com.ecommerce.ecomapi.dto.product.ListingConsistencyReport;
+import com.ecommerce.ecomapi.entity.ProductListing;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface IProductListingService {
+    List<ProductListing> getAllListings();
+    Page<ProductListing> getListingsPage(int pageNo, int pageSize);
+    List<ProductListing> searchListingsByName(String name);
+    List<ProductListing> getListingsByCategory(Long categoryId);
+    List<ProductListing> getListingsByBrand(String brand);
+    List<ProductListing> getListingsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
+    List<ProductListing> getActiveListings();
+    List<ProductListing> filterListings(String name, String brand, Long categoryId,
+                                        BigDecimal minPrice, BigDecimal maxPrice, Boolean isActive);
+
+    // Recomputes every row from the products, in batches; returns the number of rows written
+    int rebuild();
+
+    // Compares every row with what it should be; with repair, rewrites the ones that differ
+    ListingConsistencyReport checkConsistency(boolean repair);
+}
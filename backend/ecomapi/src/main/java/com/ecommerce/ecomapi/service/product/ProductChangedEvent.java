@@ -0,0 +1,5 @@
+package com.ecommerce.ecomapi.service.product;
+
+// Published whenever a product, its category or its images change
+public record ProductChangedEvent(Long productId) {
+}
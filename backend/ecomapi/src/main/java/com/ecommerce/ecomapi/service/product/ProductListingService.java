@@ -0,0 +1,291 @@
+package com.ecommerce.ecomapi.service.product;
+
+import com.ecommerce.ecomapi.dto.product.ListingConsistencyReport;
+import com.ecommerce.ecomapi.entity.Product;
+import com.ecommerce.ecomapi.entity.ProductListing;
+import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
+import com.ecommerce.ecomapi.repository.CategoryRepository;
+import com.ecommerce.ecomapi.repository.ProductImageRepository;
+import com.ecommerce.ecomapi.repository.ProductListingRepository;
+import com.ecommerce.ecomapi.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Maintains the product_listing read model. Writers publish ProductChangedEvent; the products changed in a transaction
+// are collected and their rows recomputed once, right after that transaction commits (a rolled back write leaves
+// them untouched). Rows a failed refresh left stale are found and repaired by checkConsistency
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductListingService implements IProductListingService {
+
+    private static final int SAMPLE_SIZE = 100;
+
+    private final ProductListingRepository listingRepository;
+    private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.products.listing.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.products.listing.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Override
+    public List<ProductListing> getAllListings() {
+        return listingRepository.findAll();
+    }
+
+    @Override
+    public Page<ProductListing> getListingsPage(int pageNo, int pageSize) {
+        return listingRepository.findAll(PageRequest.of(pageNo, pageSize));
+    }
+
+    @Override
+    public List<ProductListing> searchListingsByName(String name) {
+        return listingRepository.findByNameContainingIgnoreCase(name);
+    }
+
+    @Override
+    public List<ProductListing> getListingsByCategory(Long categoryId) {
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category not found with ID: " + categoryId);
+        }
+        return listingRepository.findByCategoryId(categoryId);
+    }
+
+    @Override
+    public List<ProductListing> getListingsByBrand(String brand) {
+        return listingRepository.findByBrandContainingIgnoreCase(brand);
+    }
+
+    @Override
+    public List<ProductListing> getListingsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return listingRepository.findByPriceBetween(minPrice, maxPrice);
+    }
+
+    @Override
+    public List<ProductListing> getActiveListings() {
+        return listingRepository.findByIsActiveTrue();
+    }
+
+    @Override
+    public List<ProductListing> filterListings(String name, String brand, Long categoryId,
+                                               BigDecimal minPrice, BigDecimal maxPrice, Boolean isActive) {
+        return listingRepository.findWithFilters(name, brand, categoryId, minPrice, maxPrice, isActive);
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            refreshCommitted(List.of(event.productId()));
+            return;
+        }
+        changedInTransaction().add(event.productId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Long> changedInTransaction() {
+        Set<Long> changed = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (changed != null) {
+            return changed;
+        }
+        Set<Long> created = new LinkedHashSet<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refreshCommitted(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ProductListingService.this);
+            }
+        });
+        return created;
+    }
+
+    // Projecting in the writing transaction would read its REPEATABLE READ snapshot, so a concurrent write (e.g. a
+    // category rename) committed meanwhile could be overwritten with stale values. A transaction of its own locks the
+    // product rows first: refreshes of the same product take turns, and each reads what was committed before its
+    // lock was granted
+    private void refreshCommitted(Collection<Long> productIds) {
+        TransactionTemplate refreshTransaction = new TransactionTemplate(transactionManager);
+        refreshTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            refreshTransaction.executeWithoutResult(status -> {
+                productRepository.findAllByIdForUpdate(productIds);
+                refresh(productIds);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the listing rows of products {}", productIds, e);
+        }
+    }
+
+    // Existing deployments start with an empty table
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (rebuildOnStartup && listingRepository.count() == 0 && productRepository.count() > 0) {
+            log.info("Product listing read model is empty, rebuilding it");
+            rebuild();
+        }
+    }
+
+    @Override
+    public int rebuild() {
+        long started = System.currentTimeMillis();
+        int written = 0;
+        Long after = 0L;
+        while (true) {
+            List<Long> ids = productRepository.findIdsAfter(after, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer batch = transactionTemplate.execute(status -> refresh(ids));
+            written += batch == null ? 0 : batch;
+            after = ids.get(ids.size() - 1);
+        }
+        Integer removed = transactionTemplate.execute(status -> removeOrphanedRows());
+        log.info("Rebuilt product listing read model: {} rows written, {} removed in {} ms",
+                written, removed, System.currentTimeMillis() - started);
+        return written;
+    }
+
+    @Override
+    public ListingConsistencyReport checkConsistency(boolean repair) {
+        long started = System.currentTimeMillis();
+        long checked = 0;
+        int missing = 0;
+        int stale = 0;
+        List<Long> sample = new ArrayList<>();
+        Long after = 0L;
+        while (true) {
+            List<Long> ids = productRepository.findIdsAfter(after, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            int[] counts = transactionTemplate.execute(status -> {
+                Map<Long, ProductListing> expected = project(ids);
+                Map<Long, ProductListing> actual = listingRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(ProductListing::getId, Function.identity()));
+                List<ProductListing> inconsistent = new ArrayList<>();
+                int missingInBatch = 0;
+                for (ProductListing row : expected.values()) {
+                    ProductListing current = actual.get(row.getId());
+                    if (current == null) {
+                        missingInBatch++;
+                    } else if (current.equals(row)) {
+                        continue;
+                    }
+                    inconsistent.add(row);
+                    if (sample.size() < SAMPLE_SIZE) {
+                        sample.add(row.getId());
+                    }
+                }
+                if (repair) {
+                    listingRepository.saveAll(inconsistent);
+                }
+                return new int[]{missingInBatch, inconsistent.size() - missingInBatch};
+            });
+            checked += ids.size();
+            missing += counts[0];
+            stale += counts[1];
+            after = ids.get(ids.size() - 1);
+        }
+        int orphaned = repair
+                ? transactionTemplate.execute(status -> removeOrphanedRows())
+                : listingRepository.findOrphanedIds().size();
+        if (missing + stale + orphaned > 0) {
+            log.warn("Product listing read model inconsistent: {} missing, {} stale, {} orphaned rows{}",
+                    missing, stale, orphaned, repair ? " (repaired)" : "");
+        }
+        return new ListingConsistencyReport(checked, missing, stale, orphaned, repair,
+                System.currentTimeMillis() - started, LocalDateTime.now(), sample);
+    }
+
+    // Rewrites the rows of these products (and drops rows of deleted ones); unchanged rows are not written
+    private int refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        Map<Long, ProductListing> expected = project(productIds);
+        Map<Long, ProductListing> actual = listingRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductListing::getId, Function.identity()));
+
+        List<ProductListing> changed = expected.values().stream()
+                .filter(row -> !row.equals(actual.get(row.getId())))
+                .toList();
+        listingRepository.saveAll(changed);
+
+        List<Long> deleted = actual.keySet().stream()
+                .filter(id -> !expected.containsKey(id))
+                .toList();
+        if (!deleted.isEmpty()) {
+            listingRepository.deleteAllByIdInBatch(deleted);
+        }
+        return changed.size();
+    }
+
+    private int removeOrphanedRows() {
+        List<Long> orphaned = listingRepository.findOrphanedIds();
+        if (!orphaned.isEmpty()) {
+            listingRepository.deleteAllByIdInBatch(orphaned);
+        }
+        return orphaned.size();
+    }
+
+    // What the rows of these products should contain; two queries however many products there are
+    private Map<Long, ProductListing> project(Collection<Long> productIds) {
+        Map<Long, Object[]> listingImages = new HashMap<>();
+        for (Object[] image : productImageRepository.findListingImages(productIds)) {
+            listingImages.putIfAbsent((Long) image[0], image);
+        }
+        Map<Long, ProductListing> rows = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            Object[] image = listingImages.get(product.getId());
+            rows.put(product.getId(), new ProductListing(
+                    product.getId(),
+                    product.getName(),
+                    product.getBrand(),
+                    product.getModel(),
+                    product.getSku(),
+                    product.getPrice(),
+                    product.getStockQuantity(),
+                    product.getIsActive(),
+                    product.getCreatedAt(),
+                    product.getUpdatedAt(),
+                    product.getCategory() == null ? null : product.getCategory().getId(),
+                    product.getCategory() == null ? null : product.getCategory().getName(),
+                    image == null ? null : (Long) image[1],
+                    image == null ? null : (String) image[2]));
+        }
+        return rows;
+    }
+}
@@ -6,11 +6,14 @@ import com.ecommerce.ecomapi.exceptions.AlreadyExistsException;
 import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
 import com.ecommerce.ecomapi.repository.CategoryRepository;
 import com.ecommerce.ecomapi.repository.ProductRepository;
+import com.ecommerce.ecomapi.service.image.IProductImageService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -20,7 +23,10 @@ import java.util.List;
 public class ProductService implements IProductService{
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final IProductImageService productImageService;
+    private final ApplicationEventPublisher eventPublisher;
     @Override
+    @Transactional
     public Product addProduct(Product product) {
         if (productRepository.existsByName(product.getName())) {
             throw new AlreadyExistsException("Product with name " + product.getName() + " already exists.");
@@ -33,7 +39,9 @@ public class ProductService implements IProductService{
 
         product.setCategory(category);
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
@@ -48,6 +56,7 @@ public class ProductService implements IProductService{
     }
 
     @Override
+    @Transactional
     public Product updateProduct(Product product, Long id) {
         Product existedProduct = getProductById(id);
         existedProduct.setName(product.getName());
@@ -85,13 +94,19 @@ public class ProductService implements IProductService{
             existedProduct.setCategory(category);
         }
         
-        return productRepository.save(existedProduct);
+        Product saved = productRepository.save(existedProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
+        return saved;
     }
 
     @Override
+    @Transactional
     public void deleteProduct(Long id) {
         Product existedProduct =getProductById(id);
+        // The image rows would cascade anyway, but this also removes their files once the delete commits
+        productImageService.deleteAllProductImages(id);
         productRepository.delete(existedProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
     }
 
     @Override
@@ -4,16 +4,20 @@ import com.ecommerce.ecomapi.entity.User;
 import com.ecommerce.ecomapi.exceptions.AlreadyExistsException;
 import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
 import com.ecommerce.ecomapi.repository.UserRepository;
+import com.ecommerce.ecomapi.service.auth.ITokenRevocationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class UserService implements IUserService{
 
     private final UserRepository userRepo;
+    private final ITokenRevocationService tokenRevocationService;
     @Override
     public User registerUser(User user) {
         if (userRepo.existsByEmail(user.getEmail())) {
@@ -34,18 +38,25 @@ public class UserService implements IUserService{
     }
 
     @Override
+    @Transactional
     public void deleteUser(Long id) {
         User user = getUserById(id);
         if(user ==null){
             throw new ResourceNotFoundException("User not found with id: " + id);
         }else{
+            tokenRevocationService.revokeTokens(user);
             userRepo.delete(user);
         }
     }
 
     @Override
+    @Transactional
     public User updateUser(Long id, User user) {
         User existing = getUserById(id);
+        // Access tokens carry the email as subject, and a new password should sign out other sessions
+        if (!Objects.equals(existing.getEmail(), user.getEmail()) || !Objects.equals(existing.getPassword(), user.getPassword())) {
+            tokenRevocationService.revokeTokens(existing);
+        }
         existing.setName(user.getName());
         existing.setEmail(user.getEmail());
         existing.setPassword(user.getPassword());
@@ -0,0 +1,153 @@
+package com.ecommerce.ecomapi.utils;
+
+import java.util.*;
+
+// Hashed hierarchical timing wheel: schedule, reschedule and cancel are O(1), and advancing only
+// touches the slot under the cursor (plus a cascade from the coarser wheel when the finer one wraps)
+public class HierarchicalTimingWheel<K> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] slotSpanMs;
+    private final List<Set<K>>[] wheels;
+    private final Map<K, Timer> timers = new HashMap<>();
+    private final List<K> overdue = new ArrayList<>();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, int levels, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.slotSpanMs = new long[levels];
+        this.wheels = new List[levels];
+
+        long span = tickMs;
+        for (int level = 0; level < levels; level++) {
+            slotSpanMs[level] = span;
+            List<Set<K>> slots = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                slots.add(new LinkedHashSet<>());
+            }
+            wheels[level] = slots;
+            span *= wheelSize;
+        }
+        this.currentTick = startMs / tickMs;
+    }
+
+    // Schedules (or reschedules) a key to expire at the given wall-clock time
+    public synchronized void schedule(K key, long expiresAtMs) {
+        cancel(key);
+        Timer timer = new Timer(expiresAtMs);
+        timers.put(key, timer);
+        place(key, timer);
+    }
+
+    public synchronized boolean cancel(K key) {
+        Timer timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        if (timer.slot != null) {
+            timer.slot.remove(key);
+        } else {
+            overdue.remove(key);
+        }
+        return true;
+    }
+
+    // Moves the cursor up to nowMs and returns every key whose deadline has passed
+    public synchronized List<K> advance(long nowMs) {
+        List<K> expired = new ArrayList<>();
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(1);
+            drain(wheels[0].get((int) (currentTick % wheelSize)), expired);
+        }
+
+        // Keys scheduled in the past, or cascaded straight onto the cursor, are due as well
+        for (K key : overdue) {
+            timers.remove(key);
+            expired.add(key);
+        }
+        overdue.clear();
+        return expired;
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    private void cascade(int level) {
+        if (level >= wheels.length) {
+            return;
+        }
+        // A coarser slot is redistributed only when every finer wheel below it has wrapped around
+        long ticksPerSlot = slotSpanMs[level] / tickMs;
+        if (currentTick % ticksPerSlot != 0) {
+            return;
+        }
+        cascade(level + 1);
+        Set<K> slot = wheels[level].get((int) ((currentTick / ticksPerSlot) % wheelSize));
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>(slot);
+        slot.clear();
+        for (K key : keys) {
+            place(key, timers.get(key));
+        }
+    }
+
+    private void drain(Set<K> slot, List<K> expired) {
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>(slot);
+        slot.clear();
+        long nowMs = currentTick * tickMs;
+        for (K key : keys) {
+            Timer timer = timers.get(key);
+            if (timer.expiresAtMs <= nowMs) {
+                timers.remove(key);
+                expired.add(key);
+            } else {
+                place(key, timer);
+            }
+        }
+    }
+
+    private void place(K key, Timer timer) {
+        long expiresTick = timer.expiresAtMs / tickMs;
+        long delayTicks = expiresTick - currentTick;
+        if (delayTicks <= 0) {
+            timer.slot = null;
+            overdue.add(key);
+            return;
+        }
+
+        int level = 0;
+        while (level < wheels.length - 1 && delayTicks >= (slotSpanMs[level + 1] / tickMs)) {
+            level++;
+        }
+        long ticksPerSlot = slotSpanMs[level] / tickMs;
+        // Deadlines beyond the top wheel park in its furthest slot and get re-placed when it comes round
+        long maxTick = currentTick + ticksPerSlot * (wheelSize - 1);
+        long slotTick = Math.min(expiresTick, maxTick);
+        Set<K> slot = wheels[level].get((int) ((slotTick / ticksPerSlot) % wheelSize));
+        slot.add(key);
+        timer.slot = slot;
+    }
+
+    private class Timer {
+        private final long expiresAtMs;
+        private Set<K> slot;
+
+        private Timer(long expiresAtMs) {
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.ecomapi.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Hands file bodies to Tomcat's sendfile so the kernel copies them straight to the socket
+public final class SendfileSupport {
+
+    private static final String SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    private SendfileSupport() {
+    }
+
+    public static boolean isSupported(HttpServletRequest request) {
+        return request != null && Boolean.TRUE.equals(request.getAttribute(SUPPORT_ATTRIBUTE));
+    }
+
+    // Serves bytes [start, end) of the file; the caller must set Content-Length and must not write a body
+    public static void sendfile(HttpServletRequest request, Path file, long start, long end) throws IOException {
+        request.setAttribute(FILENAME_ATTRIBUTE, file.toRealPath().toString());
+        request.setAttribute(START_ATTRIBUTE, start);
+        request.setAttribute(END_ATTRIBUTE, end);
+    }
+}
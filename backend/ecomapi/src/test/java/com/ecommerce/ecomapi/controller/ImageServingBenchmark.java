@@ -0,0 +1,167 @@
+package com.ecommerce.ecomapi.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Serving one product image to a client, the three ways ImageController has written the body:
+//   bytes    - the old loadFileAsBytes path: the whole file read into a byte[], wrapped in a ByteArrayResource
+//   stream   - FileSystemResource copied through the heap in small buffers (small files, HEAD, multi-range)
+//              and on connectors without sendfile
+//   sendfile - FileChannel.transferTo into the socket, the sendfile(2) call Tomcat makes for sendfile requests
+// Each JMH thread is one client connection over loopback, drained by its own reader, so the numbers include real
+// socket writes. Read throughput (images/s) and gc.alloc.rate.norm (bytes per image). The default runs 16 clients;
+// main also runs 1 and 64, or pass -t on the command line. Run like PdfStreamingBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class ImageServingBenchmark {
+
+	@Param({"65536", "1048576"})
+	public int size;
+
+	private Path image;
+	private ServerSocketChannel server;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		byte[] content = new byte[size];
+		new Random(42).nextBytes(content);
+		image = Files.createTempFile("image-serving-", ".jpg");
+		Files.write(image, content);
+
+		server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+		Thread.ofPlatform().daemon().name("image-serving-accept").start(this::acceptClients);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		server.close();
+		Files.deleteIfExists(image);
+	}
+
+	// Stands in for the browsers: every connection is read and discarded as fast as it arrives
+	private void acceptClients() {
+		while (server.isOpen()) {
+			try {
+				SocketChannel client = server.accept();
+				Thread.ofPlatform().daemon().name("image-serving-client").start(() -> drain(client));
+			} catch (IOException e) {
+				return;
+			}
+		}
+	}
+
+	private static void drain(SocketChannel client) {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+		try (client) {
+			while (client.read(buffer) >= 0) {
+				buffer.clear();
+			}
+		} catch (IOException e) {
+			// connection closed at the end of the trial
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Connection {
+		SocketChannel socket;
+		// The servlet response: heap bodies are copied into an 8 KB socket buffer, as Tomcat does
+		OutputStream response;
+
+		@Setup(Level.Trial)
+		public void connect(ImageServingBenchmark benchmark) throws IOException {
+			socket = SocketChannel.open(benchmark.server.getLocalAddress());
+			response = new BufferedOutputStream(Channels.newOutputStream(socket), 8 * 1024);
+		}
+
+		@TearDown(Level.Trial)
+		public void close() throws IOException {
+			socket.close();
+		}
+	}
+
+	@Benchmark
+	public long bytes(Connection connection) throws IOException {
+		ByteArrayResource body = new ByteArrayResource(Files.readAllBytes(image));
+		try (InputStream in = body.getInputStream()) {
+			return copy(in, connection.response);
+		}
+	}
+
+	@Benchmark
+	public long stream(Connection connection) throws IOException {
+		FileSystemResource body = new FileSystemResource(image);
+		try (InputStream in = body.getInputStream()) {
+			return copy(in, connection.response);
+		}
+	}
+
+	@Benchmark
+	public long sendfile(Connection connection) throws IOException {
+		try (FileChannel file = FileChannel.open(image, StandardOpenOption.READ)) {
+			long length = file.size();
+			long position = 0;
+			while (position < length) {
+				position += file.transferTo(position, length - position, connection.socket);
+			}
+			return position;
+		}
+	}
+
+	// What Spring's resource converter does (StreamUtils.copy); transferTo straight into a socket channel stream
+	// would let the JDK take a zero-copy shortcut that a servlet response never offers
+	private static long copy(InputStream in, OutputStream out) throws IOException {
+		long count = StreamUtils.copy(in, out);
+		out.flush();
+		return count;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		for (int threads : new int[]{1, 16, 64}) {
+			new Runner(new OptionsBuilder()
+					.include(ImageServingBenchmark.class.getSimpleName())
+					.threads(threads)
+					.addProfiler(GCProfiler.class)
+					.build()).run();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.ecommerce.ecomapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductImageRepositoryCustomImplTest {
+
+	private final EntityManager entityManager = mock(EntityManager.class);
+	private final Query query = mock(Query.class);
+	private final ProductImageRepositoryCustomImpl repository = new ProductImageRepositoryCustomImpl();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+		when(entityManager.createQuery(anyString())).thenReturn(query);
+		when(query.executeUpdate()).thenReturn(3);
+	}
+
+	@Test
+	void reorderIsOneUpdateForEveryImage() {
+		assertThat(repository.reorder(5L, List.of(12L, 10L, 11L), 10L)).isEqualTo(3);
+
+		InOrder order = inOrder(entityManager, query);
+		order.verify(entityManager).flush();
+		order.verify(entityManager).createQuery("UPDATE ProductImage pi SET "
+				+ "pi.displayOrder = CASE pi.id WHEN :id0 THEN 0 WHEN :id1 THEN 1 WHEN :id2 THEN 2 ELSE pi.displayOrder END, "
+				+ "pi.isPrimary = CASE WHEN pi.id = :primaryImageId THEN true ELSE false END WHERE pi.product.id = :productId");
+		order.verify(query).executeUpdate();
+		order.verify(entityManager).clear();
+		verify(query).setParameter("productId", 5L);
+		verify(query).setParameter("id0", 12L);
+		verify(query).setParameter("id1", 10L);
+		verify(query).setParameter("id2", 11L);
+		verify(query).setParameter("primaryImageId", 10L);
+	}
+
+	@Test
+	void primaryOnlyLeavesTheOrderAlone() {
+		repository.reorder(5L, List.of(), 10L);
+
+		verify(entityManager).createQuery("UPDATE ProductImage pi SET "
+				+ "pi.isPrimary = CASE WHEN pi.id = :primaryImageId THEN true ELSE false END WHERE pi.product.id = :productId");
+	}
+
+	@Test
+	void orderWithoutPrimaryLeavesTheFlagsAlone() {
+		repository.reorder(5L, List.of(11L), null);
+
+		verify(entityManager).createQuery("UPDATE ProductImage pi SET "
+				+ "pi.displayOrder = CASE pi.id WHEN :id0 THEN 0 ELSE pi.displayOrder END WHERE pi.product.id = :productId");
+		verify(query, never()).setParameter("primaryImageId", null);
+	}
+
+	@Test
+	void nothingToChangeRunsNothing() {
+		assertThat(repository.reorder(5L, List.of(), null)).isZero();
+
+		verifyNoInteractions(entityManager);
+	}
+}
@@ -0,0 +1,132 @@
+package com.ecommerce.ecomapi.security.jwt;
+
+import com.ecommerce.ecomapi.entity.User;
+import com.ecommerce.ecomapi.enums.Role;
+import com.ecommerce.ecomapi.repository.UserRepository;
+import com.ecommerce.ecomapi.security.user.CustomUserDetailsService;
+import com.ecommerce.ecomapi.service.auth.ITokenRevocationService;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+// Time and bytes allocated (gc.alloc.rate.norm) per authenticated request in JwtAuthenticationFilter:
+//   hit       - the same token again, served from the claims cache
+//   disabled  - max-entries=0, the signature is verified on every request
+//   saturated - every request brings a token the full cache hasn't seen, so each one is verified and evicts an entry
+//   database  - the path before tokens carried the role, still taken for such tokens: the same cached token, but the
+//               user is loaded through CustomUserDetailsService on every request. The repository is stubbed with a
+//               lookupMicros pause standing in for the query round trip (override with -p lookupMicros=...)
+// Run like PdfStreamingBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+	private static final int CACHE_SIZE = 1024;
+	private static final int DISTINCT_TOKENS = 8 * CACHE_SIZE;
+
+	@Param({"hit", "disabled", "saturated", "database"})
+	public String cache;
+
+	// Only used by "database"
+	@Param({"250"})
+	public int lookupMicros;
+
+	private JwtAuthenticationFilter filter;
+	private MockHttpServletRequest[] requests;
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+	private final FilterChain chain = (request, response) -> {
+	};
+	private int next;
+
+	@Setup
+	public void setUp() {
+		JwtUtil jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxEntries", cache.equals("disabled") ? 0 : CACHE_SIZE);
+		ITokenRevocationService revocations = new ITokenRevocationService() {
+			@Override
+			public void revokeTokens(User user) {
+			}
+
+			@Override
+			public boolean isRevoked(Long userId, int tokenVersion) {
+				return false;
+			}
+		};
+		filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService(), revocations);
+
+		requests = new MockHttpServletRequest[cache.equals("saturated") ? DISTINCT_TOKENS : 1];
+		for (int i = 0; i < requests.length; i++) {
+			User user = new User();
+			user.setId((long) i + 1);
+			user.setEmail("user" + i + "@example.com");
+			user.setRole(Role.CUSTOMER);
+			requests[i] = new MockHttpServletRequest("GET", "/api/cart");
+			// A token without the role claim, as issued before access tokens carried it
+			String token = cache.equals("database") ? jwtUtil.generateRefreshToken(user.getEmail()) : jwtUtil.generateAccessToken(user);
+			requests[i].addHeader("Authorization", "Bearer " + token);
+		}
+	}
+
+	// stubOnly: millions of invocations are not recorded
+	private CustomUserDetailsService userDetailsService() {
+		UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+		when(userRepository.findByEmail(anyString())).thenAnswer(inv -> {
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(lookupMicros));
+			User user = new User();
+			user.setId(1L);
+			user.setEmail(inv.getArgument(0));
+			user.setPassword("x");
+			user.setRole(Role.CUSTOMER);
+			return Optional.of(user);
+		});
+		return new CustomUserDetailsService(userRepository);
+	}
+
+	@Benchmark
+	public Authentication authenticate() throws Exception {
+		MockHttpServletRequest request = requests[next];
+		next = next + 1 == requests.length ? 0 : next + 1;
+		filter.doFilterInternal(request, response, chain);
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		SecurityContextHolder.clearContext();
+		return authentication;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,138 @@
+package com.ecommerce.ecomapi.security.jwt;
+
+import com.ecommerce.ecomapi.entity.User;
+import com.ecommerce.ecomapi.enums.Role;
+import com.ecommerce.ecomapi.security.user.AuthenticatedUser;
+import com.ecommerce.ecomapi.security.user.CustomUserDetailsService;
+import com.ecommerce.ecomapi.service.auth.ITokenRevocationService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+	private final CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+	private final ITokenRevocationService tokenRevocationService = mock(ITokenRevocationService.class);
+	private final FilterChain chain = mock(FilterChain.class);
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+	private JwtUtil jwtUtil;
+	private JwtAuthenticationFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxEntries", 100);
+		filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, tokenRevocationService);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void requestWithoutBearerTokenPassesThroughUnauthenticated() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Basic abc");
+
+		filter.doFilterInternal(request, response, chain);
+
+		verify(chain).doFilter(request, response);
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+		verifyNoInteractions(userDetailsService, tokenRevocationService);
+	}
+
+	@Test
+	void accessTokenIsAuthorizedFromItsClaimsWithoutLoadingTheUser() throws Exception {
+		MockHttpServletRequest request = bearer(jwtUtil.generateAccessToken(user(3)));
+
+		filter.doFilterInternal(request, response, chain);
+
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		assertThat(authentication.getPrincipal()).isEqualTo(new AuthenticatedUser(7L, "a@b.c", Role.ADMIN));
+		assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN");
+		verify(tokenRevocationService).isRevoked(7L, 3);
+		verifyNoInteractions(userDetailsService);
+		verify(chain).doFilter(request, response);
+	}
+
+	@Test
+	void revokedAccessTokenIsNotAuthenticated() throws Exception {
+		when(tokenRevocationService.isRevoked(7L, 3)).thenReturn(true);
+		MockHttpServletRequest request = bearer(jwtUtil.generateAccessToken(user(3)));
+
+		filter.doFilterInternal(request, response, chain);
+
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+		verify(chain).doFilter(request, response);
+	}
+
+	@Test
+	void tokenWithoutRoleClaimFallsBackToTheDatabase() throws Exception {
+		String token = Jwts.builder()
+				.setSubject("a@b.c")
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith((Key) ReflectionTestUtils.getField(jwtUtil, "signingKey"), SignatureAlgorithm.HS256)
+				.compact();
+		UserDetails details = new org.springframework.security.core.userdetails.User(
+				"a@b.c", "x", List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+		when(userDetailsService.loadUserByUsername("a@b.c")).thenReturn(details);
+
+		filter.doFilterInternal(bearer(token), response, chain);
+
+		assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isSameAs(details);
+		verify(tokenRevocationService, never()).isRevoked(anyLong(), anyInt());
+	}
+
+	@Test
+	void existingAuthenticationIsLeftAlone() throws Exception {
+		Authentication existing = new TestingAuthenticationToken("someone", null);
+		SecurityContextHolder.getContext().setAuthentication(existing);
+
+		filter.doFilterInternal(bearer(jwtUtil.generateAccessToken(user(0))), response, chain);
+
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isSameAs(existing);
+		verify(userDetailsService, never()).loadUserByUsername(anyString());
+		verifyNoInteractions(tokenRevocationService);
+	}
+
+	private static MockHttpServletRequest bearer(String token) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+		request.addHeader("Authorization", "Bearer " + token);
+		return request;
+	}
+
+	private static User user(int tokenVersion) {
+		User user = new User();
+		user.setId(7L);
+		user.setEmail("a@b.c");
+		user.setRole(Role.ADMIN);
+		user.setTokenVersion(tokenVersion);
+		return user;
+	}
+}
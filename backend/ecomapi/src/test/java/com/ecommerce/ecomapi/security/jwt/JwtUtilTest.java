@@ -0,0 +1,130 @@
+package com.ecommerce.ecomapi.security.jwt;
+
+import com.ecommerce.ecomapi.entity.User;
+import com.ecommerce.ecomapi.enums.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+	private JwtUtil jwtUtil;
+
+	@BeforeEach
+	void setUp() {
+		jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxEntries", 3);
+	}
+
+	@Test
+	void accessTokenCarriesWhatTheFilterAuthorizesFrom() {
+		String token = jwtUtil.generateAccessToken(user(7L, "a@b.c", 2));
+
+		Claims claims = jwtUtil.extractAllClaims(token);
+
+		assertThat(claims.getSubject()).isEqualTo("a@b.c");
+		assertThat(claims.get(JwtUtil.USER_ID_CLAIM, Long.class)).isEqualTo(7L);
+		assertThat(claims.get(JwtUtil.ROLE_CLAIM, String.class)).isEqualTo("ADMIN");
+		assertThat(claims.get(JwtUtil.TOKEN_VERSION_CLAIM, Integer.class)).isEqualTo(2);
+		assertThat(jwtUtil.isTokenValid(token, "a@b.c")).isTrue();
+		assertThat(jwtUtil.isTokenValid(token, "x@b.c")).isFalse();
+	}
+
+	@Test
+	void verifiedTokenIsServedFromTheCache() {
+		String token = jwtUtil.generateAccessToken(user(7L, "a@b.c", 0));
+
+		Claims first = jwtUtil.extractAllClaims(token);
+
+		assertThat(jwtUtil.extractAllClaims(token)).isSameAs(first);
+		assertThat(cache()).hasSize(1);
+	}
+
+	@Test
+	void tamperedTokenIsRejectedAndNeverCached() {
+		String token = jwtUtil.generateAccessToken(user(7L, "a@b.c", 0));
+		String tampered = token.substring(0, token.length() - 3) + (token.endsWith("AAA") ? "BBB" : "AAA");
+
+		assertThatThrownBy(() -> jwtUtil.extractAllClaims(tampered)).isInstanceOf(JwtException.class);
+		assertThatThrownBy(() -> jwtUtil.extractAllClaims(tampered)).isInstanceOf(JwtException.class);
+
+		assertThat(cache()).isEmpty();
+	}
+
+	@Test
+	void fullCacheStaysBoundedAndEvictedTokensAreVerifiedAgain() {
+		String[] tokens = new String[10];
+		for (int i = 0; i < tokens.length; i++) {
+			tokens[i] = jwtUtil.generateAccessToken(user((long) i, "u" + i + "@b.c", 0));
+			assertThat(jwtUtil.extractUsername(tokens[i])).isEqualTo("u" + i + "@b.c");
+			assertThat(cache().size()).isLessThanOrEqualTo(3);
+		}
+
+		for (int i = 0; i < tokens.length; i++) {
+			assertThat(jwtUtil.extractUsername(tokens[i])).isEqualTo("u" + i + "@b.c");
+		}
+	}
+
+	@Test
+	void expiredEntriesAreSweptAndTheTokenIsRejected() {
+		Key key = (Key) ReflectionTestUtils.getField(jwtUtil, "signingKey");
+		String token = Jwts.builder()
+				.setSubject("old@b.c")
+				.setExpiration(new Date(System.currentTimeMillis() - 60_000))
+				.signWith(key, SignatureAlgorithm.HS256)
+				.compact();
+		String live = jwtUtil.generateAccessToken(user(7L, "a@b.c", 0));
+		jwtUtil.extractAllClaims(live);
+
+		// Verified while it was still valid, then left in the cache past its expiry
+		Object parser = ReflectionTestUtils.getField(jwtUtil, "parser");
+		ReflectionTestUtils.setField(jwtUtil, "parser", Jwts.parserBuilder()
+				.setSigningKey(key)
+				.setClock(() -> new Date(System.currentTimeMillis() - 120_000))
+				.build());
+		jwtUtil.extractAllClaims(token);
+		ReflectionTestUtils.setField(jwtUtil, "parser", parser);
+		assertThat(cache()).hasSize(2);
+
+		jwtUtil.evictExpired();
+
+		assertThat(cache()).hasSize(1);
+		assertThatThrownBy(() -> jwtUtil.extractAllClaims(token)).isInstanceOf(ExpiredJwtException.class);
+		assertThat(jwtUtil.extractUsername(live)).isEqualTo("a@b.c");
+	}
+
+	@Test
+	void zeroEntriesVerifiesEveryRequest() {
+		ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxEntries", 0);
+		String token = jwtUtil.generateAccessToken(user(7L, "a@b.c", 0));
+
+		assertThat(jwtUtil.extractUsername(token)).isEqualTo("a@b.c");
+		assertThat(jwtUtil.extractUsername(token)).isEqualTo("a@b.c");
+		assertThat(cache()).isEmpty();
+	}
+
+	private Map<?, ?> cache() {
+		return (Map<?, ?>) ReflectionTestUtils.getField(jwtUtil, "verifiedTokens");
+	}
+
+	private static User user(Long id, String email, int tokenVersion) {
+		User user = new User();
+		user.setId(id);
+		user.setEmail(email);
+		user.setRole(id == 7L ? Role.ADMIN : Role.CUSTOMER);
+		user.setTokenVersion(tokenVersion);
+		return user;
+	}
+}
@@ -0,0 +1,105 @@
+package com.ecommerce.ecomapi.service.cart;
+
+import com.ecommerce.ecomapi.repository.CartRepository;
+import com.ecommerce.ecomapi.repository.CartRepository.CartActivity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartExpiryServiceTest {
+
+	private final CartRepository cartRepo = mock(CartRepository.class);
+	private final WriteBehindCartStore cartStore = mock(WriteBehindCartStore.class);
+	private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+	private CartExpiryService service;
+
+	@BeforeEach
+	void setUp() {
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+		service = new CartExpiryService(cartRepo, cartStore, transactionTemplate);
+		ReflectionTestUtils.setField(service, "enabled", true);
+		ReflectionTestUtils.setField(service, "ttlDays", 7);
+		ReflectionTestUtils.setField(service, "tickMs", 1_000L);
+		ReflectionTestUtils.setField(service, "batchSize", 500);
+		service.init();
+	}
+
+	@Test
+	void startupBackfillsMissingActivityBeforeScheduling() {
+		when(cartRepo.findActivityAfter(any(), any())).thenReturn(List.of());
+
+		service.loadExistingCarts();
+
+		verify(cartRepo).backfillLastActivity(any());
+	}
+
+	@Test
+	void cartWithoutRecordedActivityIsNotPurged() {
+		// A zero TTL puts every touched cart straight onto the due list
+		ReflectionTestUtils.setField(service, "ttlDays", 0);
+		service.touch(1L);
+		when(cartRepo.findActivityByIds(List.of(1L))).thenReturn(List.of(new Activity(1L, 10L, null)));
+
+		assertThat(service.purgeExpiredCarts()).isZero();
+		verify(cartRepo, never()).deleteByIds(anyList());
+		assertThat(service.getStats().getLiveCarts()).isEqualTo(1);
+	}
+
+	@Test
+	void cartActiveSinceSchedulingIsRescheduled() {
+		ReflectionTestUtils.setField(service, "ttlDays", 0);
+		service.touch(1L);
+		when(cartRepo.findActivityByIds(List.of(1L)))
+				.thenReturn(List.of(new Activity(1L, 10L, LocalDateTime.now().plusHours(1))));
+
+		assertThat(service.purgeExpiredCarts()).isZero();
+		verify(cartRepo, never()).deleteByIds(anyList());
+		assertThat(service.getStats().getLiveCarts()).isEqualTo(1);
+	}
+
+	@Test
+	void abandonedCartIsPurgedAndDroppedFromMemory() {
+		ReflectionTestUtils.setField(service, "ttlDays", 0);
+		service.touch(1L);
+		when(cartRepo.findActivityByIds(List.of(1L)))
+				.thenReturn(List.of(new Activity(1L, 10L, LocalDateTime.now().minusDays(30))));
+		when(cartRepo.deleteByIds(List.of(1L))).thenReturn(1);
+
+		assertThat(service.purgeExpiredCarts()).isEqualTo(1);
+		verify(cartRepo).deleteItemsByCartIds(List.of(1L));
+		verify(cartStore).discard(10L);
+		assertThat(service.getStats().getLiveCarts()).isZero();
+	}
+
+	private record Activity(Long id, Long userId, LocalDateTime lastActivityAt) implements CartActivity {
+		@Override
+		public Long getId() {
+			return id;
+		}
+
+		@Override
+		public Long getUserId() {
+			return userId;
+		}
+
+		@Override
+		public LocalDateTime getLastActivityAt() {
+			return lastActivityAt;
+		}
+	}
+}
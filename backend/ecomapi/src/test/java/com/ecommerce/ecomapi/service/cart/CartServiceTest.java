@@ -0,0 +1,135 @@
+package com.ecommerce.ecomapi.service.cart;
+
+import com.ecommerce.ecomapi.dto.cart.CartOperationRequest;
+import com.ecommerce.ecomapi.entity.Cart;
+import com.ecommerce.ecomapi.entity.CartItem;
+import com.ecommerce.ecomapi.entity.Product;
+import com.ecommerce.ecomapi.entity.User;
+import com.ecommerce.ecomapi.enums.CartOperationType;
+import com.ecommerce.ecomapi.repository.CartItemRepository;
+import com.ecommerce.ecomapi.repository.CartRepository;
+import com.ecommerce.ecomapi.repository.ProductRepository;
+import com.ecommerce.ecomapi.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CartServiceTest {
+
+	@Mock
+	private CartRepository cartRepo;
+
+	@Mock
+	private CartItemRepository cartItemRepo;
+
+	@Mock
+	private UserRepository userRepo;
+
+	@Mock
+	private ProductRepository productRepo;
+
+	@Mock
+	private WriteBehindCartStore cartStore;
+
+	@Mock
+	private ICartExpiryService cartExpiryService;
+
+	@InjectMocks
+	private CartService cartService;
+
+	private final User user = new User();
+	private final Product product = new Product();
+	private Cart cart;
+	private CartItem line;
+
+	@BeforeEach
+	void setUp() {
+		user.setId(1L);
+		product.setId(10L);
+		product.setPrice(new BigDecimal("2.50"));
+
+		cart = new Cart();
+		cart.setId(100L);
+		cart.setUser(user);
+		cart.setItems(new ArrayList<>());
+		line = item(5L, 3);
+		cart.getItems().add(line);
+
+		when(userRepo.findById(1L)).thenReturn(Optional.of(user));
+		when(cartRepo.findByUser(user)).thenReturn(Optional.of(cart));
+		when(productRepo.findAllById(any())).thenReturn(List.of(product));
+		when(cartRepo.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
+	}
+
+	@Test
+	void setQuantityUpdatesTheExistingLineInPlace() {
+		Cart saved = cartService.applyOperations(1L, List.of(op(CartOperationType.SET_QUANTITY, 7)));
+
+		assertThat(saved.getItems()).hasSize(1);
+		assertThat(saved.getItems().get(0)).isSameAs(line);
+		assertThat(line.getId()).isEqualTo(5L);
+		assertThat(line.getQuantity()).isEqualTo(7);
+		assertThat(line.getTotalPrice()).isEqualByComparingTo("17.50");
+		assertThat(saved.getTotalAmount()).isEqualByComparingTo("17.50");
+		// Nothing new to insert
+		verify(cartItemRepo).saveAll(List.of());
+	}
+
+	@Test
+	void setQuantityFoldsDuplicateLinesIntoTheFirst() {
+		cart.getItems().add(item(6L, 2));
+
+		Cart saved = cartService.applyOperations(1L, List.of(op(CartOperationType.SET_QUANTITY, 4)));
+
+		assertThat(saved.getItems()).hasSize(1);
+		assertThat(saved.getItems().get(0).getId()).isEqualTo(5L);
+		assertThat(saved.getItems().get(0).getQuantity()).isEqualTo(4);
+	}
+
+	@Test
+	void setQuantityToZeroRemovesTheLine() {
+		Cart saved = cartService.applyOperations(1L, List.of(op(CartOperationType.SET_QUANTITY, 0)));
+
+		assertThat(saved.getItems()).isEmpty();
+		assertThat(saved.getTotalAmount()).isEqualByComparingTo("0");
+	}
+
+	@Test
+	void setQuantityForANewProductAddsALine() {
+		cart.getItems().clear();
+
+		Cart saved = cartService.applyOperations(1L, List.of(op(CartOperationType.SET_QUANTITY, 2)));
+
+		assertThat(saved.getItems()).hasSize(1);
+		assertThat(saved.getItems().get(0).getId()).isNull();
+		assertThat(saved.getItems().get(0).getTotalPrice()).isEqualByComparingTo("5.00");
+	}
+
+	private CartItem item(Long id, int quantity) {
+		CartItem item = new CartItem();
+		item.setId(id);
+		item.setProduct(product);
+		item.setQuantity(quantity);
+		item.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+		item.setCart(cart);
+		return item;
+	}
+
+	private static CartOperationRequest op(CartOperationType type, int quantity) {
+		return new CartOperationRequest(type, 10L, quantity);
+	}
+}
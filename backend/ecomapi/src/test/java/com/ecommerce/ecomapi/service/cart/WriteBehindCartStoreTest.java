@@ -0,0 +1,220 @@
+package com.ecommerce.ecomapi.service.cart;
+
+import com.ecommerce.ecomapi.entity.Cart;
+import com.ecommerce.ecomapi.entity.CartItem;
+import com.ecommerce.ecomapi.entity.Product;
+import com.ecommerce.ecomapi.repository.CartItemRepository;
+import com.ecommerce.ecomapi.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WriteBehindCartStoreTest {
+
+	private final CartRepository cartRepo = mock(CartRepository.class);
+	private final CartItemRepository cartItemRepo = mock(CartItemRepository.class);
+	private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+	private final Map<Long, Cart> database = new ConcurrentHashMap<>();
+	private final AtomicLong itemIds = new AtomicLong(100);
+	private WriteBehindCartStore store;
+
+	@BeforeEach
+	void setUp() {
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		when(cartRepo.findById(any())).thenAnswer(invocation -> Optional.ofNullable(database.get(invocation.<Long>getArgument(0))));
+		when(cartItemRepo.save(any())).thenAnswer(invocation -> {
+			CartItem item = invocation.getArgument(0);
+			item.setId(itemIds.incrementAndGet());
+			return item;
+		});
+
+		store = new WriteBehindCartStore(cartRepo, cartItemRepo, transactionTemplate);
+		ReflectionTestUtils.setField(store, "storeMode", "memory");
+		ReflectionTestUtils.setField(store, "maxCarts", 10_000);
+		ReflectionTestUtils.setField(store, "idleEvictionMs", 1_800_000L);
+		ReflectionTestUtils.setField(store, "flushBatchSize", 50);
+	}
+
+	@Test
+	void flushWritesOnlyTheDifferenceAndRemapsTemporaryIds() {
+		Product kept = product(1L, "5.00");
+		Product removed = product(2L, "7.00");
+		Product added = product(3L, "2.50");
+		Cart persisted = cart(10L, line(11L, kept, 1), line(12L, removed, 1));
+		database.put(10L, persisted);
+
+		Cart afterAdd = store.update(1L, () -> persisted, cart -> {
+			cart.getItems().get(0).setQuantity(3);
+			cart.getItems().get(0).setTotalPrice(new BigDecimal("15.00"));
+			cart.getItems().removeIf(item -> item.getId() == 12L);
+			cart.getItems().add(new CartItem(null, added, 2, new BigDecimal("5.00"), cart));
+		});
+		Long temporaryId = afterAdd.getItems().get(1).getId();
+		assertThat(temporaryId).isNegative();
+		assertThat(store.findOwner(temporaryId)).contains(1L);
+		assertThat(afterAdd.getTotalAmount()).isEqualByComparingTo("20.00");
+
+		store.flushDirtyCarts();
+
+		assertThat(persisted.getItems()).extracting(CartItem::getId).containsExactly(11L, 101L);
+		assertThat(persisted.getItems().get(0).getQuantity()).isEqualTo(3);
+		assertThat(persisted.getTotalAmount()).isEqualByComparingTo("20.00");
+
+		Cart afterFlush = store.read(1L, () -> persisted);
+		assertThat(afterFlush.getItems()).extracting(CartItem::getId).containsExactly(11L, 101L);
+		assertThat(store.findOwner(101L)).contains(1L);
+		// a client still holding the temporary id can remove the line
+		assertThat(store.removeItem(1L, temporaryId, () -> persisted)).isTrue();
+		store.flushDirtyCarts();
+		assertThat(persisted.getItems()).extracting(CartItem::getId).containsExactly(11L);
+	}
+
+	@Test
+	void failedFlushIsRetried() {
+		Cart persisted = cart(20L);
+		database.put(20L, persisted);
+		store.update(2L, () -> persisted, cart -> cart.getItems().add(new CartItem(null, product(1L, "1.00"), 1, BigDecimal.ONE, cart)));
+
+		doThrow(new IllegalStateException("database down")).when(cartItemRepo).save(any());
+		store.flushDirtyCarts();
+		assertThat(persisted.getItems()).isEmpty();
+
+		doAnswer(invocation -> {
+			CartItem item = invocation.getArgument(0);
+			item.setId(itemIds.incrementAndGet());
+			return item;
+		}).when(cartItemRepo).save(any());
+		store.flushDirtyCarts();
+		assertThat(persisted.getItems()).hasSize(1);
+	}
+
+	@Test
+	void flushWaitsForAnInFlightBackgroundWrite() throws Exception {
+		Cart persisted = cart(30L);
+		database.put(30L, persisted);
+		store.update(3L, () -> persisted, cart -> cart.getItems().add(new CartItem(null, product(1L, "4.00"), 1, new BigDecimal("4.00"), cart)));
+
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(cartRepo.findById(30L)).thenAnswer(invocation -> {
+			writing.countDown();
+			release.await();
+			return Optional.of(persisted);
+		});
+
+		ExecutorService threads = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> background = threads.submit(store::flushDirtyCarts);
+			assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+			// The background flush has taken the snapshot (the cart is no longer dirty) but not committed it
+			Future<?> checkoutFlush = threads.submit(() -> store.flush(3L));
+			assertThatThrownBy(() -> checkoutFlush.get(300, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+			assertThat(persisted.getItems()).isEmpty();
+
+			release.countDown();
+			checkoutFlush.get(5, TimeUnit.SECONDS);
+			assertThat(persisted.getItems()).hasSize(1);
+			background.get(5, TimeUnit.SECONDS);
+		} finally {
+			release.countDown();
+			threads.shutdownNow();
+		}
+	}
+
+	@Test
+	void evictionIsSafeWhileCartsAreBeingTouched() throws Exception {
+		ReflectionTestUtils.setField(store, "maxCarts", 50);
+		for (long userId = 1; userId <= 500; userId++) {
+			Cart cart = cart(1000 + userId);
+			store.read(userId, () -> cart);
+		}
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		ExecutorService threads = Executors.newFixedThreadPool(4);
+		List<Future<?>> touchers = new ArrayList<>();
+		try {
+			for (int t = 0; t < 3; t++) {
+				long seed = t;
+				touchers.add(threads.submit(() -> {
+					long userId = seed;
+					while (running.get()) {
+						userId = userId % 500 + 1;
+						Cart cart = cart(1000 + userId);
+						store.read(userId, () -> cart);
+					}
+				}));
+			}
+			for (int i = 0; i < 200; i++) {
+				store.flushDirtyCarts();
+			}
+		} finally {
+			running.set(false);
+			threads.shutdown();
+		}
+		for (Future<?> toucher : touchers) {
+			toucher.get(5, TimeUnit.SECONDS);
+		}
+		store.flushDirtyCarts();
+		assertThat(store.size()).isLessThanOrEqualTo(50);
+	}
+
+	@Test
+	void dirtyCartsAreNotEvicted() {
+		ReflectionTestUtils.setField(store, "idleEvictionMs", -1L);
+		Cart persisted = cart(40L);
+		database.put(40L, persisted);
+		when(cartRepo.findById(40L)).thenThrow(new IllegalStateException("database down"));
+		store.update(4L, () -> persisted, cart -> cart.getItems().add(new CartItem(null, product(1L, "1.00"), 1, BigDecimal.ONE, cart)));
+
+		store.flushDirtyCarts();
+
+		assertThat(store.size()).isEqualTo(1);
+	}
+
+	private static Product product(Long id, String price) {
+		Product product = new Product();
+		product.setId(id);
+		product.setPrice(new BigDecimal(price));
+		return product;
+	}
+
+	private static CartItem line(Long id, Product product, int quantity) {
+		return new CartItem(id, product, quantity, product.getPrice().multiply(BigDecimal.valueOf(quantity)), null);
+	}
+
+	private static Cart cart(Long id, CartItem... items) {
+		Cart cart = new Cart();
+		cart.setId(id);
+		cart.setTotalAmount(BigDecimal.ZERO);
+		cart.setItems(new ArrayList<>(List.of(items)));
+		cart.getItems().forEach(item -> item.setCart(cart));
+		return cart;
+	}
+}
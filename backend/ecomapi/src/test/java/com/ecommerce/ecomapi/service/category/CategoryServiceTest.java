@@ -0,0 +1,71 @@
+package com.ecommerce.ecomapi.service.category;
+
+import com.ecommerce.ecomapi.entity.Category;
+import com.ecommerce.ecomapi.repository.CategoryRepository;
+import com.ecommerce.ecomapi.repository.ProductRepository;
+import com.ecommerce.ecomapi.service.product.ProductChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryServiceTest {
+
+	@Mock
+	private CategoryRepository categoryRepository;
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@InjectMocks
+	private CategoryService categoryService;
+
+	@Test
+	void renamingACategoryRefreshesTheListingsOfItsProducts() {
+		Category renamed = new Category(3L, "Renamed");
+		when(categoryRepository.save(renamed)).thenReturn(renamed);
+		when(productRepository.findIdsByCategoryId(3L)).thenReturn(List.of(10L, 11L));
+
+		categoryService.createCategory(renamed);
+
+		verify(eventPublisher).publishEvent(new ProductChangedEvent(10L));
+		verify(eventPublisher).publishEvent(new ProductChangedEvent(11L));
+	}
+
+	@Test
+	void newCategoryHasNoProductsToRefresh() {
+		Category created = new Category("New");
+		when(categoryRepository.save(created)).thenReturn(new Category(4L, "New"));
+
+		categoryService.createCategory(created);
+
+		verify(productRepository, never()).findIdsByCategoryId(anyLong());
+		verify(eventPublisher, never()).publishEvent(any());
+	}
+
+	@Test
+	void deletingACategoryRefreshesTheListingsOfItsProducts() {
+		when(productRepository.findIdsByCategoryId(3L)).thenReturn(List.of(10L));
+
+		categoryService.deleteCategory(3L);
+
+		var order = inOrder(eventPublisher, categoryRepository);
+		order.verify(eventPublisher).publishEvent(new ProductChangedEvent(10L));
+		order.verify(categoryRepository).deleteById(3L);
+	}
+}
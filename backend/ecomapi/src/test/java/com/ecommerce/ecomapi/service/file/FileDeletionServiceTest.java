@@ -0,0 +1,117 @@
+package com.ecommerce.ecomapi.service.file;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class FileDeletionServiceTest {
+
+	private static final String BLOB = "a".repeat(64) + ".jpg";
+
+	private final IFileStorageService fileStorageService = mock(IFileStorageService.class);
+	private final ThreadPoolTaskExecutor deletionExecutor = mock(ThreadPoolTaskExecutor.class);
+	private FileDeletionService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new FileDeletionService(fileStorageService, deletionExecutor);
+		ReflectionTestUtils.setField(service, "batchSize", 10);
+		ReflectionTestUtils.setField(service, "maxAttempts", 3);
+		ReflectionTestUtils.setField(service, "retryBackoffMs", 1L);
+		ReflectionTestUtils.setField(service, "blobGraceMs", 200L);
+	}
+
+	@Test
+	void scheduledRunOnlyHandsOffToTheDeletionExecutor() throws Exception {
+		service.deleteAfterCommit(List.of("b.jpg"), "products/1");
+
+		service.scheduledDelete();
+
+		ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+		verify(deletionExecutor).execute(task.capture());
+		verifyNoInteractions(fileStorageService);
+
+		task.getValue().run();
+
+		verify(fileStorageService).deleteFiles(List.of("b.jpg"), "products/1");
+	}
+
+	@Test
+	void emptyQueueSchedulesNothing() {
+		service.scheduledDelete();
+
+		verify(deletionExecutor, never()).execute(any());
+	}
+
+	@Test
+	void blobIsCheckedForReferencesOnlyAfterTheGracePeriod() throws Exception {
+		BooleanSupplier referenced = () -> false;
+		when(fileStorageService.deleteBlobIfUnreferenced(BLOB, referenced)).thenReturn(true);
+
+		service.deleteBlobLater(BLOB, referenced);
+		service.deletePending();
+		verify(fileStorageService, never()).deleteBlobIfUnreferenced(anyString(), any());
+
+		Thread.sleep(250);
+		service.deletePending();
+		verify(fileStorageService).deleteBlobIfUnreferenced(BLOB, referenced);
+	}
+
+	@Test
+	void failedBlobDeleteIsRetriedWithItsReferenceCheck() throws Exception {
+		ReflectionTestUtils.setField(service, "blobGraceMs", 0L);
+		BooleanSupplier referenced = () -> false;
+		when(fileStorageService.deleteBlobIfUnreferenced(BLOB, referenced))
+				.thenThrow(new IOException("backend down"))
+				.thenReturn(true);
+
+		service.deleteBlobLater(BLOB, referenced);
+		service.deletePending();
+		Thread.sleep(50);
+		service.deletePending();
+
+		verify(fileStorageService, times(2)).deleteBlobIfUnreferenced(BLOB, referenced);
+		verify(fileStorageService, never()).deleteFiles(any(), any());
+	}
+
+	@Test
+	void referencedBlobIsNotRetried() throws Exception {
+		ReflectionTestUtils.setField(service, "blobGraceMs", 0L);
+		BooleanSupplier referenced = () -> true;
+		when(fileStorageService.deleteBlobIfUnreferenced(BLOB, referenced)).thenReturn(false);
+
+		service.deleteBlobLater(BLOB, referenced);
+		service.deletePending();
+		Thread.sleep(50);
+		service.deletePending();
+
+		verify(fileStorageService).deleteBlobIfUnreferenced(BLOB, referenced);
+	}
+
+	@Test
+	void shutdownLeavesBlobsInTheirGracePeriodToTheOrphanCollection() throws Exception {
+		service.deleteBlobAfterCommit(BLOB, () -> false);
+		service.deleteAfterCommit(List.of("b.jpg"), "products/1");
+
+		service.deleteOnShutdown();
+
+		verify(fileStorageService).deleteFiles(List.of("b.jpg"), "products/1");
+		verify(fileStorageService, never()).deleteBlobIfUnreferenced(eq(BLOB), any());
+	}
+}
@@ -0,0 +1,240 @@
+package com.ecommerce.ecomapi.service.file;
+
+import com.ecommerce.ecomapi.service.file.storage.StorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileStorageServiceTest {
+
+	@TempDir
+	Path uploadDir;
+
+	private final StorageBackend storageBackend = mock(StorageBackend.class);
+	private FileStorageService service;
+
+	@BeforeEach
+	void setUp() {
+		when(storageBackend.upload(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+		service = new FileStorageService(storageBackend);
+		ReflectionTestUtils.setField(service, "uploadDir", uploadDir.toString());
+		ReflectionTestUtils.setField(service, "metadataCacheMaxEntries", 100);
+		ReflectionTestUtils.setField(service, "storageMode", "content-addressed");
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void identicalContentIsStoredOnceUnderItsHash() throws Exception {
+		String first = service.storeProductImage(image("a.JPG", "same bytes"), 1L);
+		String second = service.storeProductImage(image("b.jpg", "same bytes"), 2L);
+
+		assertThat(first).isEqualTo(second).matches("[0-9a-f]{64}\\.jpg");
+		assertThat(service.isContentAddressed(first)).isTrue();
+		assertThat(blobFiles()).hasSize(1);
+		verify(storageBackend, times(1)).upload(anyString(), any());
+		assertThat(service.loadFile(first, "products/2")).hasContent("same bytes");
+	}
+
+	@Test
+	void blobStoredOutsideATransactionStaysPinnedUntilReleased() throws Exception {
+		String blob = service.storeProductImage(image("a.jpg", "pinned"), 1L);
+
+		assertThat(service.deleteBlobIfUnreferenced(blob, () -> false)).isFalse();
+		assertThat(blobFiles()).hasSize(1);
+
+		service.releaseReference(blob);
+		assertThat(service.deleteBlobIfUnreferenced(blob, () -> false)).isTrue();
+		assertThat(blobFiles()).isEmpty();
+	}
+
+	@Test
+	void pinsAreCountedPerStore() throws Exception {
+		String blob = service.storeProductImage(image("a.jpg", "twice"), 1L);
+		service.storeProductImage(image("b.jpg", "twice"), 2L);
+
+		service.releaseReference(blob);
+		assertThat(service.deleteBlobIfUnreferenced(blob, () -> false)).isFalse();
+
+		service.releaseReference(blob);
+		assertThat(service.deleteBlobIfUnreferenced(blob, () -> false)).isTrue();
+	}
+
+	@Test
+	void blobStoredInATransactionIsPinnedUntilItCompletes() throws Exception {
+		TransactionSynchronizationManager.initSynchronization();
+		String blob = service.storeProductImage(image("a.jpg", "in tx"), 1L);
+
+		assertThat(service.deleteBlobIfUnreferenced(blob, () -> false)).isFalse();
+
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+		}
+		assertThat(service.deleteBlobIfUnreferenced(blob, () -> false)).isTrue();
+	}
+
+	@Test
+	void referencedBlobIsKept() throws Exception {
+		String blob = service.storeProductImage(image("a.jpg", "referenced"), 1L);
+		service.releaseReference(blob);
+
+		assertThat(service.deleteBlobIfUnreferenced(blob, () -> true)).isFalse();
+		assertThat(blobFiles()).hasSize(1);
+	}
+
+	@Test
+	void deletingABlobRemovesItsDerivativesToo() throws Exception {
+		String blob = service.storeProductImage(image("a.jpg", "with thumbs"), 1L);
+		service.releaseReference(blob);
+		String hash = blob.substring(0, 64);
+		Path thumbnail = service.getFilePath(hash + "_thumb.jpg", "products/1");
+		Files.writeString(thumbnail, "thumb");
+
+		assertThat(service.deleteBlobIfUnreferenced(blob, () -> false)).isTrue();
+		assertThat(blobFiles()).isEmpty();
+		String key = "blobs/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+		verify(storageBackend).deleteByPrefix(key);
+	}
+
+	@Test
+	void discardingAnUncommittedStoreOnlyUnpinsABlob() throws Exception {
+		String blob = service.storeProductImage(image("a.jpg", "discarded"), 1L);
+
+		service.discardStoredFile(blob, "products/1");
+
+		assertThat(blobFiles()).hasSize(1);
+		assertThat(service.deleteBlobIfUnreferenced(blob, () -> false)).isTrue();
+	}
+
+	@Test
+	void contentStoredByAnotherNodeIsDeduplicatedAgainstTheBackend() throws Exception {
+		when(storageBackend.exists(anyString())).thenReturn(true);
+
+		String blob = service.storeProductImage(image("a.jpg", "stored elsewhere"), 1L);
+
+		verify(storageBackend, never()).upload(anyString(), any());
+		assertThat(service.loadFile(blob, "products/1")).hasContent("stored elsewhere");
+	}
+
+	@Test
+	void unansweredBackendCheckUploadsTheBlobAgain() throws Exception {
+		when(storageBackend.exists(anyString())).thenThrow(new IOException("backend down"));
+
+		service.storeProductImage(image("a.jpg", "uploaded again"), 1L);
+
+		verify(storageBackend).upload(anyString(), any());
+	}
+
+	@Test
+	void sharedBlobsCannotBeDeletedDirectly() throws Exception {
+		String blob = service.storeProductImage(image("a.jpg", "shared"), 1L);
+
+		assertThatThrownBy(() -> service.deleteProductImage(blob, 1L))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void storeReturnsBeforeTheBackendUploadCompletes() throws Exception {
+		ReflectionTestUtils.setField(service, "storageMode", "uuid");
+		CompletableFuture<Void> upload = new CompletableFuture<>();
+		when(storageBackend.upload(anyString(), any())).thenReturn(upload);
+
+		String fileName = service.storeProductImage(image("a.jpg", "async"), 1L);
+
+		assertThat(upload).isNotDone();
+		assertThat(service.loadFile(fileName, "products/1")).hasContent("async");
+	}
+
+	@Test
+	void failedUploadIsRetriedFromTheLocalCopy() throws Exception {
+		ReflectionTestUtils.setField(service, "storageMode", "uuid");
+		when(storageBackend.upload(anyString(), any()))
+				.thenReturn(CompletableFuture.failedFuture(new IOException("backend down")))
+				.thenReturn(CompletableFuture.completedFuture(null));
+
+		String fileName = service.storeProductImage(image("a.jpg", "retried"), 1L);
+		assertThat(service.loadFile(fileName, "products/1")).hasContent("retried");
+
+		service.retryFailedUploads();
+		service.retryFailedUploads();
+		verify(storageBackend, times(2)).upload(anyString(), any());
+	}
+
+	@Test
+	void deleteWaitsForAnInFlightUploadOfTheSameFile() throws Exception {
+		ReflectionTestUtils.setField(service, "storageMode", "uuid");
+		CompletableFuture<Void> upload = new CompletableFuture<>();
+		when(storageBackend.upload(anyString(), any())).thenReturn(upload);
+		String fileName = service.storeProductImage(image("a.jpg", "racing"), 1L);
+
+		CompletableFuture<Void> delete = CompletableFuture.runAsync(() -> {
+			try {
+				service.deleteProductImage(fileName, 1L);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(200);
+		assertThat(delete).isNotDone();
+		verify(storageBackend, never()).delete(anyString());
+
+		upload.complete(null);
+		delete.get(5, TimeUnit.SECONDS);
+		verify(storageBackend).delete(anyString());
+	}
+
+	@Test
+	void deletedFileIsNotRetried() throws Exception {
+		ReflectionTestUtils.setField(service, "storageMode", "uuid");
+		when(storageBackend.upload(anyString(), any()))
+				.thenReturn(CompletableFuture.failedFuture(new IOException("backend down")));
+		String fileName = service.storeProductImage(image("a.jpg", "gone"), 1L);
+
+		service.deleteProductImage(fileName, 1L);
+		service.retryFailedUploads();
+
+		verify(storageBackend, times(1)).upload(anyString(), any());
+	}
+
+	private static MockMultipartFile image(String name, String content) {
+		return new MockMultipartFile("file", name, "image/jpeg", content.getBytes());
+	}
+
+	private Stream<Path> blobFiles() throws Exception {
+		Path blobs = uploadDir.resolve("blobs");
+		if (!Files.exists(blobs)) {
+			return Stream.empty();
+		}
+		try (Stream<Path> files = Files.walk(blobs)) {
+			return files.filter(Files::isRegularFile).toList().stream();
+		}
+	}
+}
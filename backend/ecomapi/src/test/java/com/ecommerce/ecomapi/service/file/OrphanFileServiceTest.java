@@ -0,0 +1,81 @@
+package com.ecommerce.ecomapi.service.file;
+
+import com.ecommerce.ecomapi.repository.ProductImageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OrphanFileServiceTest {
+
+	@TempDir
+	Path uploadDir;
+
+	private final ProductImageRepository productImageRepository = mock(ProductImageRepository.class);
+	private final IFileStorageService fileStorageService = mock(IFileStorageService.class);
+	private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+	private final ThreadPoolTaskExecutor collectionExecutor = mock(ThreadPoolTaskExecutor.class);
+	private OrphanFileService service;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		when(productImageRepository.streamFileNames()).thenReturn(Stream.empty());
+		doAnswer(inv -> {
+			inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+
+		service = new OrphanFileService(productImageRepository, fileStorageService, transactionTemplate, collectionExecutor);
+		ReflectionTestUtils.setField(service, "uploadDir", uploadDir.toString());
+		ReflectionTestUtils.setField(service, "enabled", true);
+		ReflectionTestUtils.setField(service, "graceMinutes", 60L);
+		ReflectionTestUtils.setField(service, "batchSize", 100);
+		ReflectionTestUtils.setField(service, "parallelism", 1);
+
+		Path orphan = Files.createDirectories(uploadDir.resolve("products/0a/5")).resolve("gone.png");
+		Files.writeString(orphan, "x");
+		Files.setLastModifiedTime(orphan, FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS)));
+	}
+
+	@Test
+	void scheduledRunOnlyHandsOffToTheCollectionExecutor() throws Exception {
+		service.scheduledCollect();
+
+		ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+		verify(collectionExecutor).execute(task.capture());
+		verifyNoInteractions(productImageRepository, fileStorageService);
+
+		task.getValue().run();
+
+		verify(fileStorageService).deleteProductImage("gone.png", 5L);
+	}
+
+	@Test
+	void disabledCollectionSchedulesNothing() {
+		ReflectionTestUtils.setField(service, "enabled", false);
+
+		service.scheduledCollect();
+
+		verify(collectionExecutor, never()).execute(any());
+	}
+}
@@ -0,0 +1,274 @@
+package com.ecommerce.ecomapi.service.file.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs the backend against an in-memory S3 stand-in that checks every request's signature
+class S3StorageBackendTest {
+
+	private static final String BUCKET = "ecomapi";
+
+	@TempDir
+	Path tempDir;
+
+	private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+	private final Map<String, Map<Integer, byte[]>> multipartUploads = new ConcurrentHashMap<>();
+	private final AtomicInteger partsInFlight = new AtomicInteger();
+	private final AtomicInteger maxPartsInFlight = new AtomicInteger();
+	private final AtomicInteger badSignatures = new AtomicInteger();
+	private final AtomicInteger bulkDeletes = new AtomicInteger();
+	private final AwsV4Signer signer = new AwsV4Signer("AK", "SK", "us-east-1", "s3");
+	private HttpServer server;
+	private S3StorageBackend backend;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newFixedThreadPool(8));
+		server.createContext("/", this::handle);
+		server.start();
+
+		backend = new S3StorageBackend();
+		ReflectionTestUtils.setField(backend, "endpoint", "http://localhost:" + server.getAddress().getPort() + "/");
+		ReflectionTestUtils.setField(backend, "bucket", BUCKET);
+		ReflectionTestUtils.setField(backend, "region", "us-east-1");
+		ReflectionTestUtils.setField(backend, "accessKey", "AK");
+		ReflectionTestUtils.setField(backend, "secretKey", "SK");
+		ReflectionTestUtils.setField(backend, "multipartThreshold", 1_000_000L);
+		ReflectionTestUtils.setField(backend, "partSize", 262_144L);
+		ReflectionTestUtils.setField(backend, "maxConcurrentParts", 3);
+		ReflectionTestUtils.setField(backend, "requestTimeoutSeconds", 10L);
+		backend.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	void smallFileIsUploadedInOneRequest() throws Exception {
+		Path source = write("a b+c.png", new byte[] {1, 2, 3});
+
+		backend.upload("products/5c/42/a b+c.png", source).get();
+
+		assertThat(objects.get("products/5c/42/a b+c.png")).containsExactly(1, 2, 3);
+		assertThat(multipartUploads).isEmpty();
+		assertThat(badSignatures).hasValue(0);
+	}
+
+	@Test
+	void largeFileIsUploadedInBoundedConcurrentParts() throws Exception {
+		byte[] content = new byte[2_500_000];
+		new Random(3).nextBytes(content);
+		Path source = write("big.bin", content);
+
+		backend.upload("test/big one.bin", source).get();
+
+		assertThat(objects.get("test/big one.bin")).isEqualTo(content);
+		assertThat(maxPartsInFlight.get()).isBetween(2, 3);
+		assertThat(multipartUploads).isEmpty();
+		assertThat(badSignatures).hasValue(0);
+	}
+
+	@Test
+	void failedUploadCompletesExceptionally() throws Exception {
+		Path source = write("x.bin", new byte[] {1});
+		ReflectionTestUtils.setField(backend, "secretKey", "wrong");
+		backend.init();
+
+		assertThatThrownBy(() -> backend.upload("x.bin", source).get())
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(IOException.class);
+	}
+
+	@Test
+	void downloadExistsAndDelete() throws Exception {
+		objects.put("products/5c/42/a.png", new byte[] {4, 5});
+		Path target = tempDir.resolve("local/products/5c/42/a.png");
+
+		assertThat(backend.download("products/5c/42/a.png", target)).isTrue();
+		assertThat(target).hasBinaryContent(new byte[] {4, 5});
+		assertThat(backend.download("products/5c/42/missing.png", tempDir.resolve("missing.png"))).isFalse();
+		assertThat(backend.exists("products/5c/42/a.png")).isTrue();
+
+		backend.delete("products/5c/42/a.png");
+		assertThat(backend.exists("products/5c/42/a.png")).isFalse();
+		assertThat(badSignatures).hasValue(0);
+	}
+
+	@Test
+	void deleteByPrefixListsThenDeletesInOneBulkRequest() throws Exception {
+		objects.put("blobs/ab/cd/abcd.png", new byte[1]);
+		objects.put("blobs/ab/cd/abcd_thumb.png", new byte[1]);
+		objects.put("blobs/ab/cd/abce.png", new byte[1]);
+
+		backend.deleteByPrefix("blobs/ab/cd/abcd");
+
+		assertThat(objects).containsOnlyKeys("blobs/ab/cd/abce.png");
+		assertThat(bulkDeletes).hasValue(1);
+		assertThat(badSignatures).hasValue(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String rawPath = exchange.getRequestURI().getRawPath();
+			Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+			if (!signatureMatches(exchange, rawPath, query)) {
+				badSignatures.incrementAndGet();
+				reply(exchange, 403, "<Error><Code>SignatureDoesNotMatch</Code></Error>");
+				return;
+			}
+			String path = URLDecoder.decode(rawPath.replace("+", "%2B"), StandardCharsets.UTF_8);
+			String key = path.length() > BUCKET.length() + 2 ? path.substring(BUCKET.length() + 2) : null;
+			byte[] body = exchange.getRequestBody().readAllBytes();
+
+			switch (exchange.getRequestMethod()) {
+				case "PUT" -> {
+					if (query.containsKey("partNumber")) {
+						maxPartsInFlight.accumulateAndGet(partsInFlight.incrementAndGet(), Math::max);
+						Thread.sleep(30);
+						multipartUploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), body);
+						partsInFlight.decrementAndGet();
+						exchange.getResponseHeaders().add("ETag", "\"part" + query.get("partNumber") + "\"");
+					} else {
+						objects.put(key, body);
+					}
+					reply(exchange, 200, "");
+				}
+				case "POST" -> {
+					if (query.containsKey("delete")) {
+						String md5 = Base64.getEncoder().encodeToString(MessageDigest.getInstance("MD5").digest(body));
+						assertThat(exchange.getRequestHeaders().getFirst("Content-MD5")).isEqualTo(md5);
+						Matcher keys = Pattern.compile("<Key>([^<]+)</Key>").matcher(new String(body, StandardCharsets.UTF_8));
+						while (keys.find()) {
+							objects.remove(keys.group(1));
+						}
+						bulkDeletes.incrementAndGet();
+						reply(exchange, 200, "<DeleteResult/>");
+					} else if (query.containsKey("uploads")) {
+						String uploadId = UUID.randomUUID().toString();
+						multipartUploads.put(uploadId, new ConcurrentHashMap<>());
+						reply(exchange, 200, "<InitiateMultipartUploadResult><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+					} else {
+						Map<Integer, byte[]> parts = multipartUploads.remove(query.get("uploadId"));
+						Matcher listed = Pattern.compile("<PartNumber>(\\d+)</PartNumber><ETag>\"part(\\d+)\"</ETag>")
+								.matcher(new String(body, StandardCharsets.UTF_8));
+						ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+						while (listed.find()) {
+							assembled.write(parts.get(Integer.parseInt(listed.group(1))));
+						}
+						objects.put(key, assembled.toByteArray());
+						reply(exchange, 200, "<CompleteMultipartUploadResult/>");
+					}
+				}
+				case "GET" -> {
+					if (key == null) {
+						StringBuilder listing = new StringBuilder("<ListBucketResult>");
+						objects.keySet().stream().filter(k -> k.startsWith(query.get("prefix"))).sorted()
+								.forEach(k -> listing.append("<Contents><Key>").append(k).append("</Key></Contents>"));
+						reply(exchange, 200, listing.append("</ListBucketResult>").toString());
+					} else if (objects.containsKey(key)) {
+						byte[] content = objects.get(key);
+						exchange.sendResponseHeaders(200, content.length);
+						exchange.getResponseBody().write(content);
+						exchange.close();
+					} else {
+						reply(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+					}
+				}
+				case "HEAD" -> {
+					exchange.sendResponseHeaders(objects.containsKey(key) ? 200 : 404, -1);
+					exchange.close();
+				}
+				case "DELETE" -> {
+					if (query.containsKey("uploadId")) {
+						multipartUploads.remove(query.get("uploadId"));
+					} else {
+						objects.remove(key);
+					}
+					reply(exchange, 204, "");
+				}
+				default -> reply(exchange, 405, "");
+			}
+		} catch (Exception | AssertionError e) {
+			reply(exchange, 500, e.toString());
+		}
+	}
+
+	// Recomputes the signature from what arrived on the wire
+	private boolean signatureMatches(HttpExchange exchange, String rawPath, Map<String, String> query) {
+		String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+		Matcher signedHeaders = Pattern.compile("SignedHeaders=([^,]+)").matcher(authorization == null ? "" : authorization);
+		if (!signedHeaders.find()) {
+			return false;
+		}
+		TreeMap<String, String> headers = new TreeMap<>();
+		for (String name : List.of(signedHeaders.group(1).split(";"))) {
+			headers.put(name, exchange.getRequestHeaders().getFirst(name));
+		}
+		String expected = signer.authorization(exchange.getRequestMethod(), rawPath, AwsV4Signer.canonicalQuery(query),
+				headers, exchange.getRequestHeaders().getFirst("x-amz-content-sha256"), headers.get("x-amz-date"));
+		return expected.equals(authorization);
+	}
+
+	private Path write(String name, byte[] content) throws IOException {
+		Path file = tempDir.resolve(name);
+		Files.write(file, content);
+		return file;
+	}
+
+	private static Map<String, String> query(String raw) {
+		Map<String, String> query = new HashMap<>();
+		if (raw == null) {
+			return query;
+		}
+		for (String parameter : raw.split("&")) {
+			int equals = parameter.indexOf('=');
+			String name = equals < 0 ? parameter : parameter.substring(0, equals);
+			String value = equals < 0 ? "" : parameter.substring(equals + 1);
+			query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+		return query;
+	}
+
+	private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		boolean empty = status == 204 || bytes.length == 0;
+		exchange.sendResponseHeaders(status, empty ? -1 : bytes.length);
+		if (!empty) {
+			exchange.getResponseBody().write(bytes);
+		}
+		exchange.close();
+	}
+}
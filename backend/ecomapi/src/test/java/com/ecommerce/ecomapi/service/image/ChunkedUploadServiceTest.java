@@ -0,0 +1,224 @@
+package com.ecommerce.ecomapi.service.image;
+
+import com.ecommerce.ecomapi.dto.image.ChunkedUploadRequest;
+import com.ecommerce.ecomapi.dto.image.ChunkedUploadStatus;
+import com.ecommerce.ecomapi.entity.ProductImage;
+import com.ecommerce.ecomapi.exceptions.CapacityExceededException;
+import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ChunkedUploadServiceTest {
+
+	private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+	@TempDir
+	Path uploadDir;
+
+	private final IProductImageService productImageService = mock(IProductImageService.class);
+	private final AtomicReference<byte[]> assembled = new AtomicReference<>();
+	private ChunkedUploadService service;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		service = new ChunkedUploadService(productImageService);
+		ReflectionTestUtils.setField(service, "uploadDir", uploadDir.toString());
+		ReflectionTestUtils.setField(service, "maxFileSize", 1024L);
+		ReflectionTestUtils.setField(service, "defaultChunkSize", 8);
+		ReflectionTestUtils.setField(service, "maxChunkSize", 64);
+		ReflectionTestUtils.setField(service, "maxActive", 2);
+		ReflectionTestUtils.setField(service, "expiryMinutes", 60L);
+
+		// The staging file is deleted once complete() returns, so capture what the image service was handed
+		doAnswer(inv -> {
+			assembled.set(Files.readAllBytes(inv.<Path>getArgument(1)));
+			ProductImage image = new ProductImage();
+			image.setId(7L);
+			return image;
+		}).when(productImageService).uploadProductImage(eq(1L), any(Path.class), anyString(), any(), anyBoolean());
+	}
+
+	@Test
+	void chunksSentOutOfOrderAreAssembledAtTheirOffsets() throws Exception {
+		ChunkedUploadStatus status = service.start(request(null));
+		assertThat(status.getChunkCount()).isEqualTo(3);
+		assertThat(status.getMissingChunks()).containsExactly(0, 1, 2);
+
+		send(status.getUploadId(), 2);
+		send(status.getUploadId(), 0);
+		status = send(status.getUploadId(), 1);
+
+		assertThat(status.getReceivedChunks()).isEqualTo(3);
+		assertThat(status.getMissingChunks()).isEmpty();
+		assertThat(service.complete(status.getUploadId()).getId()).isEqualTo(7L);
+		assertThat(assembled.get()).isEqualTo(CONTENT);
+		assertThat(stagingFiles()).isZero();
+	}
+
+	@Test
+	void chunkWithWrongChecksumIsNotCounted() throws Exception {
+		String uploadId = service.start(request(null)).getUploadId();
+
+		assertThatThrownBy(() -> service.writeChunk(uploadId, 0, sha256("something else".getBytes()), chunk(0)))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Checksum mismatch");
+
+		assertThat(service.getStatus(uploadId).getMissingChunks()).containsExactly(0, 1, 2);
+		// The client resends it with the right bytes and it counts
+		assertThat(send(uploadId, 0).getMissingChunks()).containsExactly(1, 2);
+	}
+
+	@Test
+	void resentChunkThatFailsVerificationIsMissingAgain() throws Exception {
+		String uploadId = service.start(request(null)).getUploadId();
+		send(uploadId, 0);
+
+		byte[] corrupted = Arrays.copyOfRange(CONTENT, 0, 8);
+		corrupted[3] ^= 1;
+		assertThatThrownBy(() -> service.writeChunk(uploadId, 0, sha256(chunkBytes(0)), new ByteArrayInputStream(corrupted)))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(service.getStatus(uploadId).getMissingChunks()).containsExactly(0, 1, 2);
+	}
+
+	@Test
+	void chunkOfTheWrongLengthIsRejected() throws Exception {
+		String uploadId = service.start(request(null)).getUploadId();
+		byte[] shortChunk = Arrays.copyOfRange(CONTENT, 0, 5);
+		byte[] longChunk = Arrays.copyOfRange(CONTENT, 0, 9);
+
+		assertThatThrownBy(() -> service.writeChunk(uploadId, 0, sha256(shortChunk), new ByteArrayInputStream(shortChunk)))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("shorter");
+		assertThatThrownBy(() -> service.writeChunk(uploadId, 0, sha256(longChunk), new ByteArrayInputStream(longChunk)))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("longer");
+		assertThatThrownBy(() -> service.writeChunk(uploadId, 3, sha256(shortChunk), new ByteArrayInputStream(shortChunk)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.writeChunk(uploadId, 0, " ", chunk(0)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void completionNeedsEveryChunk() throws Exception {
+		String uploadId = service.start(request(null)).getUploadId();
+		send(uploadId, 0);
+		send(uploadId, 2);
+
+		assertThatThrownBy(() -> service.complete(uploadId))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("1 chunks are still missing");
+
+		// The session survives so the client can send the missing chunk
+		send(uploadId, 1);
+		service.complete(uploadId);
+		assertThat(assembled.get()).isEqualTo(CONTENT);
+	}
+
+	@Test
+	void wholeFileChecksumIsVerifiedOnCompletion() throws Exception {
+		String uploadId = service.start(request(sha256("not the content".getBytes()))).getUploadId();
+		for (int i = 0; i < 3; i++) {
+			send(uploadId, i);
+		}
+
+		assertThatThrownBy(() -> service.complete(uploadId))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("assembled file");
+
+		verify(productImageService, never()).uploadProductImage(any(), any(Path.class), any(), any(), anyBoolean());
+		assertThat(stagingFiles()).isZero();
+		assertThatThrownBy(() -> service.getStatus(uploadId)).isInstanceOf(ResourceNotFoundException.class);
+	}
+
+	@Test
+	void matchingWholeFileChecksumIsAccepted() throws Exception {
+		String uploadId = service.start(request(sha256(CONTENT).toUpperCase())).getUploadId();
+		for (int i = 0; i < 3; i++) {
+			send(uploadId, i);
+		}
+
+		service.complete(uploadId);
+
+		assertThat(assembled.get()).isEqualTo(CONTENT);
+	}
+
+	@Test
+	void startValidatesSizesAndCapacity() throws Exception {
+		ChunkedUploadRequest tooLarge = request(null);
+		tooLarge.setTotalSize(2048L);
+		ChunkedUploadRequest hugeChunks = request(null);
+		hugeChunks.setChunkSize(128);
+
+		assertThatThrownBy(() -> service.start(tooLarge)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.start(hugeChunks)).isInstanceOf(IllegalArgumentException.class);
+
+		service.start(request(null));
+		service.start(request(null));
+		assertThatThrownBy(() -> service.start(request(null))).isInstanceOf(CapacityExceededException.class);
+	}
+
+	@Test
+	void abortAndExpiryRemoveTheStagingFile() throws Exception {
+		String aborted = service.start(request(null)).getUploadId();
+		String expired = service.start(request(null)).getUploadId();
+		assertThat(stagingFiles()).isEqualTo(2);
+
+		service.abort(aborted);
+		assertThat(stagingFiles()).isEqualTo(1);
+
+		ReflectionTestUtils.setField(service, "expiryMinutes", -1L);
+		service.removeExpiredUploads();
+
+		assertThat(stagingFiles()).isZero();
+		assertThatThrownBy(() -> service.getStatus(expired)).isInstanceOf(ResourceNotFoundException.class);
+	}
+
+	private ChunkedUploadStatus send(String uploadId, int index) throws Exception {
+		return service.writeChunk(uploadId, index, sha256(chunkBytes(index)), chunk(index));
+	}
+
+	private static ByteArrayInputStream chunk(int index) {
+		return new ByteArrayInputStream(chunkBytes(index));
+	}
+
+	private static byte[] chunkBytes(int index) {
+		return Arrays.copyOfRange(CONTENT, index * 8, Math.min(CONTENT.length, (index + 1) * 8));
+	}
+
+	private static ChunkedUploadRequest request(String checksum) {
+		return new ChunkedUploadRequest(1L, "large.png", "image/png", (long) CONTENT.length, null, checksum, false);
+	}
+
+	private long stagingFiles() throws Exception {
+		try (var files = Files.list(uploadDir.resolve("chunked"))) {
+			return files.count();
+		}
+	}
+
+	private static String sha256(byte[] bytes) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+	}
+}
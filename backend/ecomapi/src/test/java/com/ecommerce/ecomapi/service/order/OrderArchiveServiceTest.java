@@ -0,0 +1,81 @@
+package com.ecommerce.ecomapi.service.order;
+
+import com.ecommerce.ecomapi.repository.ArchivedOrderRepository;
+import com.ecommerce.ecomapi.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderArchiveServiceTest {
+
+	private final OrderRepository orderRepository = mock(OrderRepository.class);
+	private final ArchivedOrderRepository archivedOrderRepository = mock(ArchivedOrderRepository.class);
+	private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+	private final ThreadPoolTaskExecutor archiveExecutor = mock(ThreadPoolTaskExecutor.class);
+	private OrderArchiveService service;
+
+	@BeforeEach
+	void setUp() {
+		when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+		service = new OrderArchiveService(orderRepository, archivedOrderRepository, transactionTemplate, archiveExecutor);
+		ReflectionTestUtils.setField(service, "enabled", true);
+		ReflectionTestUtils.setField(service, "afterDays", 180);
+		ReflectionTestUtils.setField(service, "batchSize", 2);
+		ReflectionTestUtils.setField(service, "batchPauseMs", 1L);
+	}
+
+	@Test
+	void scheduledRunOnlyHandsOffToTheArchiveExecutor() {
+		when(orderRepository.findIdsOrderedBefore(any(LocalDateTime.class), any(Pageable.class)))
+				.thenReturn(List.of(1L));
+
+		service.scheduledArchive();
+
+		ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+		verify(archiveExecutor).execute(task.capture());
+		verifyNoInteractions(orderRepository, archivedOrderRepository);
+
+		task.getValue().run();
+
+		verify(archivedOrderRepository).copyOrders(List.of(1L));
+		verify(orderRepository).deleteByIds(List.of(1L));
+	}
+
+	@Test
+	void backlogIsMovedInChunksUntilAShortOne() {
+		when(orderRepository.findIdsOrderedBefore(any(LocalDateTime.class), any(Pageable.class)))
+				.thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+
+		assertThat(service.archiveOldOrders()).isEqualTo(5);
+
+		verify(archivedOrderRepository, times(3)).copyOrders(any());
+		verify(orderRepository).deleteByIds(List.of(5L));
+	}
+
+	@Test
+	void disabledArchivalSchedulesNothing() {
+		ReflectionTestUtils.setField(service, "enabled", false);
+
+		service.scheduledArchive();
+
+		verify(archiveExecutor, never()).execute(any());
+	}
+}
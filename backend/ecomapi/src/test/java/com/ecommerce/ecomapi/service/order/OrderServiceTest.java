@@ -0,0 +1,80 @@
+package com.ecommerce.ecomapi.service.order;
+
+import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.enums.OrderStatus;
+import com.ecommerce.ecomapi.exceptions.ResourceNotFoundException;
+import com.ecommerce.ecomapi.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceTest {
+
+	@Mock
+	private OrderRepository orderRepository;
+
+	@Mock
+	private IOrderArchiveService orderArchiveService;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@InjectMocks
+	private OrderService orderService;
+
+	@Test
+	void updateOrderStatusChangesHotOrders() {
+		Order order = new Order();
+		order.setId(1L);
+		order.setOrderStatus(OrderStatus.PENDING);
+		when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+		when(orderRepository.save(order)).thenReturn(order);
+
+		assertThat(orderService.updateOrderStatus(1L, OrderStatus.SHIPPED).getOrderStatus()).isEqualTo(OrderStatus.SHIPPED);
+		verify(eventPublisher).publishEvent(new OrderChangedEvent(1L));
+	}
+
+	@Test
+	void updateOrderStatusRejectsArchivedOrders() {
+		when(orderRepository.findById(2L)).thenReturn(Optional.empty());
+		when(orderArchiveService.isArchived(2L)).thenReturn(true);
+
+		assertThatThrownBy(() -> orderService.updateOrderStatus(2L, OrderStatus.SHIPPED))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("archived");
+		verify(orderRepository, never()).save(any());
+		verify(eventPublisher, never()).publishEvent(any());
+	}
+
+	@Test
+	void updateOrderStatusReportsUnknownOrders() {
+		when(orderRepository.findById(3L)).thenReturn(Optional.empty());
+		when(orderArchiveService.isArchived(3L)).thenReturn(false);
+
+		assertThatThrownBy(() -> orderService.updateOrderStatus(3L, OrderStatus.SHIPPED))
+				.isInstanceOf(ResourceNotFoundException.class);
+	}
+
+	@Test
+	void getOrderByIdFallsBackToTheArchive() {
+		Order archived = new Order();
+		archived.setId(4L);
+		when(orderRepository.findById(4L)).thenReturn(Optional.empty());
+		when(orderArchiveService.findArchivedOrder(4L)).thenReturn(Optional.of(archived));
+
+		assertThat(orderService.getOrderById(4L)).isSameAs(archived);
+	}
+}
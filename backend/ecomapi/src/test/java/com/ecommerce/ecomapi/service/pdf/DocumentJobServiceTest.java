@@ -0,0 +1,136 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.entity.User;
+import com.ecommerce.ecomapi.enums.DocumentType;
+import com.ecommerce.ecomapi.exceptions.CapacityExceededException;
+import com.ecommerce.ecomapi.service.order.IOrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DocumentJobServiceTest {
+
+	private final IDocumentCacheService documentCacheService = mock(IDocumentCacheService.class);
+	private final IOrderService orderService = mock(IOrderService.class);
+	private final CountDownLatch renderStarted = new CountDownLatch(1);
+	private final CountDownLatch releaseRender = new CountDownLatch(1);
+	private ThreadPoolTaskExecutor executor;
+	private DocumentJobService service;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(2);
+		executor.setMaxPoolSize(2);
+		executor.setQueueCapacity(10);
+		executor.initialize();
+
+		when(orderService.getOrderById(anyLong())).thenAnswer(invocation -> order(invocation.getArgument(0), 7L));
+		when(documentCacheService.findOrderDocument(anyLong(), any())).thenReturn(Optional.empty());
+		when(documentCacheService.getOrderDocument(anyLong(), any())).thenAnswer(invocation -> {
+			renderStarted.countDown();
+			releaseRender.await(5, TimeUnit.SECONDS);
+			return Path.of("order-" + invocation.getArgument(0) + ".pdf");
+		});
+
+		service = new DocumentJobService(documentCacheService, orderService, executor);
+		ReflectionTestUtils.setField(service, "perUserLimit", 3);
+		ReflectionTestUtils.setField(service, "syncTimeoutMs", 5_000L);
+		ReflectionTestUtils.setField(service, "syncMaxWaiting", 1);
+		service.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		releaseRender.countDown();
+		executor.shutdown();
+	}
+
+	@Test
+	void syncRenderReturnsTheRenderedDocument() throws Exception {
+		releaseRender.countDown();
+
+		assertThat(service.renderDocument(1L, DocumentType.ORDER)).isEqualTo(Path.of("order-1.pdf"));
+	}
+
+	@Test
+	void syncRenderFailsFastOnceTheWaitingSlotsAreTaken() throws Exception {
+		CompletableFuture<Path> first = CompletableFuture.supplyAsync(() -> render(1L));
+		assertThat(renderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		long start = System.nanoTime();
+		assertThatThrownBy(() -> service.renderDocument(2L, DocumentType.ORDER))
+				.isInstanceOf(CapacityExceededException.class);
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+
+		releaseRender.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(Path.of("order-1.pdf"));
+		assertThat(service.getStats().getRejected()).isEqualTo(1);
+	}
+
+	@Test
+	void syncRenderCountsAgainstThePerUserLimit() throws Exception {
+		ReflectionTestUtils.setField(service, "perUserLimit", 1);
+		ReflectionTestUtils.setField(service, "syncMaxWaiting", 5);
+		service.init();
+		service.submit(1L, DocumentType.INVOICE);
+		assertThat(renderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThatThrownBy(() -> service.renderDocument(2L, DocumentType.ORDER))
+				.isInstanceOf(CapacityExceededException.class)
+				.hasMessageContaining("per user");
+
+		// The slot is handed back once the job's render finishes
+		releaseRender.countDown();
+		while (executor.getActiveCount() > 0) {
+			Thread.sleep(10);
+		}
+		assertThat(service.renderDocument(2L, DocumentType.ORDER)).isEqualTo(Path.of("order-2.pdf"));
+	}
+
+	@Test
+	void submittedJobsCountAgainstTheOrderOwner() throws Exception {
+		ReflectionTestUtils.setField(service, "perUserLimit", 1);
+		when(orderService.getOrderById(3L)).thenReturn(order(3L, 8L));
+		service.submit(1L, DocumentType.INVOICE);
+		assertThat(renderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// Both orders belong to user 7, whoever asks for them
+		assertThatThrownBy(() -> service.submit(2L, DocumentType.INVOICE))
+				.isInstanceOf(CapacityExceededException.class);
+		assertThat(service.submit(3L, DocumentType.INVOICE).getUserId()).isEqualTo(8L);
+	}
+
+	private Path render(Long orderId) {
+		try {
+			return service.renderDocument(orderId, DocumentType.ORDER);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Order order(Long orderId, Long userId) {
+		User user = new User();
+		user.setId(userId);
+		Order order = new Order();
+		order.setId(orderId);
+		order.setUser(user);
+		return order;
+	}
+}
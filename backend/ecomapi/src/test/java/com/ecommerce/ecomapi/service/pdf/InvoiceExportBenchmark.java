@@ -0,0 +1,131 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.enums.DocumentType;
+import com.ecommerce.ecomapi.service.pdf.template.InvoiceTemplate;
+import com.ecommerce.ecomapi.service.pdf.template.OrderConfirmationTemplate;
+import com.ecommerce.ecomapi.service.pdf.template.PdfRenderingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+// Time to export a zip of invoices with 1, 4 and 8 export workers. Every invoice is rendered (the document cache is
+// off, so each one goes through a temporary file as it does in production with the cache disabled) and the zip is
+// discarded, so the numbers are rendering and zipping only. Scaling is bounded by the cores of the machine running
+// it. Run like PdfStreamingBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InvoiceExportBenchmark {
+
+	@Param({"1", "4", "8"})
+	public int workers;
+
+	@Param({"100"})
+	public int orders;
+
+	private ThreadPoolTaskExecutor executor;
+	private InvoiceExportService exportService;
+	private List<Long> orderIds;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(workers);
+		executor.setMaxPoolSize(workers);
+		executor.setThreadNamePrefix("invoice-export-");
+		executor.initialize();
+
+		PdfService pdfService = new PdfService(null, new PdfRenderingEngine(), new OrderConfirmationTemplate(), new InvoiceTemplate());
+		exportService = new InvoiceExportService(null, null, new RenderingDocuments(pdfService, PdfStreamingBenchmark.order(10)), executor);
+		orderIds = LongStream.rangeClosed(1, orders).boxed().toList();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public long export() throws IOException {
+		CountingStream out = new CountingStream();
+		exportService.exportInvoices(orderIds, out);
+		return out.count;
+	}
+
+	// Renders the same small order for every id, with the cache disabled
+	private record RenderingDocuments(PdfService pdfService, Order order) implements IDocumentCacheService {
+
+		@Override
+		public Path getOrderDocument(Long orderId, DocumentType type) {
+			throw new UnsupportedOperationException("The cache is disabled");
+		}
+
+		@Override
+		public Optional<Path> findOrderDocument(Long orderId, DocumentType type) {
+			return Optional.empty();
+		}
+
+		@Override
+		public void writeOrderDocument(Long orderId, DocumentType type, OutputStream out) throws IOException {
+			pdfService.writeOrderInvoice(order, out);
+		}
+
+		@Override
+		public boolean isCacheEnabled() {
+			return false;
+		}
+
+		@Override
+		public void prerender(Long orderId) {
+		}
+	}
+
+	// Stands in for the response: the zip is counted and dropped
+	private static final class CountingStream extends OutputStream {
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(InvoiceExportBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,113 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import com.ecommerce.ecomapi.enums.DocumentType;
+import com.ecommerce.ecomapi.repository.ArchivedOrderRepository;
+import com.ecommerce.ecomapi.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvoiceExportServiceTest {
+
+	// Unlikely to collide with anything else in the temp directory
+	private static final long FIRST_ORDER = 93_000_001L;
+
+	@TempDir
+	Path cacheDir;
+
+	private final IDocumentCacheService documentCacheService = mock(IDocumentCacheService.class);
+	private ThreadPoolTaskExecutor executor;
+	private InvoiceExportService service;
+
+	@BeforeEach
+	void setUp() {
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(2);
+		executor.setMaxPoolSize(2);
+		executor.initialize();
+		service = new InvoiceExportService(mock(OrderRepository.class), mock(ArchivedOrderRepository.class),
+				documentCacheService, executor);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void disabledCacheRendersThroughTemporaryFilesThatAreDeletedAfterZipping() throws Exception {
+		when(documentCacheService.isCacheEnabled()).thenReturn(false);
+		doAnswer(inv -> {
+			inv.<OutputStream>getArgument(2).write(("pdf " + inv.getArgument(0)).getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(documentCacheService).writeOrderDocument(anyLong(), eq(DocumentType.INVOICE), any());
+		doThrow(new IllegalStateException("broken order")).when(documentCacheService)
+				.writeOrderDocument(eq(FIRST_ORDER + 2), eq(DocumentType.INVOICE), any());
+
+		Map<String, String> entries = export(List.of(FIRST_ORDER, FIRST_ORDER + 1, FIRST_ORDER + 2));
+
+		assertThat(entries).containsEntry("invoice-" + FIRST_ORDER + ".pdf", "pdf " + FIRST_ORDER)
+				.containsEntry("invoice-" + (FIRST_ORDER + 1) + ".pdf", "pdf " + (FIRST_ORDER + 1))
+				.containsEntry("failed-orders.txt", (FIRST_ORDER + 2) + System.lineSeparator());
+		verify(documentCacheService, never()).getOrderDocument(anyLong(), any());
+		assertThat(temporaryRenders()).isZero();
+	}
+
+	@Test
+	void enabledCacheZipsTheCachedDocumentAndKeepsIt() throws Exception {
+		when(documentCacheService.isCacheEnabled()).thenReturn(true);
+		Path cached = Files.writeString(cacheDir.resolve("invoice-v1.pdf"), "cached");
+		when(documentCacheService.getOrderDocument(FIRST_ORDER, DocumentType.INVOICE)).thenReturn(cached);
+
+		Map<String, String> entries = export(List.of(FIRST_ORDER));
+
+		assertThat(entries).containsExactly(Map.entry("invoice-" + FIRST_ORDER + ".pdf", "cached"));
+		assertThat(cached).exists();
+		verify(documentCacheService, never()).writeOrderDocument(anyLong(), any(), any());
+	}
+
+	private Map<String, String> export(List<Long> orderIds) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		service.exportInvoices(orderIds, out);
+		Map<String, String> entries = new HashMap<>();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+				entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+			}
+		}
+		return entries;
+	}
+
+	private static long temporaryRenders() throws Exception {
+		try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+			return files.filter(file -> file.getFileName().toString().startsWith("invoice-930000")).count();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.service.pdf.template.InvoiceTemplate;
+import com.ecommerce.ecomapi.service.pdf.template.OrderConfirmationTemplate;
+import com.ecommerce.ecomapi.service.pdf.template.PdfRenderingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Documents per second and bytes allocated per document (gc.alloc.rate.norm) for the template engine,
+// rendering a typical small order into a reused buffer. Run like PdfStreamingBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PdfRenderingBenchmark {
+
+	@Param({"10"})
+	public int lines;
+
+	private PdfRenderingEngine engine;
+	private OrderConfirmationTemplate confirmation;
+	private InvoiceTemplate invoice;
+	private Order order;
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+
+	@Setup
+	public void setUp() {
+		engine = new PdfRenderingEngine();
+		confirmation = new OrderConfirmationTemplate();
+		invoice = new InvoiceTemplate();
+		order = PdfStreamingBenchmark.order(lines);
+	}
+
+	@Benchmark
+	public int orderConfirmation() throws IOException {
+		out.reset();
+		engine.render(confirmation, order, out);
+		return out.size();
+	}
+
+	@Benchmark
+	public int invoice() throws IOException {
+		out.reset();
+		engine.render(invoice, order, out);
+		return out.size();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(PdfRenderingBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,125 @@
+package com.ecommerce.ecomapi.service.pdf;
+
+import com.ecommerce.ecomapi.entity.Order;
+import com.ecommerce.ecomapi.entity.OrderItem;
+import com.ecommerce.ecomapi.entity.Product;
+import com.ecommerce.ecomapi.entity.User;
+import com.ecommerce.ecomapi.enums.OrderStatus;
+import com.ecommerce.ecomapi.service.pdf.template.InvoiceTemplate;
+import com.ecommerce.ecomapi.service.pdf.template.OrderConfirmationTemplate;
+import com.ecommerce.ecomapi.service.pdf.template.PdfRenderingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Heap cost of an order PDF download: the old buffered path (render into a ByteArrayOutputStream, then copy it
+// out for the response body) against rendering straight into the response stream. Read gc.alloc.rate.norm
+// (bytes per render) from the GC profiler output. Run with:
+//   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
+//   java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) com.ecommerce.ecomapi.service.pdf.PdfStreamingBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PdfStreamingBenchmark {
+
+	@Param({"5000"})
+	public int lines;
+
+	private PdfService pdfService;
+	private Order order;
+
+	@Setup
+	public void setUp() {
+		pdfService = new PdfService(null, new PdfRenderingEngine(), new OrderConfirmationTemplate(), new InvoiceTemplate());
+		order = order(lines);
+	}
+
+	@Benchmark
+	public void buffered(Blackhole blackhole) throws IOException {
+		blackhole.consume(pdfService.generateOrderPdf(order).toByteArray());
+	}
+
+	@Benchmark
+	public void streamed(Blackhole blackhole) throws IOException {
+		pdfService.writeOrderPdf(order, new DiscardingStream(blackhole));
+	}
+
+	static Order order(int lines) {
+		User user = new User();
+		user.setName("Benchmark Customer");
+		user.setEmail("customer@example.com");
+
+		List<OrderItem> items = new ArrayList<>(lines);
+		BigDecimal total = BigDecimal.ZERO;
+		for (int i = 0; i < lines; i++) {
+			Product product = new Product();
+			product.setId((long) i);
+			product.setName("Product " + i);
+			OrderItem item = new OrderItem();
+			item.setProduct(product);
+			item.setQuantity(1 + i % 5);
+			item.setPrice(BigDecimal.valueOf(10 + i % 90, 2));
+			items.add(item);
+			total = total.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+		}
+
+		Order order = new Order();
+		order.setId(1L);
+		order.setUser(user);
+		order.setOrderedAt(LocalDateTime.of(2025, 1, 1, 12, 0));
+		order.setOrderStatus(OrderStatus.PENDING);
+		order.setItems(items);
+		order.setTotalAmount(total);
+		return order;
+	}
+
+	// Stands in for the servlet output stream: bytes are handed to the blackhole and not kept
+	private static final class DiscardingStream extends OutputStream {
+		private final Blackhole blackhole;
+
+		private DiscardingStream(Blackhole blackhole) {
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void write(int b) {
+			blackhole.consume(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			blackhole.consume(len);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(PdfStreamingBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,108 @@
+package com.ecommerce.ecomapi.service.product;
+
+import com.ecommerce.ecomapi.entity.Product;
+import com.ecommerce.ecomapi.entity.ProductListing;
+import com.ecommerce.ecomapi.repository.CategoryRepository;
+import com.ecommerce.ecomapi.repository.ProductImageRepository;
+import com.ecommerce.ecomapi.repository.ProductListingRepository;
+import com.ecommerce.ecomapi.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductListingServiceTest {
+
+	private final ProductListingRepository listingRepository = mock(ProductListingRepository.class);
+	private final ProductRepository productRepository = mock(ProductRepository.class);
+	private final ProductImageRepository productImageRepository = mock(ProductImageRepository.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private ProductListingService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new ProductListingService(listingRepository, productRepository, productImageRepository,
+				mock(CategoryRepository.class), mock(TransactionTemplate.class), transactionManager);
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.unbindResourceIfPossible(service);
+		TransactionSynchronizationManager.setActualTransactionActive(false);
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void changedProductsAreRefreshedOnceInANewTransactionAfterCommit() {
+		Product product = new Product();
+		product.setId(7L);
+		product.setName("Lamp");
+		product.setPrice(new BigDecimal("19.99"));
+		when(productRepository.findAllById(anyCollection())).thenReturn(List.of(product));
+
+		service.onProductChanged(new ProductChangedEvent(7L));
+		service.onProductChanged(new ProductChangedEvent(7L));
+		verifyNoInteractions(productRepository, listingRepository, transactionManager);
+
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCommit();
+		}
+
+		ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+		InOrder order = inOrder(transactionManager, productRepository, listingRepository);
+		order.verify(transactionManager).getTransaction(definition.capture());
+		// The rows are locked before anything is projected from them
+		order.verify(productRepository).findAllByIdForUpdate(Set.of(7L));
+		order.verify(productRepository).findAllById(Set.of(7L));
+		ArgumentCaptor<List<ProductListing>> saved = ArgumentCaptor.captor();
+		order.verify(listingRepository).saveAll(saved.capture());
+		order.verify(transactionManager).commit(any());
+		assertThat(definition.getValue().getPropagationBehavior()).isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		assertThat(saved.getValue()).singleElement().satisfies(row -> assertThat(row.getName()).isEqualTo("Lamp"));
+	}
+
+	@Test
+	void rolledBackWriteRefreshesNothing() {
+		service.onProductChanged(new ProductChangedEvent(7L));
+
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+		}
+
+		verifyNoInteractions(productRepository, listingRepository, transactionManager);
+	}
+
+	@Test
+	void failedRefreshDoesNotFailTheCommittedWrite() {
+		when(productRepository.findAllByIdForUpdate(anyCollection())).thenThrow(new IllegalStateException("lock wait timeout"));
+		service.onProductChanged(new ProductChangedEvent(7L));
+
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCommit();
+		}
+
+		verify(transactionManager).rollback(any());
+		verifyNoInteractions(listingRepository);
+	}
+}
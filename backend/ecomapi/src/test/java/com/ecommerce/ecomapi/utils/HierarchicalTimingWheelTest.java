@@ -0,0 +1,86 @@
+package com.ecommerce.ecomapi.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HierarchicalTimingWheelTest {
+
+	// 1s ticks, 8 slots per wheel: level 0 covers 8s, level 1 covers 64s, level 2 covers 512s
+	private final HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1_000, 8, 3, 0);
+
+	@Test
+	void keyExpiresOnItsDeadlineAndNotBefore() {
+		wheel.schedule("cart", 5_000);
+
+		assertThat(wheel.advance(4_999)).isEmpty();
+		assertThat(wheel.advance(5_000)).containsExactly("cart");
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void rescheduleReplacesTheEarlierDeadline() {
+		wheel.schedule("cart", 3_000);
+		wheel.schedule("cart", 7_000);
+
+		assertThat(wheel.size()).isEqualTo(1);
+		assertThat(wheel.advance(6_000)).isEmpty();
+		assertThat(wheel.advance(7_000)).containsExactly("cart");
+	}
+
+	@Test
+	void cancelledKeyNeverExpires() {
+		wheel.schedule("cart", 2_000);
+
+		assertThat(wheel.cancel("cart")).isTrue();
+		assertThat(wheel.cancel("cart")).isFalse();
+		assertThat(wheel.advance(10_000)).isEmpty();
+	}
+
+	@Test
+	void deadlinesOnCoarserWheelsCascadeDownAndFireOnTime() {
+		wheel.schedule("level1", 20_000);
+		wheel.schedule("level2", 100_000);
+
+		assertThat(wheel.advance(19_000)).isEmpty();
+		assertThat(wheel.advance(20_000)).containsExactly("level1");
+		assertThat(wheel.advance(99_000)).isEmpty();
+		assertThat(wheel.advance(100_000)).containsExactly("level2");
+	}
+
+	@Test
+	void deadlinesBeyondTheTopWheelAreHeldUntilDue() {
+		wheel.schedule("far", 2_000_000);
+
+		assertThat(wheel.advance(1_999_000)).isEmpty();
+		assertThat(wheel.size()).isEqualTo(1);
+		assertThat(wheel.advance(2_000_000)).containsExactly("far");
+	}
+
+	@Test
+	void pastDeadlinesExpireOnTheNextAdvance() {
+		wheel.advance(10_000);
+		wheel.schedule("late", 4_000);
+
+		assertThat(wheel.advance(10_000)).containsExactly("late");
+	}
+
+	@Test
+	void keysDueInTheSameTickExpireTogether() {
+		for (int i = 0; i < 100; i++) {
+			wheel.schedule("cart-" + i, 30_000 + i * 10);
+		}
+
+		assertThat(wheel.advance(29_000)).isEmpty();
+		assertThat(wheel.advance(31_000)).hasSize(100);
+	}
+
+	@Test
+	void rejectsInvalidDimensions() {
+		assertThatThrownBy(() -> new HierarchicalTimingWheel<String>(0, 8, 3, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new HierarchicalTimingWheel<String>(1_000, 1, 3, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
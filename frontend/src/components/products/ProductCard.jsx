@@ -11,10 +11,11 @@ const ProductCard = ({ product }) => {
   const { addToCart } = useCart();
   const navigate = useNavigate();
 
-  // Get primary image or first available image
+  // Listings carry primaryImageUrl; a full product has its images
   const primaryImage =
     product.images?.find((img) => img.isPrimary) || product.images?.[0];
-  const imageUrl = primaryImage?.imageUrl || "/api/placeholder-image.jpg";
+  const imageUrl =
+    product.primaryImageUrl || primaryImage?.imageUrl || "/api/placeholder-image.jpg";
 
   // Generate random rating for demo (you can replace with actual rating from backend)
   const rating = (Math.random() * 2 + 3).toFixed(1); // Random rating between 3.0-5.0
@@ -132,13 +132,10 @@ export const CartProvider = ({ children }) => {
     dispatch({ type: 'SET_LOADING', payload: true });
     
     try {
-      // Remove the item first
-      await api.delete(`/api/cart/remove-item/${itemId}`);
-      
-      // Add it back with new quantity if quantity > 0
-      if (newQuantity > 0) {
-        await api.post(`/api/cart/${user.id}/add-to-cart/${productId}?quantity=${newQuantity}`);
-      }
+      // Single batched request; a quantity of 0 removes the line
+      await api.patch(`/api/cart/${user.id}`, {
+        operations: [{ type: 'SET_QUANTITY', productId, quantity: newQuantity }]
+      });
       
       await fetchCart(); // Refresh cart data
       return { success: true };
@@ -13,7 +13,7 @@ import toast from 'react-hot-toast';
 const Checkout = () => {
   const [isProcessing, setIsProcessing] = useState(false);
   const [currentStep, setCurrentStep] = useState(1); // 1: Info, 2: Payment, 3: Review
-  const { items, totalAmount, getCartItemCount, clearCart } = useCart();
+  const { items, totalAmount, getCartItemCount, fetchCart } = useCart();
   const navigate = useNavigate();
 
   const {
@@ -51,35 +51,13 @@ const Checkout = () => {
     setIsProcessing(true);
     
     try {
-      // Prepare order data
-      const orderData = {
-        userId: JSON.parse(localStorage.getItem('user')).id,
-        items: items.map(item => ({
-          productId: item.product.id,
-          quantity: item.quantity,
-          price: item.product.price
-        })),
-        shippingAddress: {
-          fullName: data.fullName,
-          mobile: data.mobile,
-          houseNo: data.houseNo,
-          area: data.area,
-          city: data.city,
-          state: data.state,
-          pinCode: data.pinCode,
-          landmark: data.landmark,
-          country: 'IN'
-        },
-        paymentMethod: data.paymentMethod,
-        totalAmount: total
-      };
-
-      // Place the order
-      const response = await orderService.placeOrder(orderData);
+      // The server builds the order from the cart and clears it in one transaction
+      const userId = JSON.parse(localStorage.getItem('user')).id;
+      const response = await orderService.checkout(userId);
       
       if (response.data) {
-        // Clear the cart
-        await clearCart();
+        // Pick up the now-empty cart
+        await fetchCart();
         
         // Navigate to payment page with order details
         navigate('/payment', { 
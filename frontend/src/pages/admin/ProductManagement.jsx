@@ -204,16 +204,17 @@ const ProductManagement = () => {
                 {filteredProducts.map((product) => {
                   const stockStatus = getStockStatus(product.stockQuantity);
                   const primaryImage = product.images?.find(img => img.isPrimary) || product.images?.[0];
+                  const primaryImageUrl = product.primaryImageUrl || primaryImage?.imageUrl;
                   
                   return (
                     <tr key={product.id} className="hover:bg-gray-50">
                       <td className="px-6 py-4 whitespace-nowrap">
                         <div className="flex items-center">
                           <div className="h-12 w-12 flex-shrink-0">
-                            {primaryImage ? (
+                            {primaryImageUrl ? (
                               <img
                                 className="h-12 w-12 rounded-lg object-cover"
-                                src={primaryImage.imageUrl}
+                                src={primaryImageUrl}
                                 alt={product.name}
                                 onError={(e) => {
                                   e.target.src = 'https://via.placeholder.com/48x48?text=No+Image';
@@ -238,7 +239,7 @@ const ProductManagement = () => {
                         </div>
                       </td>
                       <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-900">
-                        {product.category?.name || 'No Category'}
+                        {product.categoryName || product.category?.name || 'No Category'}
                       </td>
                       <td className="px-6 py-4 whitespace-nowrap text-sm font-medium text-gray-900">
                         {formatPrice(product.price)}
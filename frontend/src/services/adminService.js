@@ -77,6 +77,11 @@ export const adminService = {
     return response.data;
   },
 
+  reorderProductImages: async (productId, imageIds, primaryImageId = null) => {
+    const response = await api.put(`/api/images/products/${productId}/order`, { imageIds, primaryImageId });
+    return response.data;
+  },
+
   // User Management
   getAllUsers: async () => {
     const response = await api.get('/api/users/all');
@@ -25,16 +25,16 @@ export const cartService = {
     return response.data;
   },
 
-  // Update item quantity (we'll implement this by removing and re-adding)
+  // Apply several add/remove/set-quantity operations in one request
+  updateCart: async (userId, operations) => {
+    const response = await api.patch(`/api/cart/${userId}`, { operations });
+    return response.data;
+  },
+
+  // Update item quantity (setting it to 0 removes the line)
   updateItemQuantity: async (userId, itemId, productId, newQuantity) => {
-    // Remove the item first
-    await cartService.removeItem(itemId);
-    
-    // Add it back with new quantity if quantity > 0
-    if (newQuantity > 0) {
-      return await cartService.addToCart(userId, productId, newQuantity);
-    }
-    
-    return { success: true };
+    return await cartService.updateCart(userId, [
+      { type: 'SET_QUANTITY', productId, quantity: newQuantity }
+    ]);
   }
 };
\ No newline at end of file
@@ -7,6 +7,12 @@ export const orderService = {
     return response.data;
   },
 
+  // Turn the user's server-side cart into an order (the cart is cleared in the same request)
+  checkout: async (userId) => {
+    const response = await api.post(`/api/orders/checkout/${userId}`);
+    return response.data;
+  },
+
   // Get order by ID
   getOrderById: async (orderId) => {
     const response = await api.get(`/api/orders/order/${orderId}`);